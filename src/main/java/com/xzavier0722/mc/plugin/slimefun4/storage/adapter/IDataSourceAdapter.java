@@ -1,9 +1,15 @@
 package com.xzavier0722.mc.plugin.slimefun4.storage.adapter;
 
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.DataScope;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.DataType;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.FieldKey;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.RecordKey;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.RecordSet;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.WriteOperation;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface IDataSourceAdapter<T> {
     void prepare(T config);
@@ -20,5 +26,60 @@ public interface IDataSourceAdapter<T> {
 
     List<RecordSet> getData(RecordKey key, boolean distinct);
 
+    /**
+     * Passes every matching record to the consumer as soon as it is read.
+     * Adapters should stream the records instead of reading all of them into memory first,
+     * this default falls back to {@link #getData(RecordKey, boolean)}.
+     */
+    default void forEachData(RecordKey key, boolean distinct, Consumer<RecordSet> consumer) {
+        getData(key, distinct).forEach(consumer);
+    }
+
     void deleteData(RecordKey key);
+
+    /**
+     * Fetches the records of every given chunk at once.
+     * <p>
+     * {@link DataScope#BLOCK_RECORD} and {@link DataScope#CHUNK_DATA} records always contain their
+     * {@link FieldKey#CHUNK}, {@link DataScope#BLOCK_DATA} and {@link DataScope#BLOCK_INVENTORY} records
+     * belong to the blocks recorded in these chunks and always contain their {@link FieldKey#LOCATION}.
+     * Adapters should fetch them with a single query, this default falls back to one query per block.
+     */
+    default List<RecordSet> getDataInChunks(DataScope scope, Set<FieldKey> fields, List<String> chunkKeys) {
+        var re = new ArrayList<RecordSet>();
+        for (var cKey : chunkKeys) {
+            if (scope == DataScope.BLOCK_RECORD || scope == DataScope.CHUNK_DATA) {
+                var key = new RecordKey(scope, fields);
+                key.addField(FieldKey.CHUNK);
+                key.addCondition(FieldKey.CHUNK, cKey);
+                re.addAll(getData(key));
+                continue;
+            }
+
+            var recordKey = new RecordKey(DataScope.BLOCK_RECORD);
+            recordKey.addField(FieldKey.LOCATION);
+            recordKey.addCondition(FieldKey.CHUNK, cKey);
+            for (var record : getData(recordKey)) {
+                var key = new RecordKey(scope, fields);
+                key.addField(FieldKey.LOCATION);
+                key.addCondition(FieldKey.LOCATION, record.get(FieldKey.LOCATION));
+                re.addAll(getData(key));
+            }
+        }
+        return re;
+    }
+
+    /**
+     * Executes the given writes in order.
+     * Adapters may group them into batches and commit them together.
+     */
+    default void executeBatch(List<WriteOperation> operations) {
+        for (var operation : operations) {
+            if (operation.isDelete()) {
+                deleteData(operation.key());
+            } else {
+                setData(operation.key(), operation.data());
+            }
+        }
+    }
 }
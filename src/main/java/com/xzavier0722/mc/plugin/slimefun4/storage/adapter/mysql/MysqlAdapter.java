@@ -14,14 +14,16 @@ import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlC
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_PLAYER_UUID;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_RESEARCH_KEY;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_SLIMEFUN_ID;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_WORLD_ID;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_WORLD_NAME;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.TABLE_NAME_BLOCK_WORLD;
 
 import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlCommonAdapter;
 import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlUtils;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.DataScope;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.DataType;
-import com.xzavier0722.mc.plugin.slimefun4.storage.common.RecordKey;
-import com.xzavier0722.mc.plugin.slimefun4.storage.common.RecordSet;
-import java.util.List;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.FieldKey;
+import java.util.Set;
 
 public class MysqlAdapter extends SqlCommonAdapter<MysqlConfig> {
     @Override
@@ -39,77 +41,51 @@ public class MysqlAdapter extends SqlCommonAdapter<MysqlConfig> {
                 blockDataTable = SqlUtils.mapTable(DataScope.BLOCK_DATA, config.tablePrefix());
                 blockInvTable = SqlUtils.mapTable(DataScope.BLOCK_INVENTORY, config.tablePrefix());
                 chunkDataTable = SqlUtils.mapTable(DataScope.CHUNK_DATA, config.tablePrefix());
+                worldTable = config.tablePrefix() + TABLE_NAME_BLOCK_WORLD;
                 createBlockStorageTables();
             }
         }
     }
 
+    /**
+     * Connector/J only streams the rows one by one with this fetch size, any other value reads the whole result.
+     */
     @Override
-    public void setData(RecordKey key, RecordSet item) {
-        var data = item.getAll();
-        var fields = data.keySet();
-        var fieldStr = SqlUtils.buildFieldStr(fields);
-        if (fieldStr.isEmpty()) {
-            throw new IllegalArgumentException("No data provided in RecordSet.");
-        }
-
-        var valStr = new StringBuilder();
-        var flag = false;
-        for (var field : fields) {
-            if (flag) {
-                valStr.append(", ");
-            } else {
-                flag = true;
-            }
-            valStr.append(SqlUtils.toSqlValStr(field, data.get(field)));
-        }
+    protected int getStreamingFetchSize() {
+        return Integer.MIN_VALUE;
+    }
 
-        var updateFields = key.getFields();
+    @Override
+    protected String buildUpsertSql(String table, DataScope scope, Set<FieldKey> fields, Set<FieldKey> updateFields) {
+        var insertStr = "INSERT INTO "
+                + table
+                + " ("
+                + SqlUtils.buildFieldStr(fields).orElseThrow()
+                + ") VALUES ("
+                + SqlUtils.buildPlaceholderStr(fields.size())
+                + ")";
 
-        if (!updateFields.isEmpty() && key.getConditions().isEmpty()) {
-            throw new IllegalArgumentException("Condition is required for update statement!");
+        if (scope.getPrimaryKeys().length == 0) {
+            return insertStr + ";";
         }
 
-        executeSql("INSERT INTO "
-                + mapTable(key.getScope())
-                + " ("
-                + fieldStr.get()
-                + ") "
-                + "VALUES ("
-                + valStr
-                + ")"
-                + (updateFields.isEmpty()
-                        ? ""
-                        : " ON DUPLICATE KEY UPDATE "
-                                + String.join(
-                                        ", ",
-                                        updateFields.stream()
-                                                .map(field -> {
-                                                    var val = item.get(field);
-                                                    if (val == null) {
-                                                        throw new IllegalArgumentException(
-                                                                "Cannot find value in RecordSet for the specific key: "
-                                                                        + field);
-                                                    }
-                                                    return SqlUtils.buildKvStr(field, val);
-                                                })
-                                                .toList()))
-                + ";");
-    }
-
-    @Override
-    public List<RecordSet> getData(RecordKey key, boolean distinct) {
-        return executeQuery((distinct ? "SELECT DISTINCT " : "SELECT ")
-                + SqlUtils.buildFieldStr(key.getFields()).orElse("*")
-                + " FROM "
-                + mapTable(key.getScope())
-                + SqlUtils.buildConditionStr(key.getConditions())
-                + ";");
-    }
+        insertStr += " ON DUPLICATE KEY UPDATE ";
+        if (updateFields.isEmpty()) {
+            // No-op update, keeps the existing row untouched
+            var pkStr = SqlUtils.mapField(scope.getPrimaryKeys()[0]);
+            return insertStr + pkStr + " = " + pkStr + ";";
+        }
 
-    @Override
-    public void deleteData(RecordKey key) {
-        executeSql("DELETE FROM " + mapTable(key.getScope()) + SqlUtils.buildConditionStr(key.getConditions()) + ";");
+        return insertStr
+                + String.join(
+                        ", ",
+                        updateFields.stream()
+                                .map(field -> {
+                                    var fieldStr = SqlUtils.mapField(field);
+                                    return fieldStr + " = VALUES(" + fieldStr + ")";
+                                })
+                                .toList())
+                + ";";
     }
 
     private void createProfileTables() {
@@ -124,6 +100,8 @@ public class MysqlAdapter extends SqlCommonAdapter<MysqlConfig> {
         createBlockDataTable();
         createBlockInvTable();
         createChunkDataTable();
+        createWorldTable();
+        createPositionColumns();
     }
 
     private void createProfileTable() {
@@ -268,6 +246,17 @@ public class MysqlAdapter extends SqlCommonAdapter<MysqlConfig> {
                 + ");");
     }
 
+    private void createWorldTable() {
+        executeSql("CREATE TABLE IF NOT EXISTS "
+                + worldTable
+                + "("
+                + FIELD_WORLD_ID
+                + " INT AUTO_INCREMENT PRIMARY KEY, "
+                + FIELD_WORLD_NAME
+                + " CHAR(64) UNIQUE NOT NULL"
+                + ");");
+    }
+
     private void createChunkDataTable() {
         executeSql("CREATE TABLE IF NOT EXISTS "
                 + chunkDataTable
@@ -14,16 +14,16 @@ import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlC
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_PLAYER_UUID;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_RESEARCH_KEY;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_SLIMEFUN_ID;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_WORLD_ID;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_WORLD_NAME;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.TABLE_NAME_BLOCK_WORLD;
 
 import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlCommonAdapter;
 import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlUtils;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.DataScope;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.DataType;
-import com.xzavier0722.mc.plugin.slimefun4.storage.common.RecordKey;
-import com.xzavier0722.mc.plugin.slimefun4.storage.common.RecordSet;
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.FieldKey;
+import java.util.Set;
 
 public class PostgreSqlAdapter extends SqlCommonAdapter<PostgreSqlConfig> {
     @Override
@@ -41,87 +41,42 @@ public class PostgreSqlAdapter extends SqlCommonAdapter<PostgreSqlConfig> {
                 blockDataTable = SqlUtils.mapTable(DataScope.BLOCK_DATA, config.tablePrefix());
                 blockInvTable = SqlUtils.mapTable(DataScope.BLOCK_INVENTORY, config.tablePrefix());
                 chunkDataTable = SqlUtils.mapTable(DataScope.CHUNK_DATA, config.tablePrefix());
+                worldTable = config.tablePrefix() + TABLE_NAME_BLOCK_WORLD;
                 createBlockStorageTables();
             }
         }
     }
 
     @Override
-    public void setData(RecordKey key, RecordSet item) {
-        var data = item.getAll();
-        var fields = data.keySet();
-        var fieldStr = SqlUtils.buildFieldStr(fields);
-        if (fieldStr.isEmpty()) {
-            throw new IllegalArgumentException("No data provided in RecordSet.");
-        }
-
-        var valStr = new StringBuilder();
-        var flag = false;
-        for (var field : fields) {
-            if (flag) {
-                valStr.append(", ");
-            } else {
-                flag = true;
-            }
-            valStr.append(SqlUtils.toSqlValStr(field, data.get(field)));
-        }
-
-        var updateFields = key.getFields();
+    protected String buildUpsertSql(String table, DataScope scope, Set<FieldKey> fields, Set<FieldKey> updateFields) {
+        var insertStr = "INSERT INTO "
+                + table
+                + " ("
+                + SqlUtils.buildFieldStr(fields).orElseThrow()
+                + ") VALUES ("
+                + SqlUtils.buildPlaceholderStr(fields.size())
+                + ")";
 
-        if (!updateFields.isEmpty() && key.getConditions().isEmpty()) {
-            throw new IllegalArgumentException("Condition is required for update statement!");
+        if (scope.getPrimaryKeys().length == 0) {
+            return insertStr + ";";
         }
 
-        var contrastStr = Arrays.stream(key.getScope().getPrimaryKeys())
-                .map(SqlUtils::mapField)
-                .collect(Collectors.joining(", "));
-
-        executeSql("INSERT INTO "
-                + mapTable(key.getScope())
-                + " ("
-                + fieldStr.get()
+        return insertStr
+                + " ON CONFLICT ("
+                + SqlUtils.buildPrimaryKeyStr(scope)
                 + ") "
-                + "VALUES ("
-                + valStr
-                + ")"
-                + (contrastStr.isEmpty()
-                        ? ""
-                        : " ON CONFLICT ("
-                                + contrastStr
-                                + ") "
-                                + (updateFields.isEmpty()
-                                        ? "DO NOTHING"
-                                        : "DO UPDATE SET "
-                                                + String.join(
-                                                        ", ",
-                                                        updateFields.stream()
-                                                                .map(field -> {
-                                                                    var val = item.get(field);
-                                                                    if (val == null) {
-                                                                        throw new IllegalArgumentException(
-                                                                                "Cannot find value in RecordSet for the specific"
-                                                                                        + " key: "
-                                                                                        + field);
-                                                                    }
-                                                                    return SqlUtils.buildKvStr(field, val);
-                                                                })
-                                                                .toList())))
-                + ";");
-    }
-
-    @Override
-    public List<RecordSet> getData(RecordKey key, boolean distinct) {
-        return executeQuery((distinct ? "SELECT DISTINCT " : "SELECT ")
-                + SqlUtils.buildFieldStr(key.getFields()).orElse("*")
-                + " FROM "
-                + mapTable(key.getScope())
-                + SqlUtils.buildConditionStr(key.getConditions())
-                + ";");
-    }
-
-    @Override
-    public void deleteData(RecordKey key) {
-        executeSql("DELETE FROM " + mapTable(key.getScope()) + SqlUtils.buildConditionStr(key.getConditions()) + ";");
+                + (updateFields.isEmpty()
+                        ? "DO NOTHING"
+                        : "DO UPDATE SET "
+                                + String.join(
+                                        ", ",
+                                        updateFields.stream()
+                                                .map(field -> {
+                                                    var fieldStr = SqlUtils.mapField(field);
+                                                    return fieldStr + " = EXCLUDED." + fieldStr;
+                                                })
+                                                .toList()))
+                + ";";
     }
 
     private void createProfileTables() {
@@ -136,6 +91,8 @@ public class PostgreSqlAdapter extends SqlCommonAdapter<PostgreSqlConfig> {
         createBlockDataTable();
         createBlockInvTable();
         createChunkDataTable();
+        createWorldTable();
+        createPositionColumns();
     }
 
     private void createProfileTable() {
@@ -284,6 +241,17 @@ public class PostgreSqlAdapter extends SqlCommonAdapter<PostgreSqlConfig> {
                 + ");");
     }
 
+    private void createWorldTable() {
+        executeSql("CREATE TABLE IF NOT EXISTS "
+                + worldTable
+                + "("
+                + FIELD_WORLD_ID
+                + " SERIAL PRIMARY KEY, "
+                + FIELD_WORLD_NAME
+                + " VARCHAR(64) UNIQUE NOT NULL"
+                + ");");
+    }
+
     private void createChunkDataTable() {
         executeSql("CREATE TABLE IF NOT EXISTS "
                 + chunkDataTable
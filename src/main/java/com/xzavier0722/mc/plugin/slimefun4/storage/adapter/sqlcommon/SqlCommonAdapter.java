@@ -1,19 +1,52 @@
 package com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon;
 
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_WORLD_ID;
+
 import city.norain.slimefun4.timings.entry.SQLEntry;
 import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.IDataSourceAdapter;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.DataScope;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.FieldKey;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.RecordKey;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.RecordSet;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.WriteOperation;
 import com.zaxxer.hikari.HikariDataSource;
+import io.github.bakedlibs.dough.collections.Pair;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 
 public abstract class SqlCommonAdapter<T extends ISqlCommonConfig> implements IDataSourceAdapter<T> {
+    /**
+     * The world id of rows whose key cannot be parsed, the ids of the world table start at 1.
+     */
+    private static final int MALFORMED_WORLD_ID = 0;
+
     protected HikariDataSource ds;
     protected String profileTable, researchTable, backpackTable, bpInvTable;
-    protected String blockRecordTable, blockDataTable, chunkDataTable, blockInvTable;
+    protected String blockRecordTable, blockDataTable, chunkDataTable, blockInvTable, worldTable;
     protected T config;
+    private final Map<StatementShape, String> statementCache = new ConcurrentHashMap<>();
+    private final Map<String, Integer> worldIds = new ConcurrentHashMap<>();
+
+    /**
+     * Whether every block record and chunk data row has its numeric position columns filled,
+     * world-wide conditions only use the world id once this is true.
+     */
+    private volatile boolean positionsMigrated = false;
 
     @Override
     public void prepare(T config) {
@@ -21,6 +54,341 @@ public abstract class SqlCommonAdapter<T extends ISqlCommonConfig> implements ID
         ds = config.createDataSource();
     }
 
+    @Override
+    public void setData(RecordKey key, RecordSet item) {
+        try (var conn = ds.getConnection()) {
+            setData(conn, key, item);
+        } catch (SQLException e) {
+            throw new IllegalStateException("An exception thrown while writing data of " + key.getScope(), e);
+        }
+    }
+
+    /**
+     * Writes the data with the given connection, so it can take part in an open transaction.
+     */
+    protected void setData(Connection conn, RecordKey key, RecordSet item) {
+        var data = item.getAll();
+        if (data.isEmpty()) {
+            throw new IllegalArgumentException("No data provided in RecordSet.");
+        }
+        checkUpdateFields(key, item);
+
+        item = withPositionFields(key.getScope(), item);
+        var shape = StatementShape.upsert(key.getScope(), item.getAll().keySet(), key.getFields());
+        executeUpdate(conn, getStatement(shape), toParams(shape.fields(), item));
+    }
+
+    @Override
+    public List<RecordSet> getData(RecordKey key, boolean distinct) {
+        key = resolveWorldCondition(key);
+        return executeQuery(getStatement(StatementShape.select(key, distinct)), key.getConditions());
+    }
+
+    /**
+     * Streams the result with a cursor, at most {@link #getStreamingFetchSize()} rows are held in memory by the driver.
+     * Auto-commit is disabled while reading, some drivers (like PostgreSQL) ignore the fetch size otherwise.
+     */
+    @Override
+    public void forEachData(RecordKey key, boolean distinct, Consumer<RecordSet> consumer) {
+        key = resolveWorldCondition(key);
+        var sql = getStatement(StatementShape.select(key, distinct));
+        var entry = new SQLEntry(sql);
+        Slimefun.getSQLProfiler().recordEntry(entry);
+
+        try (var conn = ds.getConnection()) {
+            var autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                SqlUtils.execQuery(conn, sql, key.getConditions(), getStreamingFetchSize(), consumer);
+                conn.commit();
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("An exception thrown while executing sql: " + sql, e);
+        } finally {
+            Slimefun.getSQLProfiler().finishEntry(entry);
+        }
+    }
+
+    /**
+     * The amount of rows fetched at once by {@link #forEachData(RecordKey, boolean, Consumer)}.
+     */
+    protected int getStreamingFetchSize() {
+        return 1000;
+    }
+
+    /**
+     * Fetches the records of all given chunks with a single query.
+     * Block data and inventories are joined with their block record, since they are only keyed by location.
+     */
+    @Override
+    public List<RecordSet> getDataInChunks(DataScope scope, Set<FieldKey> fields, List<String> chunkKeys) {
+        if (chunkKeys.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        var joined =
+                switch (scope) {
+                    case BLOCK_DATA, BLOCK_INVENTORY -> true;
+                    case BLOCK_RECORD, CHUNK_DATA -> false;
+                    default -> throw new IllegalArgumentException("Scope is not stored by chunk: " + scope);
+                };
+
+        var selected = fields.isEmpty() ? EnumSet.noneOf(FieldKey.class) : EnumSet.copyOf(fields);
+        selected.add(joined ? FieldKey.LOCATION : FieldKey.CHUNK);
+
+        var location = SqlUtils.mapField(FieldKey.LOCATION);
+        var sql = "SELECT "
+                + String.join(
+                        ", ",
+                        selected.stream()
+                                .map(field -> {
+                                    var fieldStr = SqlUtils.mapField(field);
+                                    return "t." + fieldStr + " AS " + fieldStr;
+                                })
+                                .toList())
+                + " FROM "
+                + mapTable(scope)
+                + " t"
+                + (joined
+                        ? " INNER JOIN " + blockRecordTable + " r ON t." + location + " = r." + location + " WHERE r."
+                        : " WHERE t.")
+                + SqlUtils.mapField(FieldKey.CHUNK)
+                + " IN ("
+                + SqlUtils.buildPlaceholderStr(chunkKeys.size())
+                + ");";
+
+        var params = new ArrayList<Pair<FieldKey, String>>(chunkKeys.size());
+        for (var cKey : chunkKeys) {
+            params.add(new Pair<>(FieldKey.CHUNK, cKey));
+        }
+
+        return executeQuery(sql, params);
+    }
+
+    @Override
+    public void deleteData(RecordKey key) {
+        key = resolveWorldCondition(key);
+        executeUpdate(getStatement(StatementShape.delete(key)), key.getConditions());
+    }
+
+    /**
+     * Deletes the data with the given connection, so it can take part in an open transaction.
+     */
+    protected void deleteData(Connection conn, RecordKey key) {
+        key = resolveWorldCondition(key);
+        executeUpdate(conn, getStatement(StatementShape.delete(key)), key.getConditions());
+    }
+
+    /**
+     * Executes the writes in a single transaction.
+     * Consecutive writes sharing the same statement are sent as one JDBC batch,
+     * writes that cannot be expressed as a native upsert fall back to {@link #setData(Connection, RecordKey, RecordSet)}
+     * within the same transaction.
+     */
+    @Override
+    public synchronized void executeBatch(List<WriteOperation> operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+
+        // Resolve world ids before the transaction is opened, they may have to be inserted first
+        operations = operations.stream()
+                .map(operation -> operation.isDelete()
+                        ? new WriteOperation(resolveWorldCondition(operation.key()), null)
+                        : new WriteOperation(
+                                operation.key(),
+                                withPositionFields(operation.key().getScope(), operation.data())))
+                .toList();
+
+        var entry = new SQLEntry("BATCH " + operations.size());
+        Slimefun.getSQLProfiler().recordEntry(entry);
+
+        try (var conn = ds.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                executeBatchInternal(conn, operations);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(
+                    "An exception thrown while executing batch of " + operations.size() + " writes", e);
+        } finally {
+            Slimefun.getSQLProfiler().finishEntry(entry);
+        }
+    }
+
+    private void executeBatchInternal(Connection conn, List<WriteOperation> operations) throws SQLException {
+        var statements = new HashMap<String, PreparedStatement>();
+        PreparedStatement pending = null;
+
+        try {
+            for (var operation : operations) {
+                var key = operation.key();
+                StatementShape shape;
+                if (operation.isDelete()) {
+                    shape = key.getConditions().isEmpty() ? null : StatementShape.delete(key);
+                } else {
+                    shape = isBatchableUpsert(operation)
+                            ? StatementShape.upsert(
+                                    key.getScope(), operation.data().getAll().keySet(), key.getFields())
+                            : null;
+                }
+
+                if (shape == null) {
+                    // Keep the write order: everything before this write has to be executed first.
+                    executeStatementBatch(pending);
+                    pending = null;
+
+                    if (operation.isDelete()) {
+                        deleteData(conn, key);
+                    } else {
+                        setData(conn, key, operation.data());
+                    }
+                    continue;
+                }
+
+                var sql = getStatement(shape);
+                var stmt = statements.get(sql);
+                if (stmt == null) {
+                    stmt = conn.prepareStatement(sql);
+                    statements.put(sql, stmt);
+                }
+
+                if (stmt != pending) {
+                    executeStatementBatch(pending);
+                    pending = stmt;
+                }
+
+                SqlUtils.bindValues(
+                        stmt, operation.isDelete() ? key.getConditions() : toParams(shape.fields(), operation.data()));
+                stmt.addBatch();
+            }
+
+            executeStatementBatch(pending);
+        } finally {
+            for (var stmt : statements.values()) {
+                stmt.close();
+            }
+        }
+    }
+
+    private boolean isBatchableUpsert(WriteOperation operation) {
+        var key = operation.key();
+        var data = operation.data();
+        var fields = data.getAll().keySet();
+        var primaryKeys = key.getScope().getPrimaryKeys();
+        if (primaryKeys.length == 0 || fields.isEmpty()) {
+            return false;
+        }
+
+        var primaryKeySet = EnumSet.noneOf(FieldKey.class);
+        Collections.addAll(primaryKeySet, primaryKeys);
+        if (!fields.containsAll(primaryKeySet)) {
+            return false;
+        }
+
+        var updateFields = key.getFields();
+        if (!updateFields.isEmpty()) {
+            // Only an update addressing exactly the row being written is equivalent to an upsert
+            var conditions = key.getConditions();
+            if (conditions.size() != primaryKeys.length) {
+                return false;
+            }
+
+            for (var condition : conditions) {
+                var field = condition.getFirstValue();
+                if (!primaryKeySet.contains(field)
+                        || !condition.getSecondValue().equals(data.get(field))) {
+                    return false;
+                }
+            }
+
+            for (var field : updateFields) {
+                if (primaryKeySet.contains(field) || !fields.contains(field)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private void executeStatementBatch(PreparedStatement stmt) throws SQLException {
+        if (stmt != null) {
+            stmt.executeBatch();
+        }
+    }
+
+    protected String getStatement(StatementShape shape) {
+        return statementCache.computeIfAbsent(shape, this::buildStatement);
+    }
+
+    private String buildStatement(StatementShape shape) {
+        var table = mapTable(shape.scope());
+        return switch (shape.type()) {
+            case SELECT, SELECT_DISTINCT -> (shape.type() == StatementShape.Type.SELECT_DISTINCT
+                            ? "SELECT DISTINCT "
+                            : "SELECT ")
+                    + SqlUtils.buildFieldStr(shape.fields()).orElse("*")
+                    + " FROM "
+                    + table
+                    + SqlUtils.buildConditionStr(shape)
+                    + ";";
+            case UPDATE -> "UPDATE "
+                    + table
+                    + " SET "
+                    + String.join(
+                            ", ",
+                            shape.updateFields().stream()
+                                    .map(field -> SqlUtils.mapField(field) + " = ?")
+                                    .toList())
+                    + SqlUtils.buildConditionStr(shape)
+                    + ";";
+            case UPSERT -> buildUpsertSql(table, shape.scope(), shape.fields(), shape.updateFields());
+            case DELETE -> "DELETE FROM " + table + SqlUtils.buildConditionStr(shape) + ";";
+        };
+    }
+
+    protected static List<Pair<FieldKey, String>> toParams(Set<FieldKey> fields, RecordSet item) {
+        var re = new ArrayList<Pair<FieldKey, String>>(fields.size());
+        for (var field : fields) {
+            re.add(new Pair<>(field, item.get(field)));
+        }
+        return re;
+    }
+
+    protected static void checkUpdateFields(RecordKey key, RecordSet item) {
+        var updateFields = key.getFields();
+        if (updateFields.isEmpty()) {
+            return;
+        }
+
+        if (key.getConditions().isEmpty()) {
+            throw new IllegalArgumentException("Condition is required for update statement!");
+        }
+
+        for (var field : updateFields) {
+            if (item.get(field) == null) {
+                throw new IllegalArgumentException("Cannot find value in RecordSet for the specific key: " + field);
+            }
+        }
+    }
+
+    /**
+     * Builds a parameterised upsert statement for the given fields.
+     * The parameters are bound in the iteration order of {@code fields}.
+     * When {@code updateFields} is empty, an existing row must be left untouched.
+     */
+    protected abstract String buildUpsertSql(
+            String table, DataScope scope, Set<FieldKey> fields, Set<FieldKey> updateFields);
+
     protected void executeSql(String sql) {
         var entry = new SQLEntry(sql);
         Slimefun.getSQLProfiler().recordEntry(entry);
@@ -33,6 +401,40 @@ public abstract class SqlCommonAdapter<T extends ISqlCommonConfig> implements ID
         }
     }
 
+    protected int executeUpdate(String sql, List<Pair<FieldKey, String>> params) {
+        try (var conn = ds.getConnection()) {
+            return executeUpdate(conn, sql, params);
+        } catch (SQLException e) {
+            throw new IllegalStateException("An exception thrown while executing sql: " + sql, e);
+        }
+    }
+
+    protected int executeUpdate(Connection conn, String sql, List<Pair<FieldKey, String>> params) {
+        var entry = new SQLEntry(sql);
+        Slimefun.getSQLProfiler().recordEntry(entry);
+
+        try {
+            return SqlUtils.execUpdate(conn, sql, params);
+        } catch (SQLException e) {
+            throw new IllegalStateException("An exception thrown while executing sql: " + sql, e);
+        } finally {
+            Slimefun.getSQLProfiler().finishEntry(entry);
+        }
+    }
+
+    protected List<RecordSet> executeQuery(String sql, List<Pair<FieldKey, String>> params) {
+        var entry = new SQLEntry(sql);
+        Slimefun.getSQLProfiler().recordEntry(entry);
+
+        try (var conn = ds.getConnection()) {
+            return SqlUtils.execQuery(conn, sql, params);
+        } catch (SQLException e) {
+            throw new IllegalStateException("An exception thrown while executing sql: " + sql, e);
+        } finally {
+            Slimefun.getSQLProfiler().finishEntry(entry);
+        }
+    }
+
     protected List<RecordSet> executeQuery(String sql) {
         var entry = new SQLEntry(sql);
         Slimefun.getSQLProfiler().recordEntry(entry);
@@ -46,6 +448,375 @@ public abstract class SqlCommonAdapter<T extends ISqlCommonConfig> implements ID
         }
     }
 
+    /**
+     * Adds the numeric position columns of schema v2 to the columns of the block storage tables.
+     * <p>
+     * Every position is stored as the id of its world in the world table and its integer coordinates,
+     * the string keys stay the primary keys. Rows written before are converted by the
+     * {@link com.xzavier0722.mc.plugin.slimefun4.storage.migrator.BlockPositionMigrator}.
+     * <p>
+     * Only the block record and chunk data tables get these columns. The block data and inventory tables
+     * keep referencing their block record by the location key and are not converted.
+     */
+    protected void createPositionColumns() {
+        try {
+            for (var field : List.of(
+                    FieldKey.WORLD_ID,
+                    FieldKey.POS_X,
+                    FieldKey.POS_Y,
+                    FieldKey.POS_Z,
+                    FieldKey.CHUNK_X,
+                    FieldKey.CHUNK_Z)) {
+                addColumnIfAbsent(blockRecordTable, SqlUtils.mapField(field));
+            }
+
+            for (var field : List.of(FieldKey.WORLD_ID, FieldKey.CHUNK_X, FieldKey.CHUNK_Z)) {
+                addColumnIfAbsent(chunkDataTable, SqlUtils.mapField(field));
+            }
+
+            createIndexIfAbsent(
+                    blockRecordTable,
+                    "index_" + blockRecordTable + "_pos",
+                    FieldKey.WORLD_ID,
+                    FieldKey.POS_X,
+                    FieldKey.POS_Y,
+                    FieldKey.POS_Z);
+            createIndexIfAbsent(
+                    blockRecordTable,
+                    "index_" + blockRecordTable + "_chunk_pos",
+                    FieldKey.WORLD_ID,
+                    FieldKey.CHUNK_X,
+                    FieldKey.CHUNK_Z);
+            createIndexIfAbsent(
+                    chunkDataTable,
+                    "index_" + chunkDataTable + "_chunk_pos",
+                    FieldKey.WORLD_ID,
+                    FieldKey.CHUNK_X,
+                    FieldKey.CHUNK_Z);
+        } catch (SQLException e) {
+            throw new IllegalStateException("An exception thrown while upgrading the block storage tables", e);
+        }
+
+        positionsMigrated = !hasUnmigratedPositions();
+    }
+
+    private void addColumnIfAbsent(String table, String column) throws SQLException {
+        try (var conn = ds.getConnection()) {
+            var meta = conn.getMetaData();
+            try (var result =
+                    meta.getColumns(conn.getCatalog(), null, toMetaName(meta, table), toMetaName(meta, column))) {
+                if (result.next()) {
+                    return;
+                }
+            }
+        }
+
+        executeSql("ALTER TABLE " + table + " ADD COLUMN " + column + " INTEGER NULL;");
+    }
+
+    private void createIndexIfAbsent(String table, String index, FieldKey... fields) throws SQLException {
+        try (var conn = ds.getConnection()) {
+            var meta = conn.getMetaData();
+            try (var result = meta.getIndexInfo(conn.getCatalog(), null, toMetaName(meta, table), false, true)) {
+                while (result.next()) {
+                    if (index.equalsIgnoreCase(result.getString("INDEX_NAME"))) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        executeSql("CREATE INDEX "
+                + index
+                + " ON "
+                + table
+                + " ("
+                + String.join(
+                        ", ", List.of(fields).stream().map(SqlUtils::mapField).toList())
+                + ");");
+    }
+
+    private static String toMetaName(DatabaseMetaData meta, String name) throws SQLException {
+        if (meta.storesLowerCaseIdentifiers()) {
+            return name.toLowerCase(Locale.ROOT);
+        }
+        return meta.storesUpperCaseIdentifiers() ? name.toUpperCase(Locale.ROOT) : name;
+    }
+
+    /**
+     * Whether any block record or chunk data row is still missing its numeric position columns.
+     */
+    public boolean hasUnmigratedPositions() {
+        for (var table : List.of(blockRecordTable, chunkDataTable)) {
+            if (!executeQuery("SELECT 1 FROM " + table + " WHERE " + FIELD_WORLD_ID + " IS NULL LIMIT 1;")
+                    .isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Switches world-wide conditions to the world id if every row has been migrated.
+     *
+     * @return whether every row has been migrated
+     */
+    public boolean completePositionMigration() {
+        positionsMigrated = !hasUnmigratedPositions();
+        return positionsMigrated;
+    }
+
+    /**
+     * Fills the numeric position columns of the next rows which are missing them.
+     * <p>
+     * Rows are visited in the order of their key, starting after the given cursor.
+     * Rows with a malformed key are logged and marked with an invalid world id, so they are not visited again.
+     *
+     * @param scope     {@link DataScope#BLOCK_RECORD} or {@link DataScope#CHUNK_DATA}
+     * @param cursor    the last key returned by the previous call, or an empty string
+     * @param batchSize the maximum amount of keys to convert
+     * @return the visited keys in order, an empty list if there are no rows left
+     */
+    public List<String> migratePositions(DataScope scope, String cursor, int batchSize) {
+        var keyField =
+                switch (scope) {
+                    case BLOCK_RECORD -> FieldKey.LOCATION;
+                    case CHUNK_DATA -> FieldKey.CHUNK;
+                    default -> throw new IllegalArgumentException("Scope has no position: " + scope);
+                };
+        var table = mapTable(scope);
+        var keyColumn = SqlUtils.mapField(keyField);
+
+        var keys = executeQuery(
+                        "SELECT DISTINCT "
+                                + keyColumn
+                                + " FROM "
+                                + table
+                                + " WHERE "
+                                + FIELD_WORLD_ID
+                                + " IS NULL AND "
+                                + keyColumn
+                                + " > ? ORDER BY "
+                                + keyColumn
+                                + " LIMIT "
+                                + batchSize
+                                + ";",
+                        List.of(new Pair<>(keyField, cursor)))
+                .stream()
+                .map(record -> record.get(keyField))
+                .toList();
+
+        String sql = null;
+        var updates = new ArrayList<List<Pair<FieldKey, String>>>(keys.size());
+        var malformed = new ArrayList<List<Pair<FieldKey, String>>>();
+        for (var key : keys) {
+            var params = getPositionParams(key, scope == DataScope.CHUNK_DATA);
+            if (params == null) {
+                Slimefun.logger().log(Level.WARNING, "无法解析 {0} 数据的位置, 已跳过: {1}", new Object[] {scope, key});
+                malformed.add(List.of(
+                        new Pair<>(FieldKey.WORLD_ID, String.valueOf(MALFORMED_WORLD_ID)), new Pair<>(keyField, key)));
+                continue;
+            }
+
+            if (sql == null) {
+                sql = "UPDATE "
+                        + table
+                        + " SET "
+                        + String.join(
+                                ", ",
+                                params.stream()
+                                        .map(param -> SqlUtils.mapField(param.getFirstValue()) + " = ?")
+                                        .toList())
+                        + " WHERE "
+                        + keyColumn
+                        + " = ?;";
+            }
+
+            params.add(new Pair<>(keyField, key));
+            updates.add(params);
+        }
+
+        var batches = new LinkedHashMap<String, List<List<Pair<FieldKey, String>>>>();
+        if (sql != null) {
+            batches.put(sql, updates);
+        }
+
+        if (!malformed.isEmpty()) {
+            batches.put("UPDATE " + table + " SET " + FIELD_WORLD_ID + " = ? WHERE " + keyColumn + " = ?;", malformed);
+        }
+
+        if (!batches.isEmpty()) {
+            executeUpdateBatches(batches);
+        }
+        return keys;
+    }
+
+    /**
+     * Executes every statement with all of its parameter lists as JDBC batches in a single transaction,
+     * so either all of the updates are applied or none of them.
+     */
+    protected void executeUpdateBatches(Map<String, List<List<Pair<FieldKey, String>>>> batches) {
+        var entry = new SQLEntry("BATCH " + String.join(" ", batches.keySet()));
+        Slimefun.getSQLProfiler().recordEntry(entry);
+
+        try (var conn = ds.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (var batch : batches.entrySet()) {
+                    try (var stmt = conn.prepareStatement(batch.getKey())) {
+                        for (var params : batch.getValue()) {
+                            SqlUtils.bindValues(stmt, params);
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(
+                    "An exception thrown while executing sql: " + String.join(" ", batches.keySet()), e);
+        } finally {
+            Slimefun.getSQLProfiler().finishEntry(entry);
+        }
+    }
+
+    /**
+     * Adds the numeric position columns to a written block record or chunk data row.
+     */
+    protected RecordSet withPositionFields(DataScope scope, RecordSet item) {
+        var keyField =
+                switch (scope) {
+                    case BLOCK_RECORD -> FieldKey.LOCATION;
+                    case CHUNK_DATA -> FieldKey.CHUNK;
+                    default -> null;
+                };
+
+        var data = item.getAll();
+        if (keyField == null || data.containsKey(FieldKey.WORLD_ID) || !data.containsKey(keyField)) {
+            return item;
+        }
+
+        var params = getPositionParams(data.get(keyField), scope == DataScope.CHUNK_DATA);
+        if (params == null) {
+            params = List.of(new Pair<>(FieldKey.WORLD_ID, String.valueOf(MALFORMED_WORLD_ID)));
+        }
+
+        var re = new RecordSet();
+        data.forEach(re::put);
+        params.forEach(param -> re.put(param.getFirstValue(), param.getSecondValue()));
+        re.readonly();
+        return re;
+    }
+
+    /**
+     * Parses a location key ({@code world;x:y:z}) or a chunk key ({@code world;x:z}) into its position columns.
+     *
+     * @return the position columns, or null if the key is malformed
+     */
+    private List<Pair<FieldKey, String>> getPositionParams(String key, boolean isChunk) {
+        var split = key.lastIndexOf(';');
+        if (split <= 0) {
+            return null;
+        }
+
+        var coords = key.substring(split + 1).split(":");
+        try {
+            var re = new ArrayList<Pair<FieldKey, String>>();
+            if (isChunk) {
+                if (coords.length != 2) {
+                    return null;
+                }
+                re.add(new Pair<>(FieldKey.CHUNK_X, String.valueOf(Integer.parseInt(coords[0]))));
+                re.add(new Pair<>(FieldKey.CHUNK_Z, String.valueOf(Integer.parseInt(coords[1]))));
+            } else {
+                if (coords.length != 3) {
+                    return null;
+                }
+                var x = Integer.parseInt(coords[0]);
+                var z = Integer.parseInt(coords[2]);
+                re.add(new Pair<>(FieldKey.POS_X, String.valueOf(x)));
+                re.add(new Pair<>(FieldKey.POS_Y, String.valueOf(Integer.parseInt(coords[1]))));
+                re.add(new Pair<>(FieldKey.POS_Z, String.valueOf(z)));
+                re.add(new Pair<>(FieldKey.CHUNK_X, String.valueOf(x >> 4)));
+                re.add(new Pair<>(FieldKey.CHUNK_Z, String.valueOf(z >> 4)));
+            }
+            re.add(0, new Pair<>(FieldKey.WORLD_ID, String.valueOf(getWorldId(key.substring(0, split), true))));
+            return re;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replaces a {@link FieldKey#WORLD} condition by a condition the tables can answer:
+     * the world id once every row has been migrated, a prefix match on the string key before.
+     * The world name is escaped in the prefix, so wildcards in it only match themselves.
+     */
+    protected RecordKey resolveWorldCondition(RecordKey key) {
+        var conditions = key.getConditions();
+        if (conditions.stream().noneMatch(condition -> condition.getFirstValue() == FieldKey.WORLD)) {
+            return key;
+        }
+
+        var scope = key.getScope();
+        var hasPosition = scope == DataScope.BLOCK_RECORD || scope == DataScope.CHUNK_DATA;
+        var re = new RecordKey(scope, key.getFields());
+        for (var condition : conditions) {
+            if (condition.getFirstValue() != FieldKey.WORLD) {
+                re.addCondition(condition.getFirstValue(), condition.getSecondValue());
+            } else if (hasPosition && positionsMigrated) {
+                re.addCondition(FieldKey.WORLD_ID, String.valueOf(getWorldId(condition.getSecondValue(), false)));
+            } else {
+                re.addCondition(
+                        scope == DataScope.CHUNK_DATA ? FieldKey.CHUNK : FieldKey.LOCATION,
+                        SqlUtils.escapeLikeLiteral(condition.getSecondValue()) + ";%");
+            }
+        }
+        return re;
+    }
+
+    /**
+     * Gets the id of the given world from the world table.
+     *
+     * @param create whether to insert the world if it has no id yet
+     * @return the id of the world, or -1 if it has no id
+     */
+    protected int getWorldId(String worldName, boolean create) {
+        var id = worldIds.get(worldName);
+        if (id != null) {
+            return id;
+        }
+
+        var sql = "SELECT " + FIELD_WORLD_ID + " FROM " + worldTable + " WHERE " + SqlUtils.mapField(FieldKey.WORLD)
+                + " = ?;";
+        var params = List.of(new Pair<>(FieldKey.WORLD, worldName));
+        var result = executeQuery(sql, params);
+        if (result.isEmpty() && create) {
+            try {
+                executeUpdate(
+                        "INSERT INTO " + worldTable + " (" + SqlUtils.mapField(FieldKey.WORLD) + ") VALUES (?);",
+                        params);
+            } catch (IllegalStateException e) {
+                // The world has been inserted by another server or thread in the meantime
+            }
+            result = executeQuery(sql, params);
+        }
+
+        if (result.isEmpty()) {
+            return -1;
+        }
+
+        id = result.get(0).getInt(FieldKey.WORLD_ID);
+        worldIds.put(worldName, id);
+        return id;
+    }
+
     protected String mapTable(DataScope scope) {
         return switch (scope) {
             case PLAYER_PROFILE -> profileTable;
@@ -64,6 +835,7 @@ public abstract class SqlCommonAdapter<T extends ISqlCommonConfig> implements ID
     public void shutdown() {
         ds.close();
         ds = null;
+        statementCache.clear();
         profileTable = null;
         researchTable = null;
         backpackTable = null;
@@ -72,5 +844,8 @@ public abstract class SqlCommonAdapter<T extends ISqlCommonConfig> implements ID
         blockRecordTable = null;
         chunkDataTable = null;
         blockInvTable = null;
+        worldTable = null;
+        worldIds.clear();
+        positionsMigrated = false;
     }
 }
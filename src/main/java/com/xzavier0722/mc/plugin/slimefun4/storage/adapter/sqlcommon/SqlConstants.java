@@ -9,6 +9,7 @@ public interface SqlConstants {
     String TABLE_NAME_BLOCK_DATA = "block_data";
     String TABLE_NAME_CHUNK_DATA = "chunk_data";
     String TABLE_NAME_BLOCK_INVENTORY = "block_inventory";
+    String TABLE_NAME_BLOCK_WORLD = "block_world";
 
     String FIELD_PLAYER_UUID = "p_uuid";
     String FIELD_PLAYER_NAME = "p_name";
@@ -27,6 +28,14 @@ public interface SqlConstants {
     String FIELD_CHUNK = "chunk";
     String FIELD_SLIMEFUN_ID = "sf_id";
 
+    String FIELD_WORLD_ID = "w_id";
+    String FIELD_WORLD_NAME = "w_name";
+    String FIELD_POS_X = "pos_x";
+    String FIELD_POS_Y = "pos_y";
+    String FIELD_POS_Z = "pos_z";
+    String FIELD_CHUNK_X = "chunk_x";
+    String FIELD_CHUNK_Z = "chunk_z";
+
     String FIELD_DATA_KEY = "data_key";
     String FIELD_DATA_VALUE = "data_val";
 }
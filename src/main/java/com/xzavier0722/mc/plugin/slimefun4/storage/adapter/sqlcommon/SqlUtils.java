@@ -5,6 +5,8 @@ import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlC
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_BACKPACK_NUM;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_BACKPACK_SIZE;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_CHUNK;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_CHUNK_X;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_CHUNK_Z;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_DATA_KEY;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_DATA_VALUE;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_INVENTORY_ITEM;
@@ -12,8 +14,13 @@ import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlC
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_LOCATION;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_PLAYER_NAME;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_PLAYER_UUID;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_POS_X;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_POS_Y;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_POS_Z;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_RESEARCH_KEY;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_SLIMEFUN_ID;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_WORLD_ID;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_WORLD_NAME;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.TABLE_NAME_BACKPACK;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.TABLE_NAME_BACKPACK_INVENTORY;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.TABLE_NAME_BLOCK_DATA;
@@ -29,17 +36,27 @@ import com.xzavier0722.mc.plugin.slimefun4.storage.common.FieldMapper;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.RecordSet;
 import io.github.bakedlibs.dough.collections.Pair;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public class SqlUtils {
 
+    /**
+     * The escape character of LIKE conditions.
+     * A backslash would have to be written differently for each of the supported databases.
+     */
+    private static final char LIKE_ESCAPE = '!';
+
     private static final FieldMapper<String> mapper;
 
     static {
@@ -56,6 +73,13 @@ public class SqlUtils {
         fieldMap.put(FieldKey.LOCATION, FIELD_LOCATION);
         fieldMap.put(FieldKey.CHUNK, FIELD_CHUNK);
         fieldMap.put(FieldKey.SLIMEFUN_ID, FIELD_SLIMEFUN_ID);
+        fieldMap.put(FieldKey.WORLD, FIELD_WORLD_NAME);
+        fieldMap.put(FieldKey.WORLD_ID, FIELD_WORLD_ID);
+        fieldMap.put(FieldKey.POS_X, FIELD_POS_X);
+        fieldMap.put(FieldKey.POS_Y, FIELD_POS_Y);
+        fieldMap.put(FieldKey.POS_Z, FIELD_POS_Z);
+        fieldMap.put(FieldKey.CHUNK_X, FIELD_CHUNK_X);
+        fieldMap.put(FieldKey.CHUNK_Z, FIELD_CHUNK_Z);
         fieldMap.put(FieldKey.DATA_KEY, FIELD_DATA_KEY);
         fieldMap.put(FieldKey.DATA_VALUE, FIELD_DATA_VALUE);
         mapper = new FieldMapper<>(fieldMap);
@@ -98,47 +122,75 @@ public class SqlUtils {
                 String.join(", ", fields.stream().map(SqlUtils::mapField).toList()));
     }
 
-    public static String buildConditionStr(List<Pair<FieldKey, String>> conditions) {
-        if (conditions.isEmpty()) {
-            return "";
-        }
+    public static String buildPlaceholderStr(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
 
-        return " WHERE "
-                + String.join(
-                        " AND ",
-                        conditions.stream()
-                                .map(condition -> buildKvStr(condition.getFirstValue(), condition.getSecondValue()))
-                                .toList());
+    public static String buildPrimaryKeyStr(DataScope scope) {
+        return String.join(
+                ", ",
+                Arrays.stream(scope.getPrimaryKeys()).map(SqlUtils::mapField).toList());
     }
 
-    public static String buildKvStr(FieldKey key, String val) {
-        return mapField(key) + (isWildcardsMatching(val) ? " LIKE " : "=") + toSqlValStr(key, val);
+    public static String buildConditionStr(StatementShape shape) {
+        var conditionFields = shape.conditionFields();
+        if (conditionFields.isEmpty()) {
+            return "";
+        }
+
+        var re = new StringBuilder(" WHERE ");
+        for (var i = 0; i < conditionFields.size(); i++) {
+            if (i > 0) {
+                re.append(" AND ");
+            }
+            re.append(mapField(conditionFields.get(i)))
+                    .append(shape.isWildcardCondition(i) ? " LIKE ? ESCAPE '" + LIKE_ESCAPE + "'" : " = ?");
+        }
+        return re.toString();
     }
 
-    public static String toSqlValStr(FieldKey key, String val) {
-        return key.isNumType() ? val : "'" + val + "'";
+    public static void bindValue(PreparedStatement stmt, int index, FieldKey key, String val) throws SQLException {
+        if (isIntColumn(key)) {
+            stmt.setInt(index, Integer.parseInt(val));
+        } else {
+            stmt.setString(index, val);
+        }
     }
 
     public static List<RecordSet> execQuery(Connection conn, String sql) throws SQLException {
         try (var stmt = conn.createStatement()) {
             try (var result = stmt.executeQuery(sql)) {
-                List<RecordSet> re = null;
-                ResultSetMetaData metaData = null;
-                int columnCount = 0;
+                return readResult(result);
+            }
+        }
+    }
+
+    public static List<RecordSet> execQuery(Connection conn, String sql, List<Pair<FieldKey, String>> params)
+            throws SQLException {
+        try (var stmt = conn.prepareStatement(sql)) {
+            bindValues(stmt, params);
+            try (var result = stmt.executeQuery()) {
+                return readResult(result);
+            }
+        }
+    }
+
+    public static void execQuery(
+            Connection conn,
+            String sql,
+            List<Pair<FieldKey, String>> params,
+            int fetchSize,
+            Consumer<RecordSet> consumer)
+            throws SQLException {
+        try (var stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(fetchSize);
+            bindValues(stmt, params);
+            try (var result = stmt.executeQuery()) {
+                var metaData = result.getMetaData();
+                var columnCount = metaData.getColumnCount();
                 while (result.next()) {
-                    if (re == null) {
-                        re = new ArrayList<>();
-                        metaData = result.getMetaData();
-                        columnCount = metaData.getColumnCount();
-                    }
-                    var row = new RecordSet();
-                    for (var i = 1; i <= columnCount; i++) {
-                        row.put(SqlUtils.mapField(metaData.getColumnName(i)), result.getString(i));
-                    }
-                    row.readonly();
-                    re.add(row);
+                    consumer.accept(readRow(result, metaData, columnCount));
                 }
-                return re == null ? Collections.emptyList() : Collections.unmodifiableList(re);
             }
         }
     }
@@ -155,7 +207,68 @@ public class SqlUtils {
         }
     }
 
-    private static boolean isWildcardsMatching(String val) {
+    public static int execUpdate(Connection conn, String sql, List<Pair<FieldKey, String>> params) throws SQLException {
+        try (var stmt = conn.prepareStatement(sql)) {
+            bindValues(stmt, params);
+            return stmt.executeUpdate();
+        }
+    }
+
+    public static void bindValues(PreparedStatement stmt, List<Pair<FieldKey, String>> params) throws SQLException {
+        var index = 1;
+        for (var param : params) {
+            bindValue(stmt, index++, param.getFirstValue(), param.getSecondValue());
+        }
+    }
+
+    private static List<RecordSet> readResult(ResultSet result) throws SQLException {
+        List<RecordSet> re = null;
+        ResultSetMetaData metaData = null;
+        int columnCount = 0;
+        while (result.next()) {
+            if (re == null) {
+                re = new ArrayList<>();
+                metaData = result.getMetaData();
+                columnCount = metaData.getColumnCount();
+            }
+            re.add(readRow(result, metaData, columnCount));
+        }
+        return re == null ? Collections.emptyList() : Collections.unmodifiableList(re);
+    }
+
+    private static RecordSet readRow(ResultSet result, ResultSetMetaData metaData, int columnCount)
+            throws SQLException {
+        var row = new RecordSet();
+        for (var i = 1; i <= columnCount; i++) {
+            row.put(SqlUtils.mapField(metaData.getColumnName(i)), result.getString(i));
+        }
+        row.readonly();
+        return row;
+    }
+
+    /**
+     * Escapes the wildcards of a literal value, so it can be used as part of a LIKE pattern.
+     *
+     * @param val the literal value
+     * @return the value, matching only itself in a LIKE condition
+     */
+    public static String escapeLikeLiteral(String val) {
+        var re = new StringBuilder(val.length());
+        for (var i = 0; i < val.length(); i++) {
+            var c = val.charAt(i);
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                re.append(LIKE_ESCAPE);
+            }
+            re.append(c);
+        }
+        return re.toString();
+    }
+
+    static boolean isWildcardsMatching(String val) {
         return val.endsWith("%") || val.contains("%");
     }
+
+    private static boolean isIntColumn(FieldKey key) {
+        return key.isNumType() || key == FieldKey.INVENTORY_SLOT;
+    }
 }
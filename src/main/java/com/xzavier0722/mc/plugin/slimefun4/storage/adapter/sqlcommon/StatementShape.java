@@ -0,0 +1,77 @@
+package com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon;
+
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.DataScope;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.FieldKey;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.RecordKey;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The shape of a parameterised statement: everything that affects the SQL text, but none of the values.
+ * Statements of the same shape share the same SQL text, so the text only has to be generated once
+ * and the database is able to reuse its prepared plan.
+ * <p>
+ * Field sets are kept as {@link EnumSet}s, parameters are bound in their iteration order.
+ */
+public record StatementShape(
+        Type type,
+        DataScope scope,
+        Set<FieldKey> fields,
+        Set<FieldKey> updateFields,
+        List<FieldKey> conditionFields,
+        int wildcardMask) {
+
+    public enum Type {
+        SELECT,
+        SELECT_DISTINCT,
+        UPDATE,
+        UPSERT,
+        DELETE
+    }
+
+    public static StatementShape select(RecordKey key, boolean distinct) {
+        return of(distinct ? Type.SELECT_DISTINCT : Type.SELECT, key, key.getFields(), Collections.emptySet());
+    }
+
+    public static StatementShape update(RecordKey key) {
+        return of(Type.UPDATE, key, Collections.emptySet(), key.getFields());
+    }
+
+    public static StatementShape delete(RecordKey key) {
+        return of(Type.DELETE, key, Collections.emptySet(), Collections.emptySet());
+    }
+
+    public static StatementShape upsert(
+            DataScope scope, Collection<FieldKey> fields, Collection<FieldKey> updateFields) {
+        return new StatementShape(
+                Type.UPSERT, scope, toEnumSet(fields), toEnumSet(updateFields), Collections.emptyList(), 0);
+    }
+
+    private static StatementShape of(
+            Type type, RecordKey key, Collection<FieldKey> fields, Collection<FieldKey> updateFields) {
+        var conditions = key.getConditions();
+        var conditionFields = new ArrayList<FieldKey>(conditions.size());
+        var wildcardMask = 0;
+        for (var condition : conditions) {
+            if (SqlUtils.isWildcardsMatching(condition.getSecondValue())) {
+                wildcardMask |= 1 << conditionFields.size();
+            }
+            conditionFields.add(condition.getFirstValue());
+        }
+
+        return new StatementShape(
+                type, key.getScope(), toEnumSet(fields), toEnumSet(updateFields), conditionFields, wildcardMask);
+    }
+
+    public boolean isWildcardCondition(int index) {
+        return (wildcardMask & (1 << index)) != 0;
+    }
+
+    private static Set<FieldKey> toEnumSet(Collection<FieldKey> fields) {
+        return fields.isEmpty() ? EnumSet.noneOf(FieldKey.class) : EnumSet.copyOf(fields);
+    }
+}
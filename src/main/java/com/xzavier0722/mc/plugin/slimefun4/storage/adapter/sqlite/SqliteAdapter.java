@@ -14,96 +14,100 @@ import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlC
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_PLAYER_UUID;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_RESEARCH_KEY;
 import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_SLIMEFUN_ID;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_WORLD_ID;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.FIELD_WORLD_NAME;
+import static com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlConstants.TABLE_NAME_BLOCK_WORLD;
 
-import city.norain.slimefun4.timings.entry.SQLEntry;
 import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlCommonAdapter;
 import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlUtils;
+import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.StatementShape;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.DataScope;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.DataType;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.FieldKey;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.RecordKey;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.RecordSet;
-import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
-import java.sql.SQLException;
+import io.github.bakedlibs.dough.collections.Pair;
+import java.sql.Connection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class SqliteAdapter extends SqlCommonAdapter<SqliteConfig> {
     @Override
     public void initStorage(DataType type) {
         switch (type) {
-            case PLAYER_PROFILE -> createProfileTables();
-            case BLOCK_STORAGE -> createBlockStorageTables();
+            case PLAYER_PROFILE -> {
+                profileTable = SqlUtils.mapTable(DataScope.PLAYER_PROFILE);
+                researchTable = SqlUtils.mapTable(DataScope.PLAYER_RESEARCH);
+                backpackTable = SqlUtils.mapTable(DataScope.BACKPACK_PROFILE);
+                bpInvTable = SqlUtils.mapTable(DataScope.BACKPACK_INVENTORY);
+                createProfileTables();
+            }
+            case BLOCK_STORAGE -> {
+                blockRecordTable = SqlUtils.mapTable(DataScope.BLOCK_RECORD);
+                blockDataTable = SqlUtils.mapTable(DataScope.BLOCK_DATA);
+                blockInvTable = SqlUtils.mapTable(DataScope.BLOCK_INVENTORY);
+                chunkDataTable = SqlUtils.mapTable(DataScope.CHUNK_DATA);
+                worldTable = TABLE_NAME_BLOCK_WORLD;
+                createBlockStorageTables();
+            }
         }
     }
 
     @Override
-    public void setData(RecordKey key, RecordSet item) {
-        var data = item.getAll();
-        var fields = data.keySet();
-        var fieldStr = SqlUtils.buildFieldStr(fields);
-        if (fieldStr.isEmpty()) {
-            throw new IllegalArgumentException("No data provided in RecordSet.");
-        }
+    protected String buildUpsertSql(String table, DataScope scope, Set<FieldKey> fields, Set<FieldKey> updateFields) {
+        var insertStr = " INTO "
+                + table
+                + " ("
+                + SqlUtils.buildFieldStr(fields).orElseThrow()
+                + ") VALUES ("
+                + SqlUtils.buildPlaceholderStr(fields.size())
+                + ")";
 
-        var valStr = new StringBuilder();
-        var flag = false;
-        for (var field : fields) {
-            if (flag) {
-                valStr.append(", ");
-            } else {
-                flag = true;
-            }
-            valStr.append(SqlUtils.toSqlValStr(field, data.get(field)));
+        if (updateFields.isEmpty()) {
+            return "INSERT OR IGNORE" + insertStr + ";";
         }
 
-        var updateFields = key.getFields();
-        var table = SqlUtils.mapTable(key.getScope());
+        return "INSERT"
+                + insertStr
+                + " ON CONFLICT ("
+                + SqlUtils.buildPrimaryKeyStr(scope)
+                + ") DO UPDATE SET "
+                + String.join(
+                        ", ",
+                        updateFields.stream()
+                                .map(field -> {
+                                    var fieldStr = SqlUtils.mapField(field);
+                                    return fieldStr + " = excluded." + fieldStr;
+                                })
+                                .toList())
+                + ";";
+    }
 
-        if (!updateFields.isEmpty()) {
-            if (key.getConditions().isEmpty()) {
-                throw new IllegalArgumentException("Condition is required for update statement!");
-            }
+    /**
+     * The update and the insert are executed under the same lock, so no other write lands in between.
+     */
+    @Override
+    protected synchronized void setData(Connection conn, RecordKey key, RecordSet item) {
+        var data = item.getAll();
+        if (data.isEmpty()) {
+            throw new IllegalArgumentException("No data provided in RecordSet.");
+        }
+        checkUpdateFields(key, item);
+        item = withPositionFields(key.getScope(), item);
+        data = item.getAll();
 
-            var row = executeUpdate("UPDATE "
-                    + table
-                    + " SET "
-                    + String.join(
-                            ", ",
-                            updateFields.stream()
-                                    .map(field -> {
-                                        var val = item.get(field);
-                                        if (val == null) {
-                                            throw new IllegalArgumentException(
-                                                    "Cannot find value in RecordSet for the specific key: " + field);
-                                        }
-                                        return SqlUtils.buildKvStr(field, val);
-                                    })
-                                    .toList())
-                    + SqlUtils.buildConditionStr(key.getConditions())
-                    + ";");
-            if (row > 0) {
+        if (!key.getFields().isEmpty()) {
+            var updateShape = StatementShape.update(key);
+            var params = toParams(updateShape.updateFields(), item);
+            params.addAll(key.getConditions());
+            if (executeUpdate(conn, getStatement(updateShape), params) > 0) {
                 return;
             }
         }
 
-        executeSql("INSERT OR IGNORE INTO " + table + " (" + fieldStr.get() + ") VALUES (" + valStr + ");");
-    }
-
-    @Override
-    public List<RecordSet> getData(RecordKey key, boolean distinct) {
-        return executeQuery((distinct ? "SELECT DISTINCT " : "SELECT ")
-                + SqlUtils.buildFieldStr(key.getFields()).orElse("*")
-                + " FROM "
-                + SqlUtils.mapTable(key.getScope())
-                + SqlUtils.buildConditionStr(key.getConditions())
-                + ";");
-    }
-
-    @Override
-    public void deleteData(RecordKey key) {
-        executeSql("DELETE FROM "
-                + SqlUtils.mapTable(key.getScope())
-                + SqlUtils.buildConditionStr(key.getConditions())
-                + ";");
+        var insertShape = StatementShape.upsert(key.getScope(), data.keySet(), Set.of());
+        executeUpdate(conn, getStatement(insertShape), toParams(insertShape.fields(), item));
     }
 
     private void createProfileTables() {
@@ -118,6 +122,8 @@ public class SqliteAdapter extends SqlCommonAdapter<SqliteConfig> {
         createBlockDataTable();
         createBlockInvTable();
         createChunkDataTable();
+        createWorldTable();
+        createPositionColumns();
     }
 
     private void createProfileTable() {
@@ -268,6 +274,17 @@ public class SqliteAdapter extends SqlCommonAdapter<SqliteConfig> {
                 + ");");
     }
 
+    private void createWorldTable() {
+        executeSql("CREATE TABLE IF NOT EXISTS "
+                + worldTable
+                + "("
+                + FIELD_WORLD_ID
+                + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + FIELD_WORLD_NAME
+                + " TEXT UNIQUE NOT NULL"
+                + ");");
+    }
+
     private void createChunkDataTable() {
         executeSql("CREATE TABLE IF NOT EXISTS "
                 + SqlUtils.mapTable(DataScope.CHUNK_DATA)
@@ -317,16 +334,18 @@ public class SqliteAdapter extends SqlCommonAdapter<SqliteConfig> {
         super.executeSql(sql);
     }
 
-    private synchronized int executeUpdate(String sql) {
-        var entry = new SQLEntry(sql);
-        Slimefun.getSQLProfiler().recordEntry(entry);
+    @Override
+    protected synchronized int executeUpdate(String sql, List<Pair<FieldKey, String>> params) {
+        return super.executeUpdate(sql, params);
+    }
 
-        try (var conn = ds.getConnection()) {
-            return SqlUtils.execUpdate(conn, sql);
-        } catch (SQLException e) {
-            throw new IllegalStateException("An exception thrown while executing sql: " + sql, e);
-        } finally {
-            Slimefun.getSQLProfiler().finishEntry(entry);
-        }
+    @Override
+    protected synchronized int executeUpdate(Connection conn, String sql, List<Pair<FieldKey, String>> params) {
+        return super.executeUpdate(conn, sql, params);
+    }
+
+    @Override
+    protected synchronized void executeUpdateBatches(Map<String, List<List<Pair<FieldKey, String>>>> batches) {
+        super.executeUpdateBatches(batches);
     }
 }
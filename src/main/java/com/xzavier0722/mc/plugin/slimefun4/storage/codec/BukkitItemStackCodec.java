@@ -0,0 +1,50 @@
+package com.xzavier0722.mc.plugin.slimefun4.storage.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+import org.yaml.snakeyaml.external.biz.base64Coder.Base64Coder;
+
+/**
+ * The original format: the {@link ItemStack} written by a {@link BukkitObjectOutputStream}, encoded as Base64 lines.
+ * It works on every server, but Java serialization is slow and large.
+ */
+public class BukkitItemStackCodec implements ItemStackCodec {
+    public static final BukkitItemStackCodec INSTANCE = new BukkitItemStackCodec();
+
+    private BukkitItemStackCodec() {}
+
+    @Nonnull
+    @Override
+    public String encode(@Nonnull ItemStack itemStack) {
+        var stream = new ByteArrayOutputStream();
+        try (var bs = new BukkitObjectOutputStream(stream)) {
+            bs.writeObject(itemStack);
+            return Base64Coder.encodeLines(stream.toByteArray());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return "";
+        }
+    }
+
+    @Nullable @Override
+    public ItemStack decode(@Nonnull String encoded) {
+        var stream = new ByteArrayInputStream(Base64Coder.decodeLines(encoded));
+        try (var bs = new BukkitObjectInputStream(stream)) {
+            return (ItemStack) bs.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Override
+    public boolean canDecode(@Nonnull String encoded) {
+        return !NativeItemStackCodec.INSTANCE.canDecode(encoded);
+    }
+}
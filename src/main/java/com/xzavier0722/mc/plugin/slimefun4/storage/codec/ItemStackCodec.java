@@ -0,0 +1,20 @@
+package com.xzavier0722.mc.plugin.slimefun4.storage.codec;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Converts an {@link ItemStack} to the text stored in an inventory column and back.
+ * <p>
+ * Every codec must recognise its own output by {@link #canDecode(String)},
+ * so rows written by another codec can still be read and are migrated once they are written again.
+ */
+public interface ItemStackCodec {
+    @Nonnull
+    String encode(@Nonnull ItemStack itemStack);
+
+    @Nullable ItemStack decode(@Nonnull String encoded);
+
+    boolean canDecode(@Nonnull String encoded);
+}
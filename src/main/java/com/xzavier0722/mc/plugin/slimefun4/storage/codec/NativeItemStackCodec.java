@@ -0,0 +1,98 @@
+package com.xzavier0722.mc.plugin.slimefun4.storage.codec;
+
+import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Base64;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * A compact format based on the byte serialization of the server, only available on Paper.
+ * <p>
+ * The text is {@code sf:<version>:<Base64 bytes>}. The bytes are written by {@code ItemStack#serializeAsBytes()},
+ * which stores the data version of the item, so the server upgrades the item when it is read by a newer version.
+ * Empty stacks cannot be serialized by the server and are written by the {@link BukkitItemStackCodec} instead.
+ */
+public class NativeItemStackCodec implements ItemStackCodec {
+    public static final NativeItemStackCodec INSTANCE = new NativeItemStackCodec();
+
+    private static final String PREFIX = "sf:";
+    private static final String VERSION = "1";
+    private static final String HEADER = PREFIX + VERSION + ":";
+
+    private static final MethodHandle SERIALIZE;
+    private static final MethodHandle DESERIALIZE;
+
+    static {
+        MethodHandle serialize = null;
+        MethodHandle deserialize = null;
+        try {
+            var lookup = MethodHandles.publicLookup();
+            serialize = lookup.findVirtual(ItemStack.class, "serializeAsBytes", MethodType.methodType(byte[].class));
+            deserialize = lookup.findStatic(
+                    ItemStack.class, "deserializeBytes", MethodType.methodType(ItemStack.class, byte[].class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            serialize = null;
+            deserialize = null;
+        }
+        SERIALIZE = serialize;
+        DESERIALIZE = deserialize;
+    }
+
+    private NativeItemStackCodec() {}
+
+    /**
+     * Whether the server provides the byte serialization of {@link ItemStack}s.
+     */
+    public static boolean isSupported() {
+        return SERIALIZE != null;
+    }
+
+    @Nonnull
+    @Override
+    public String encode(@Nonnull ItemStack itemStack) {
+        if (!isSupported() || itemStack.getType().isAir() || itemStack.getAmount() <= 0) {
+            return BukkitItemStackCodec.INSTANCE.encode(itemStack);
+        }
+
+        try {
+            return HEADER + Base64.getEncoder().encodeToString((byte[]) SERIALIZE.invokeExact(itemStack));
+        } catch (Throwable e) {
+            Slimefun.logger().log(Level.WARNING, "序列化物品失败, 已使用 Bukkit 序列化格式", e);
+            return BukkitItemStackCodec.INSTANCE.encode(itemStack);
+        }
+    }
+
+    @Nullable @Override
+    public ItemStack decode(@Nonnull String encoded) {
+        if (!encoded.startsWith(HEADER)) {
+            Slimefun.logger()
+                    .log(
+                            Level.WARNING,
+                            "不支持的物品数据格式版本: {0}",
+                            encoded.substring(0, encoded.indexOf(':', PREFIX.length()) + 1));
+            return null;
+        }
+
+        if (!isSupported()) {
+            Slimefun.logger().log(Level.WARNING, "当前服务端不支持读取原生格式的物品数据, 请使用 Paper 服务端");
+            return null;
+        }
+
+        try {
+            return (ItemStack) DESERIALIZE.invokeExact(Base64.getDecoder().decode(encoded.substring(HEADER.length())));
+        } catch (Throwable e) {
+            Slimefun.logger().log(Level.WARNING, "反序列化物品失败", e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean canDecode(@Nonnull String encoded) {
+        return encoded.startsWith(PREFIX);
+    }
+}
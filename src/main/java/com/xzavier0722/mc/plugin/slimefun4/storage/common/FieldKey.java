@@ -19,6 +19,14 @@ public enum FieldKey {
     CHUNK,
     SLIMEFUN_ID,
 
+    WORLD,
+    WORLD_ID(true),
+    POS_X(true),
+    POS_Y(true),
+    POS_Z(true),
+    CHUNK_X(true),
+    CHUNK_Z(true),
+
     DATA_KEY,
     DATA_VALUE;
 
@@ -0,0 +1,14 @@
+package com.xzavier0722.mc.plugin.slimefun4.storage.common;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A single pending write against the data source.
+ * A {@code null} {@link RecordSet} means the records matched by the key should be deleted.
+ */
+public record WriteOperation(@Nonnull RecordKey key, @Nullable RecordSet data) {
+    public boolean isDelete() {
+        return data == null;
+    }
+}
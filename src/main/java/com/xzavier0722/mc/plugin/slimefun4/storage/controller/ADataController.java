@@ -2,38 +2,58 @@ package com.xzavier0722.mc.plugin.slimefun4.storage.controller;
 
 import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.IDataSourceAdapter;
 import com.xzavier0722.mc.plugin.slimefun4.storage.callback.IAsyncReadCallback;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.DataScope;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.DataType;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.FieldKey;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.RecordKey;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.RecordSet;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.ScopeKey;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.WriteOperation;
+import com.xzavier0722.mc.plugin.slimefun4.storage.task.BatchedWriteLooper;
 import com.xzavier0722.mc.plugin.slimefun4.storage.task.DatabaseThreadFactory;
 import com.xzavier0722.mc.plugin.slimefun4.storage.task.QueuedWriteTask;
+import com.xzavier0722.mc.plugin.slimefun4.storage.task.RecordWriteTask;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import javax.annotation.OverridingMethodsMustInvokeSuper;
 
 public abstract class ADataController {
     private final DatabaseThreadFactory threadFactory = new DatabaseThreadFactory();
     private final DataType dataType;
     private final Map<ScopeKey, QueuedWriteTask> scheduledWriteTasks;
+
+    /**
+     * The amount of {@link #scheduledWriteTasks} per chunk key, see {@link #getChunkKey(ScopeKey)}.
+     */
+    private final Map<String, Integer> scheduledWriteChunks;
+
     private final ScopedLock lock;
     private volatile IDataSourceAdapter<?> dataAdapter;
     private ExecutorService readExecutor;
     private ExecutorService writeExecutor;
     private ExecutorService callbackExecutor;
+    private volatile BatchedWriteLooper batchedWriteLooper;
     private volatile boolean destroyed = false;
     protected final Logger logger;
 
     protected ADataController(DataType dataType) {
         this.dataType = dataType;
         scheduledWriteTasks = new ConcurrentHashMap<>();
+        scheduledWriteChunks = new ConcurrentHashMap<>();
         lock = new ScopedLock();
         logger = Logger.getLogger("Slimefun-Data-Controller");
     }
@@ -47,6 +67,30 @@ public abstract class ADataController {
         callbackExecutor = Executors.newCachedThreadPool(threadFactory);
     }
 
+    /**
+     * Routes queued writes through a {@link BatchedWriteLooper} instead of the write executor.
+     *
+     * @param maxBatchSize    max writes committed in one batch
+     * @param maxLingerMillis max time in millisecond a write waits for the batch to fill up
+     */
+    public void initBatchedWriting(int maxBatchSize, int maxLingerMillis) {
+        checkDestroy();
+        if (maxBatchSize < 1 || maxLingerMillis < 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0 and linger time cannot be negative!");
+        }
+
+        if (batchedWriteLooper != null) {
+            return;
+        }
+
+        batchedWriteLooper = new BatchedWriteLooper(dataAdapter, maxBatchSize, maxLingerMillis);
+        threadFactory.newThread(batchedWriteLooper).start();
+    }
+
+    public boolean isBatchedWritingEnabled() {
+        return batchedWriteLooper != null;
+    }
+
     @OverridingMethodsMustInvokeSuper
     public void shutdown() {
         if (destroyed) {
@@ -69,22 +113,21 @@ public abstract class ADataController {
         } catch (InterruptedException e) {
             logger.log(Level.WARNING, "Exception thrown while saving data: ", e);
         }
+        if (batchedWriteLooper != null) {
+            batchedWriteLooper.stop();
+        }
         writeExecutor.shutdownNow();
         dataAdapter = null;
     }
 
     protected void scheduleDeleteTask(ScopeKey scopeKey, RecordKey key, boolean forceScopeKey) {
         scheduleWriteTask(
-                scopeKey,
-                key,
-                () -> {
-                    dataAdapter.deleteData(key);
-                },
-                forceScopeKey);
+                scopeKey, key, new RecordWriteTask(dataAdapter, new WriteOperation(key, null)), forceScopeKey);
     }
 
     protected void scheduleWriteTask(ScopeKey scopeKey, RecordKey key, RecordSet data, boolean forceScopeKey) {
-        scheduleWriteTask(scopeKey, key, () -> dataAdapter.setData(key, data), forceScopeKey);
+        scheduleWriteTask(
+                scopeKey, key, new RecordWriteTask(dataAdapter, new WriteOperation(key, data)), forceScopeKey);
     }
 
     protected void scheduleWriteTask(ScopeKey scopeKey, RecordKey key, Runnable task, boolean forceScopeKey) {
@@ -100,10 +143,13 @@ public abstract class ADataController {
                 return;
             }
 
+            var chunkKey = getChunkKey(scopeToUse);
             queuedTask = new QueuedWriteTask() {
                 @Override
                 protected void onSuccess() {
-                    scheduledWriteTasks.remove(scopeToUse);
+                    if (scheduledWriteTasks.remove(scopeToUse, this)) {
+                        countScheduledWrite(chunkKey, -1);
+                    }
                 }
 
                 @Override
@@ -113,8 +159,16 @@ public abstract class ADataController {
                 }
             };
             queuedTask.queue(key, task);
-            scheduledWriteTasks.put(scopeToUse, queuedTask);
-            writeExecutor.submit(queuedTask);
+            if (scheduledWriteTasks.put(scopeToUse, queuedTask) == null) {
+                countScheduledWrite(chunkKey, 1);
+            }
+
+            var looper = batchedWriteLooper;
+            if (looper != null) {
+                looper.submit(queuedTask);
+            } else {
+                writeExecutor.submit(queuedTask);
+            }
         } finally {
             lock.unlock(scopeKey);
         }
@@ -150,6 +204,11 @@ public abstract class ADataController {
         readExecutor.submit(run);
     }
 
+    protected <T> CompletableFuture<T> supplyReadTask(Supplier<T> task) {
+        checkDestroy();
+        return CompletableFuture.supplyAsync(task, readExecutor);
+    }
+
     protected void scheduleWriteTask(Runnable run) {
         checkDestroy();
         writeExecutor.submit(run);
@@ -163,6 +222,14 @@ public abstract class ADataController {
         return dataAdapter.getData(key, distinct);
     }
 
+    protected void forEachData(RecordKey key, boolean distinct, Consumer<RecordSet> consumer) {
+        dataAdapter.forEachData(key, distinct, consumer);
+    }
+
+    protected List<RecordSet> getDataInChunks(DataScope scope, Set<FieldKey> fields, List<String> chunkKeys) {
+        return dataAdapter.getDataInChunks(scope, fields, chunkKeys);
+    }
+
     protected void setData(RecordKey key, RecordSet data) {
         dataAdapter.setData(key, data);
     }
@@ -171,9 +238,48 @@ public abstract class ADataController {
         dataAdapter.deleteData(key);
     }
 
+    /**
+     * Gets the chunk a write task scope belongs to, so pending writes can be looked up by chunk.
+     *
+     * @return the chunk key, or null if the scope does not belong to a chunk
+     */
+    @Nullable protected String getChunkKey(ScopeKey key) {
+        return null;
+    }
+
+    protected boolean hasScheduledWriteTaskInChunk(String chunkKey) {
+        return scheduledWriteChunks.containsKey(chunkKey);
+    }
+
+    private void countScheduledWrite(@Nullable String chunkKey, int delta) {
+        if (chunkKey != null) {
+            // The removal may be counted first, so the count is dropped once it is back at zero
+            scheduledWriteChunks.compute(chunkKey, (k, count) -> {
+                var re = (count == null ? 0 : count) + delta;
+                return re == 0 ? null : re;
+            });
+        }
+    }
+
+    /**
+     * Captures the currently scheduled writes.
+     *
+     * @return a check whether every write scheduled before this call has finished
+     */
+    protected BooleanSupplier captureScheduledWrites() {
+        // A task may keep accepting writes, so only the writes queued up to now are waited for
+        var snapshot = new HashMap<QueuedWriteTask, Long>();
+        scheduledWriteTasks.values().forEach(task -> snapshot.put(task, task.getQueuedCount()));
+        return () -> {
+            snapshot.entrySet().removeIf(each -> each.getKey().hasWritten(each.getValue()));
+            return snapshot.isEmpty();
+        };
+    }
+
     protected void abortScopeTask(ScopeKey key) {
         var task = scheduledWriteTasks.remove(key);
         if (task != null) {
+            countScheduledWrite(getChunkKey(key), -1);
             task.abort();
         }
     }
@@ -18,13 +18,23 @@ import com.xzavier0722.mc.plugin.slimefun4.storage.util.LocationUtils;
 import io.github.bakedlibs.dough.collections.Pair;
 import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItem;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -41,21 +51,46 @@ import org.bukkit.scheduler.BukkitTask;
 
 public class BlockDataController extends ADataController {
 
+    /**
+     * The maximum amount of chunks loaded with the same queries by {@link #loadWorld(World)}.
+     */
+    private static final int BULK_LOAD_CHUNKS = 64;
+
+    /**
+     * The period in ticks of the progress reports while preloading the worlds.
+     */
+    private static final long PRELOAD_PROGRESS_PERIOD = 100;
+
     private final Map<LinkedKey, DelayedTask> delayedWriteTasks;
     private final Map<String, SlimefunChunkData> loadedChunk;
+    private final Map<String, LongKeyIndex<SlimefunChunkData>> chunkIndex;
     private final Map<String, List<Pair<ItemStack, Integer>>> invSnapshots;
+    private final Map<String, Long> pendingUnloadChunks;
+    private final Set<SlimefunBlockData> dirtyCharges;
     private final ScopedLock lock;
     private boolean enableDelayedSaving = false;
     private int delayedSecond = 0;
     private BukkitTask looperTask;
+    private volatile DelayedWriteJournal journal;
+    private BooleanSupplier journalCheckpoint;
+    private boolean journalCheckpointPending = false;
+    private boolean enableChunkDataUnload = false;
+    private long unloadGracePeriodMillis = 0;
+    private long evictedChunkCount = 0;
+    private BukkitTask unloadTask;
+    private boolean enableEnergyChargeFlush = false;
+    private BukkitTask chargeFlushTask;
     private ChunkDataLoadMode chunkDataLoadMode;
-    private boolean initLoading = false;
+    private volatile boolean initLoading = false;
 
     BlockDataController() {
         super(DataType.BLOCK_STORAGE);
         delayedWriteTasks = new HashMap<>();
         loadedChunk = new ConcurrentHashMap<>();
+        chunkIndex = new ConcurrentHashMap<>();
         invSnapshots = new ConcurrentHashMap<>();
+        pendingUnloadChunks = new ConcurrentHashMap<>();
+        dirtyCharges = ConcurrentHashMap.newKeySet();
         lock = new ScopedLock();
     }
 
@@ -63,9 +98,87 @@ public class BlockDataController extends ADataController {
     public void init(IDataSourceAdapter<?> dataAdapter, int maxReadThread, int maxWriteThread) {
         super.init(dataAdapter, maxReadThread, maxWriteThread);
         this.chunkDataLoadMode = Slimefun.getDatabaseManager().getChunkDataLoadMode();
+        replayDelayedWriteJournal();
         initLoadData();
     }
 
+    /**
+     * Applies the delayed updates left in the journal by a server that did not shut down properly.
+     */
+    private void replayDelayedWriteJournal() {
+        List<DelayedWriteJournal.Entry> entries;
+        try {
+            entries = DelayedWriteJournal.replay(DelayedWriteJournal.DEFAULT_DIR);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "读取延迟写入日志失败", e);
+            return;
+        }
+
+        if (!entries.isEmpty()) {
+            logger.log(Level.INFO, "正在恢复 {0} 条未保存的延迟写入数据...", entries.size());
+            for (var entry : entries) {
+                try {
+                    replayJournalEntry(entry);
+                } catch (Throwable e) {
+                    logger.log(Level.WARNING, "恢复延迟写入数据失败: " + entry.key(), e);
+                }
+            }
+            logger.log(Level.INFO, "延迟写入数据恢复完成");
+        }
+
+        try {
+            DelayedWriteJournal.delete(DelayedWriteJournal.DEFAULT_DIR);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "删除延迟写入日志失败", e);
+        }
+    }
+
+    private void replayJournalEntry(DelayedWriteJournal.Entry entry) {
+        var data = new RecordSet();
+        RecordKey key;
+        FieldKey valueField;
+        switch (entry.type()) {
+            case BLOCK_DATA -> {
+                key = new RecordKey(DataScope.BLOCK_DATA);
+                key.addCondition(FieldKey.LOCATION, entry.key());
+                key.addCondition(FieldKey.DATA_KEY, entry.field());
+                data.put(FieldKey.LOCATION, entry.key());
+                data.put(FieldKey.DATA_KEY, entry.field());
+                valueField = FieldKey.DATA_VALUE;
+            }
+            case CHUNK_DATA -> {
+                key = new RecordKey(DataScope.CHUNK_DATA);
+                key.addCondition(FieldKey.CHUNK, entry.key());
+                key.addCondition(FieldKey.DATA_KEY, entry.field());
+                data.put(FieldKey.CHUNK, entry.key());
+                data.put(FieldKey.DATA_KEY, entry.field());
+                valueField = FieldKey.DATA_VALUE;
+            }
+            case BLOCK_INVENTORY -> {
+                key = new RecordKey(DataScope.BLOCK_INVENTORY);
+                key.addCondition(FieldKey.LOCATION, entry.key());
+                key.addCondition(FieldKey.INVENTORY_SLOT, entry.field());
+                data.put(FieldKey.LOCATION, entry.key());
+                data.put(FieldKey.INVENTORY_SLOT, entry.field());
+                valueField = FieldKey.INVENTORY_ITEM;
+            }
+            default -> {
+                return;
+            }
+        }
+
+        if (entry.value() == null) {
+            deleteData(key);
+            return;
+        }
+
+        key.addField(valueField);
+        data.put(
+                valueField,
+                valueField == FieldKey.DATA_VALUE ? DataUtils.blockDataBase64(entry.value()) : entry.value());
+        setData(key, data);
+    }
+
     private void initLoadData() {
         switch (chunkDataLoadMode) {
             case LOAD_WITH_CHUNK -> loadLoadedChunks();
@@ -74,17 +187,118 @@ public class BlockDataController extends ADataController {
     }
 
     private void loadLoadedWorlds() {
-        Bukkit.getScheduler()
-                .runTaskLater(
+        Bukkit.getScheduler().runTaskLater(Slimefun.instance(), () -> preloadWorlds(Bukkit.getWorlds()), 1);
+    }
+
+    /**
+     * Loads the data of all given worlds in the background.
+     * <p>
+     * The chunk keys are streamed from the database, the chunks are loaded in batches on the read executor
+     * and only the {@link SlimefunChunkDataLoadEvent}s are called on the main thread.
+     * Until every world is loaded, block data missing in the cache is read from the database.
+     */
+    private void preloadWorlds(List<World> worlds) {
+        initLoading = true;
+        var progress = new PreloadProgress();
+        logger.log(Level.INFO, "正在后台预加载 {0} 个世界的 Slimefun 方块数据...", worlds.size());
+
+        var progressTask = Bukkit.getScheduler()
+                .runTaskTimerAsynchronously(
                         Slimefun.instance(),
-                        () -> {
-                            initLoading = true;
-                            for (var world : Bukkit.getWorlds()) {
-                                loadWorld(world);
-                            }
-                            initLoading = false;
-                        },
-                        1);
+                        () -> logger.log(Level.INFO, "数据预加载中... 已加载 {0} 个区块, {1} 个方块 ({2} 区块/秒)", new Object[] {
+                            progress.chunks.get(), progress.blocks.get(), progress.getChunkRate()
+                        }),
+                        PRELOAD_PROGRESS_PERIOD,
+                        PRELOAD_PROGRESS_PERIOD);
+
+        var futures = new CompletableFuture<?>[worlds.size()];
+        for (var i = 0; i < futures.length; i++) {
+            futures[i] = preloadWorld(worlds.get(i), progress);
+        }
+
+        CompletableFuture.allOf(futures).whenComplete((r, e) -> {
+            progressTask.cancel();
+            initLoading = false;
+            logger.log(Level.INFO, "Slimefun 方块数据预加载完成, 共 {0} 个区块, {1} 个方块, 耗时 {2}ms ({3} 区块/秒)", new Object[] {
+                progress.chunks.get(), progress.blocks.get(), progress.getElapsedMillis(), progress.getChunkRate()
+            });
+        });
+    }
+
+    private CompletableFuture<Void> preloadWorld(World world, PreloadProgress progress) {
+        var worldName = world.getName();
+        return supplyReadTask(() -> collectChunkKeys(world))
+                .thenCompose(chunkKeys -> {
+                    logger.log(Level.INFO, "世界 {0} 共有 {1} 个区块需要加载", new Object[] {worldName, chunkKeys.size()});
+                    return toChunkData(world, chunkKeys);
+                })
+                .thenCompose(chunks -> {
+                    var batches = new ArrayList<CompletableFuture<Void>>();
+                    for (var i = 0; i < chunks.size(); i += BULK_LOAD_CHUNKS) {
+                        List<SlimefunChunkData> batch =
+                                chunks.subList(i, Math.min(i + BULK_LOAD_CHUNKS, chunks.size()));
+                        batches.add(supplyReadTask(() -> loadChunkRecords(batch, true))
+                                .thenAccept(loaded -> {
+                                    progress.add(loaded);
+                                    Slimefun.runSync(() -> loaded.forEach(chunkData -> Bukkit.getPluginManager()
+                                            .callEvent(new SlimefunChunkDataLoadEvent(chunkData))));
+                                }));
+                    }
+                    return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new));
+                })
+                .exceptionally(e -> {
+                    logger.log(Level.SEVERE, "预加载世界 " + worldName + " 的数据失败: ", e);
+                    return null;
+                });
+    }
+
+    /**
+     * Creates the chunk data of the given chunks, the chunks are resolved on the main thread
+     * if that would load them.
+     */
+    private CompletableFuture<List<SlimefunChunkData>> toChunkData(World world, Set<String> chunkKeys) {
+        Supplier<List<SlimefunChunkData>> task = () -> {
+            var re = new ArrayList<SlimefunChunkData>(chunkKeys.size());
+            chunkKeys.forEach(cKey -> re.add(getChunkDataCache(LocationUtils.toChunk(world, cKey), true)));
+            return re;
+        };
+
+        if (LocationUtils.isToChunkAsyncSafe()) {
+            return CompletableFuture.completedFuture(task.get());
+        }
+
+        var re = new CompletableFuture<List<SlimefunChunkData>>();
+        var scheduled = Slimefun.runSync(() -> {
+            try {
+                re.complete(task.get());
+            } catch (Throwable e) {
+                re.completeExceptionally(e);
+            }
+        });
+
+        if (scheduled == null) {
+            re.completeExceptionally(new IllegalStateException("Slimefun is disabled"));
+        }
+        return re;
+    }
+
+    private static class PreloadProgress {
+        private final long start = System.currentTimeMillis();
+        private final AtomicInteger chunks = new AtomicInteger();
+        private final AtomicLong blocks = new AtomicLong();
+
+        private void add(List<SlimefunChunkData> loaded) {
+            chunks.addAndGet(loaded.size());
+            loaded.forEach(chunkData -> blocks.addAndGet(chunkData.getBlockCacheSize()));
+        }
+
+        private long getElapsedMillis() {
+            return System.currentTimeMillis() - start;
+        }
+
+        private long getChunkRate() {
+            return chunks.get() * 1000L / Math.max(1, getElapsedMillis());
+        }
     }
 
     private void loadLoadedChunks() {
@@ -110,25 +324,152 @@ public class BlockDataController extends ADataController {
         }
         enableDelayedSaving = true;
         this.delayedSecond = delayedSecond;
+        var looper = new DelayedSavingLooperTask(
+                forceSavePeriod,
+                () -> {
+                    synchronized (delayedWriteTasks) {
+                        return new HashMap<>(delayedWriteTasks);
+                    }
+                },
+                key -> {
+                    synchronized (delayedWriteTasks) {
+                        // The key may have been rescheduled while the task was running
+                        delayedWriteTasks.computeIfPresent(
+                                (LinkedKey) key, (k, task) -> task.isExecuted() ? null : task);
+                    }
+                },
+                this::rotateDelayedWriteJournal);
         looperTask = Bukkit.getScheduler()
                 .runTaskTimerAsynchronously(
                         p,
-                        new DelayedSavingLooperTask(
-                                forceSavePeriod,
-                                () -> {
-                                    synchronized (delayedWriteTasks) {
-                                        return new HashMap<>(delayedWriteTasks);
-                                    }
-                                },
-                                key -> {
-                                    synchronized (delayedWriteTasks) {
-                                        delayedWriteTasks.remove(key);
-                                    }
-                                }),
+                        () -> {
+                            looper.run();
+                            checkpointDelayedWriteJournal();
+                        },
                         20,
                         20);
     }
 
+    /**
+     * Enables the write-ahead journal of delayed updates, which are replayed on the next startup
+     * if the server did not shut down properly. Requires delayed saving to be enabled.
+     */
+    public void initDelayedWriteJournal() {
+        checkDestroy();
+        if (!enableDelayedSaving) {
+            logger.log(Level.WARNING, "延迟写入日志需要启用延迟写入功能, 已跳过");
+            return;
+        }
+
+        try {
+            journal = new DelayedWriteJournal(DelayedWriteJournal.DEFAULT_DIR);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "创建延迟写入日志失败", e);
+        }
+    }
+
+    public boolean isDelayedWriteJournalEnabled() {
+        return journal != null;
+    }
+
+    /**
+     * Seals the journal when a force save starts, everything journaled so far gets scheduled by this save.
+     */
+    private void rotateDelayedWriteJournal() {
+        var journal = this.journal;
+        if (journal == null) {
+            return;
+        }
+
+        // Most records are built before the lock is taken, appending updates waits for the rest only
+        journal.writePending();
+        synchronized (delayedWriteTasks) {
+            journalCheckpointPending = journal.rotate();
+        }
+    }
+
+    /**
+     * Releases the sealed journal segment once the writes scheduled up to its rotation are done.
+     * <p>
+     * Besides the force saves, the journal is rotated whenever no delayed update is left:
+     * everything journaled so far has been handed to the write queue then.
+     */
+    private void checkpointDelayedWriteJournal() {
+        var journal = this.journal;
+        if (journal == null) {
+            return;
+        }
+
+        if (journalCheckpointPending) {
+            journalCheckpointPending = false;
+            journalCheckpoint = captureScheduledWrites();
+        }
+
+        if (journalCheckpoint != null && journalCheckpoint.getAsBoolean()) {
+            journalCheckpoint = null;
+            journal.releaseSealed();
+        }
+
+        if (journalCheckpoint == null) {
+            journal.writePending();
+            synchronized (delayedWriteTasks) {
+                if (delayedWriteTasks.isEmpty() && journal.rotate()) {
+                    journalCheckpoint = captureScheduledWrites();
+                }
+            }
+        }
+
+        journal.force();
+    }
+
+    /**
+     * Enables dropping the cached data of unloaded chunks, only available in {@link ChunkDataLoadMode#LOAD_WITH_CHUNK}.
+     *
+     * @param p                 the plugin which owns the eviction task
+     * @param gracePeriodSecond seconds a chunk stays cached after unloaded, in case it gets loaded again soon
+     */
+    public void initChunkDataUnload(Plugin p, int gracePeriodSecond) {
+        checkDestroy();
+        if (gracePeriodSecond < 0) {
+            throw new IllegalArgumentException("Grace period cannot be negative!");
+        }
+
+        if (chunkDataLoadMode != ChunkDataLoadMode.LOAD_WITH_CHUNK) {
+            logger.log(Level.WARNING, "区块数据卸载功能仅在 LOAD_WITH_CHUNK 加载模式下可用, 已跳过");
+            return;
+        }
+
+        enableChunkDataUnload = true;
+        unloadGracePeriodMillis = TimeUnit.SECONDS.toMillis(gracePeriodSecond);
+        unloadTask = Bukkit.getScheduler().runTaskTimer(p, this::evictUnloadedChunks, 20, 20);
+    }
+
+    public boolean isChunkDataUnloadEnabled() {
+        return enableChunkDataUnload;
+    }
+
+    /**
+     * Keeps energy charges as typed values in memory and writes them back to the block data periodically.
+     *
+     * @param p                 the plugin which owns the flush task
+     * @param flushPeriodSecond seconds between two flushes
+     */
+    public void initEnergyChargeFlush(Plugin p, int flushPeriodSecond) {
+        checkDestroy();
+        if (flushPeriodSecond < 1) {
+            throw new IllegalArgumentException("Second must be greater than 0!");
+        }
+
+        enableEnergyChargeFlush = true;
+        chargeFlushTask = Bukkit.getScheduler()
+                .runTaskTimerAsynchronously(
+                        p, () -> flushEnergyCharges(data -> true), flushPeriodSecond * 20L, flushPeriodSecond * 20L);
+    }
+
+    public boolean isEnergyChargeFlushEnabled() {
+        return enableEnergyChargeFlush;
+    }
+
     public boolean isDelayedSavingEnabled() {
         return enableDelayedSaving;
     }
@@ -216,7 +557,7 @@ public class BlockDataController extends ADataController {
     @Nullable @ParametersAreNonnullByDefault
     public SlimefunBlockData getBlockData(Location l) {
         checkDestroy();
-        if (chunkDataLoadMode.readCacheOnly()) {
+        if (!initLoading && chunkDataLoadMode.readCacheOnly()) {
             return getBlockDataFromCache(l);
         }
 
@@ -224,6 +565,11 @@ public class BlockDataController extends ADataController {
         var chunkData = getChunkDataCache(chunk, false);
         var lKey = LocationUtils.getLocKey(l);
         if (chunkData != null) {
+            // The pending load fetches this block anyway, do not query it a second time
+            if (chunkData.isLoading()) {
+                return null;
+            }
+
             var re = chunkData.getBlockCacheInternal(lKey);
             if (re != null || chunkData.hasBlockCache(lKey) || chunkData.isDataLoaded()) {
                 return re;
@@ -252,6 +598,13 @@ public class BlockDataController extends ADataController {
      * @param callback operation when block data fetched {@link IAsyncReadCallback}
      */
     public void getBlockDataAsync(Location l, IAsyncReadCallback<SlimefunBlockData> callback) {
+        var chunkData = getIndexedChunkData(l.getWorld(), l.getBlockX() >> 4, l.getBlockZ() >> 4);
+        if (chunkData != null && chunkData.isLoading()) {
+            // Only read once the pending load has published the blocks of this chunk
+            chunkData.whenLoaded().thenRun(() -> getBlockDataAsync(l, callback));
+            return;
+        }
+
         scheduleReadTask(() -> invokeCallback(callback, getBlockData(l)));
     }
 
@@ -262,7 +615,41 @@ public class BlockDataController extends ADataController {
      * @return {@link SlimefunBlockData}
      */
     public SlimefunBlockData getBlockDataFromCache(Location l) {
-        return getBlockDataFromCache(LocationUtils.getChunkKey(l.getChunk()), LocationUtils.getLocKey(l));
+        return getBlockDataFromCache(l.getWorld(), l.getBlockX(), l.getBlockY(), l.getBlockZ());
+    }
+
+    /**
+     * Get slimefun block data at specific block coordinates from cache, without allocating any key
+     *
+     * @param world the {@link World} of the block
+     * @param x     block x
+     * @param y     block y
+     * @param z     block z
+     * @return {@link SlimefunBlockData}
+     */
+    @Nullable public SlimefunBlockData getBlockDataFromCache(World world, int x, int y, int z) {
+        checkDestroy();
+        var chunkData = getIndexedChunkData(world, x >> 4, z >> 4);
+        return chunkData == null ? null : chunkData.getBlockCacheInternal(x, y, z);
+    }
+
+    /**
+     * Whether the data of the chunk at the given location is still being loaded in the background.
+     * <p>
+     * Lookups in such a chunk return null until the load has finished, so a missing block data
+     * does not mean there is no Slimefun block. Player actions on such a chunk should be cancelled.
+     *
+     * @param l the {@link Location} to check
+     * @return whether the chunk data is being loaded
+     */
+    public boolean isChunkLoading(Location l) {
+        var chunkData = getIndexedChunkData(l.getWorld(), l.getBlockX() >> 4, l.getBlockZ() >> 4);
+        return chunkData != null && chunkData.isLoading();
+    }
+
+    @Nullable private SlimefunChunkData getIndexedChunkData(World world, int chunkX, int chunkZ) {
+        var index = chunkIndex.get(world.getName());
+        return index == null ? null : index.get(LocationUtils.getPackedChunkKey(chunkX, chunkZ));
     }
 
     /**
@@ -278,6 +665,10 @@ public class BlockDataController extends ADataController {
             return;
         }
 
+        // The pending charge belongs to the old location, it is written by the delayed tasks below
+        dirtyCharges.remove(blockData);
+        flushEnergyCharge(blockData);
+
         var hasTicker = false;
 
         if (blockData.isDataLoaded() && Slimefun.getRegistry().getTickerBlocks().contains(blockData.getSfId())) {
@@ -318,6 +709,12 @@ public class BlockDataController extends ADataController {
         data.put(FieldKey.SLIMEFUN_ID, blockData.getSfId());
         var scopeKey = new LocationKey(DataScope.NONE, blockData.getLocation());
         synchronized (delayedWriteTasks) {
+            // The journaled updates of the old location must not be replayed once the block has moved
+            var journal = this.journal;
+            if (journal != null) {
+                journal.append(DelayedWriteJournal.Entry.removeBlock(blockData.getKey()));
+            }
+
             var it = delayedWriteTasks.entrySet().iterator();
             while (it.hasNext()) {
                 var next = it.next();
@@ -335,94 +732,463 @@ public class BlockDataController extends ADataController {
         }
     }
 
-    private SlimefunBlockData getBlockDataFromCache(String cKey, String lKey) {
+    public void loadChunk(Chunk chunk, boolean isNewChunk) {
         checkDestroy();
-        var chunkData = loadedChunk.get(cKey);
-        return chunkData == null ? null : chunkData.getBlockCacheInternal(lKey);
+        var chunkData = prepareChunkLoad(chunk, isNewChunk);
+
+        if (chunkData != null && loadChunkRecords(chunkData, true)) {
+            Bukkit.getPluginManager().callEvent(new SlimefunChunkDataLoadEvent(chunkData));
+        }
     }
 
-    public void loadChunk(Chunk chunk, boolean isNewChunk) {
+    /**
+     * Loads the data of the chunk on the read executor, without blocking the calling thread.
+     * <p>
+     * The chunk data stays unloaded until all of its records have been fetched, see {@link SlimefunChunkData#isLoading()}.
+     * The {@link SlimefunChunkDataLoadEvent} is called on the main thread once the data has been published,
+     * the tickers of the chunk are only started then if it has not been unloaded in the meantime.
+     *
+     * @param chunk      the loaded {@link Chunk}
+     * @param isNewChunk whether the chunk has just been generated
+     */
+    public void loadChunkAsync(Chunk chunk, boolean isNewChunk) {
         checkDestroy();
+        var chunkData = prepareChunkLoad(chunk, isNewChunk);
+
+        if (chunkData == null || !chunkData.startLoading()) {
+            return;
+        }
+
+        scheduleReadTask(() -> {
+            try {
+                if (loadChunkRecords(chunkData, false)) {
+                    Slimefun.runSync(() -> {
+                        if (isChunkDataActive(chunkData)) {
+                            restoreChunkTickers(chunkData);
+                        }
+                        Bukkit.getPluginManager().callEvent(new SlimefunChunkDataLoadEvent(chunkData));
+                    });
+                }
+            } catch (Throwable e) {
+                logger.log(Level.SEVERE, "加载区块数据失败: " + chunkData.getKey(), e);
+            } finally {
+                chunkData.finishLoading();
+            }
+        });
+    }
+
+    /**
+     * Gets the chunk data ready to be loaded.
+     *
+     * @return the {@link SlimefunChunkData} which still needs to be loaded, or null if it is already loaded
+     */
+    @Nullable private SlimefunChunkData prepareChunkLoad(Chunk chunk, boolean isNewChunk) {
         var chunkData = getChunkDataCache(chunk, true);
 
+        if (pendingUnloadChunks.remove(chunkData.getKey()) != null) {
+            // Loaded again within the grace period, the cache is still valid
+            restoreChunkTickers(chunkData);
+        }
+
         if (isNewChunk) {
             chunkData.setIsDataLoaded(true);
             Bukkit.getPluginManager().callEvent(new SlimefunChunkDataLoadEvent(chunkData));
+            return null;
+        }
+
+        return chunkData.isDataLoaded() ? null : chunkData;
+    }
+
+    private boolean loadChunkRecords(SlimefunChunkData chunkData, boolean enableTickers) {
+        return !loadChunkRecords(List.of(chunkData), enableTickers).isEmpty();
+    }
+
+    /**
+     * Whether the chunk data is still cached for a loaded chunk, i.e. it has not been unloaded since.
+     */
+    private boolean isChunkDataActive(SlimefunChunkData chunkData) {
+        return loadedChunk.get(chunkData.getKey()) == chunkData
+                && !pendingUnloadChunks.containsKey(chunkData.getKey())
+                && chunkData.getChunk().isLoaded();
+    }
+
+    /**
+     * Loads the given chunks with a few set-based queries instead of a few queries per block.
+     * <p>
+     * The chunk data, block records, block data and inventories of all chunks are fetched at once,
+     * every block which loads its data by default is hydrated in the same pass.
+     * A chunk is only marked as loaded after all of its records have been added to the cache.
+     *
+     * @param enableTickers whether to start the tickers of the hydrated blocks right away
+     * @return the chunks which have been loaded by this call
+     */
+    private List<SlimefunChunkData> loadChunkRecords(List<SlimefunChunkData> chunks, boolean enableTickers) {
+        // Always lock in the same order, so two bulk loads cannot wait for each other
+        var lockKeys = new ArrayList<ChunkKey>(chunks.size());
+        chunks.stream()
+                .sorted(Comparator.comparing(SlimefunChunkData::getKey))
+                .forEach(chunkData -> lockKeys.add(new ChunkKey(DataScope.CHUNK_DATA, chunkData.getChunk())));
+
+        lockKeys.forEach(lock::lock);
+        try {
+            var toLoad = new LinkedHashMap<String, SlimefunChunkData>();
+            for (var chunkData : chunks) {
+                if (!chunkData.isDataLoaded()) {
+                    toLoad.put(chunkData.getKey(), chunkData);
+                }
+            }
+
+            if (toLoad.isEmpty()) {
+                return List.of();
+            }
+
+            var chunkKeys = new ArrayList<>(toLoad.keySet());
+            var chunkRecords =
+                    getDataInChunks(DataScope.CHUNK_DATA, Set.of(FieldKey.DATA_KEY, FieldKey.DATA_VALUE), chunkKeys);
+            var blockRecords =
+                    getDataInChunks(DataScope.BLOCK_RECORD, Set.of(FieldKey.LOCATION, FieldKey.SLIMEFUN_ID), chunkKeys);
+
+            var toHydrate = new HashMap<String, SlimefunBlockData>();
+            for (var block : blockRecords) {
+                var chunkData = toLoad.get(block.get(FieldKey.CHUNK));
+                var lKey = block.get(FieldKey.LOCATION);
+                var sfId = block.get(FieldKey.SLIMEFUN_ID);
+                var sfItem = SlimefunItem.getById(sfId);
+                if (chunkData == null || sfItem == null) {
+                    continue;
+                }
+
+                if (chunkData.getBlockCacheInternal(lKey) == null) {
+                    chunkData.addBlockCacheInternal(new SlimefunBlockData(LocationUtils.toLocation(lKey), sfId), false);
+                }
+
+                // A block removed or replaced in the meantime wins over the stored record
+                var blockData = chunkData.getBlockCacheInternal(lKey);
+                if (blockData != null && !blockData.isDataLoaded() && sfItem.loadDataByDefault()) {
+                    toHydrate.put(lKey, blockData);
+                }
+            }
+
+            if (!toHydrate.isEmpty()) {
+                var dataRecords = groupByLocation(getDataInChunks(
+                        DataScope.BLOCK_DATA, Set.of(FieldKey.DATA_KEY, FieldKey.DATA_VALUE), chunkKeys));
+                var invRecords = groupByLocation(getDataInChunks(
+                        DataScope.BLOCK_INVENTORY,
+                        Set.of(FieldKey.INVENTORY_SLOT, FieldKey.INVENTORY_ITEM),
+                        chunkKeys));
+
+                toHydrate.forEach((lKey, blockData) -> {
+                    var key = getBlockDataKey(blockData);
+                    lock.lock(key);
+                    try {
+                        if (!blockData.isDataLoaded()) {
+                            hydrateBlockData(
+                                    blockData,
+                                    dataRecords.getOrDefault(lKey, List.of()),
+                                    invRecords.getOrDefault(lKey, List.of()),
+                                    enableTickers);
+                        }
+                    } finally {
+                        lock.unlock(key);
+                    }
+                });
+            }
+
+            for (var data : chunkRecords) {
+                var chunkData = toLoad.get(data.get(FieldKey.CHUNK));
+                if (chunkData != null) {
+                    chunkData.setCacheInternal(
+                            data.get(FieldKey.DATA_KEY),
+                            DataUtils.blockDataDebase64(data.get(FieldKey.DATA_VALUE)),
+                            false);
+                }
+            }
+
+            toLoad.values().forEach(chunkData -> chunkData.setIsDataLoaded(true));
+            return new ArrayList<>(toLoad.values());
+        } finally {
+            for (var i = lockKeys.size() - 1; i >= 0; i--) {
+                lock.unlock(lockKeys.get(i));
+            }
+        }
+    }
+
+    private static Map<String, List<RecordSet>> groupByLocation(List<RecordSet> records) {
+        var re = new HashMap<String, List<RecordSet>>();
+        records.forEach(record -> re.computeIfAbsent(record.get(FieldKey.LOCATION), k -> new ArrayList<>())
+                .add(record));
+        return re;
+    }
+
+    /**
+     * Marks the chunk as unloaded: saves its pending changes, stops its tickers and
+     * drops its cached data after the grace period, unless the chunk gets loaded again.
+     *
+     * @param chunk the unloaded {@link Chunk}
+     */
+    public void unloadChunk(Chunk chunk) {
+        if (!enableChunkDataUnload) {
             return;
         }
+        checkDestroy();
 
-        if (chunkData.isDataLoaded()) {
+        var chunkData = getChunkDataCache(chunk, false);
+        if (chunkData == null) {
             return;
         }
 
-        loadChunkData(chunkData);
+        for (var blockData : chunkData.getAllCacheInternal()) {
+            if (!blockData.isDataLoaded() || blockData.isPendingRemove()) {
+                continue;
+            }
 
-        var key = new RecordKey(DataScope.BLOCK_RECORD);
-        key.addField(FieldKey.LOCATION);
-        key.addField(FieldKey.SLIMEFUN_ID);
-        key.addCondition(FieldKey.CHUNK, chunkData.getKey());
+            var menu = blockData.getBlockMenu();
+            if (menu != null) {
+                InventoryUtil.closeInventory(menu.toInventory());
+                saveBlockInventory(blockData);
+            }
 
-        getData(key).forEach(block -> {
-            var lKey = block.get(FieldKey.LOCATION);
-            var sfId = block.get(FieldKey.SLIMEFUN_ID);
-            var sfItem = SlimefunItem.getById(sfId);
-            if (sfItem == null) {
-                return;
+            if (Slimefun.getRegistry().getTickerBlocks().contains(blockData.getSfId())) {
+                Slimefun.getTickerTask().disableTicker(blockData.getLocation());
+            }
+        }
+
+        executeDelayedTasksInChunk(chunk);
+        pendingUnloadChunks.put(chunkData.getKey(), System.currentTimeMillis() + unloadGracePeriodMillis);
+    }
+
+    private void evictUnloadedChunks() {
+        if (pendingUnloadChunks.isEmpty()) {
+            return;
+        }
+
+        var now = System.currentTimeMillis();
+        var it = pendingUnloadChunks.entrySet().iterator();
+        while (it.hasNext()) {
+            var entry = it.next();
+            if (entry.getValue() > now) {
+                continue;
             }
 
-            var cache = getBlockDataFromCache(chunkData.getKey(), lKey);
-            var blockData = cache == null ? new SlimefunBlockData(LocationUtils.toLocation(lKey), sfId) : cache;
-            chunkData.addBlockCacheInternal(blockData, false);
+            var chunkData = loadedChunk.get(entry.getKey());
+            if (chunkData == null) {
+                it.remove();
+                continue;
+            }
 
-            if (sfItem.loadDataByDefault()) {
-                scheduleReadTask(() -> loadBlockData(blockData));
+            // Evicting now would publish the pending load into a dropped cache
+            if (chunkData.isLoading()) {
+                continue;
             }
-        });
-        Bukkit.getPluginManager().callEvent(new SlimefunChunkDataLoadEvent(chunkData));
+
+            var chunk = chunkData.getChunk();
+            if (chunk.isLoaded()) {
+                it.remove();
+                restoreChunkTickers(chunkData);
+                continue;
+            }
+
+            // Changes made while the chunk was unloaded, e.g. by cargo or addons
+            executeDelayedTasksInChunk(chunk);
+
+            // Wait until the queued writes are done, or a reload may read stale data
+            if (hasScheduledWriteTaskInChunk(entry.getKey())) {
+                continue;
+            }
+
+            it.remove();
+            if (loadedChunk.remove(entry.getKey(), chunkData)) {
+                removeChunkIndex(chunkData);
+            }
+            chunkData.getAllCacheInternal().forEach(blockData -> invSnapshots.remove(blockData.getKey()));
+            evictedChunkCount++;
+        }
+    }
+
+    private void restoreChunkTickers(SlimefunChunkData chunkData) {
+        for (var blockData : chunkData.getAllCacheInternal()) {
+            if (!blockData.isDataLoaded() || blockData.isPendingRemove()) {
+                continue;
+            }
+
+            var sfItem = SlimefunItem.getById(blockData.getSfId());
+            if (sfItem != null && sfItem.isTicking()) {
+                Slimefun.getTickerTask().enableTicker(blockData.getLocation());
+            }
+        }
+    }
+
+    private void executeDelayedTasksInChunk(Chunk chunk) {
+        flushEnergyCharges(data -> isInChunk(data.getLocation(), chunk));
+
+        synchronized (delayedWriteTasks) {
+            var it = delayedWriteTasks.entrySet().iterator();
+            while (it.hasNext()) {
+                var next = it.next();
+                if (isInChunk(next.getKey().getParent(), chunk)) {
+                    next.getValue().runUnsafely();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static boolean isInChunk(ScopeKey key, Chunk chunk) {
+        if (key instanceof LocationKey locationKey) {
+            return isInChunk(locationKey.getLocation(), chunk);
+        }
+
+        if (key instanceof ChunkKey chunkKey) {
+            return LocationUtils.isSameChunk(chunkKey.getChunk(), chunk);
+        }
+
+        if (key instanceof RecordKey recordKey) {
+            for (var condition : recordKey.getConditions()) {
+                var val = condition.getSecondValue();
+                if (val.contains("%")) {
+                    continue;
+                }
+
+                var matched =
+                        switch (condition.getFirstValue()) {
+                            case CHUNK -> val.equals(LocationUtils.getChunkKey(chunk));
+                            case LOCATION -> isInChunk(LocationUtils.toLocation(val), chunk);
+                            default -> false;
+                        };
+                if (matched) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    @Nullable protected String getChunkKey(ScopeKey key) {
+        if (key instanceof LocationKey locationKey) {
+            var l = locationKey.getLocation();
+            return l.getWorld() == null
+                    ? null
+                    : l.getWorld().getName() + ";" + (l.getBlockX() >> 4) + ":" + (l.getBlockZ() >> 4);
+        }
+
+        if (key instanceof ChunkKey chunkKey) {
+            return LocationUtils.getChunkKey(chunkKey.getChunk());
+        }
+
+        if (key instanceof RecordKey recordKey) {
+            for (var condition : recordKey.getConditions()) {
+                var val = condition.getSecondValue();
+                if (val.contains("%")) {
+                    continue;
+                }
+
+                switch (condition.getFirstValue()) {
+                    case CHUNK -> {
+                        return val;
+                    }
+                    case LOCATION -> {
+                        return toChunkKey(val);
+                    }
+                    default -> {}
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the key of the chunk of a location key, without looking up its world.
+     */
+    @Nullable private static String toChunkKey(String lKey) {
+        var split = lKey.lastIndexOf(';');
+        var coords = lKey.substring(split + 1).split(":");
+        if (split <= 0 || coords.length != 3) {
+            return null;
+        }
+
+        try {
+            return lKey.substring(0, split) + ";" + (Integer.parseInt(coords[0]) >> 4) + ":"
+                    + (Integer.parseInt(coords[2]) >> 4);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean isInChunk(Location l, Chunk chunk) {
+        return l.getWorld() != null
+                && LocationUtils.isSameWorld(l.getWorld(), chunk.getWorld())
+                && l.getBlockX() >> 4 == chunk.getX()
+                && l.getBlockZ() >> 4 == chunk.getZ();
+    }
+
+    public int getLoadedChunkCount() {
+        return loadedChunk.size();
+    }
+
+    public int getLoadedBlockCount() {
+        var re = 0;
+        for (var chunkData : loadedChunk.values()) {
+            re += chunkData.getBlockCacheSize();
+        }
+        return re;
+    }
+
+    public int getInvSnapshotCount() {
+        return invSnapshots.size();
+    }
+
+    public int getPendingUnloadChunkCount() {
+        return pendingUnloadChunks.size();
+    }
+
+    public long getEvictedChunkCount() {
+        return evictedChunkCount;
     }
 
     public void loadWorld(World world) {
         var start = System.currentTimeMillis();
         var worldName = world.getName();
         logger.log(Level.INFO, "正在加载世界 {0} 的 Slimefun 方块数据...", worldName);
-        var chunkKeys = new HashSet<String>();
-        var key = new RecordKey(DataScope.CHUNK_DATA);
-        key.addField(FieldKey.CHUNK);
-        key.addCondition(FieldKey.CHUNK, worldName + ";%");
-        getData(key, true).forEach(data -> chunkKeys.add(data.get(FieldKey.CHUNK)));
-
-        key = new RecordKey(DataScope.BLOCK_RECORD);
-        key.addField(FieldKey.CHUNK);
-        key.addCondition(FieldKey.CHUNK, world.getName() + ";%");
-        getData(key, true).forEach(data -> chunkKeys.add(data.get(FieldKey.CHUNK)));
+        var chunkKeys = collectChunkKeys(world);
+
+        var chunks = new ArrayList<SlimefunChunkData>(BULK_LOAD_CHUNKS);
+        for (var cKey : chunkKeys) {
+            chunks.add(getChunkDataCache(LocationUtils.toChunk(world, cKey), true));
+            if (chunks.size() >= BULK_LOAD_CHUNKS) {
+                loadChunksInBulk(chunks);
+                chunks.clear();
+            }
+        }
+        loadChunksInBulk(chunks);
 
-        chunkKeys.forEach(cKey -> loadChunk(LocationUtils.toChunk(world, cKey), false));
         logger.log(
                 Level.INFO, "世界 {0} 数据加载完成, 耗时 {1}ms", new Object[] {worldName, (System.currentTimeMillis() - start)});
     }
 
-    private void loadChunkData(SlimefunChunkData chunkData) {
-        if (chunkData.isDataLoaded()) {
+    /**
+     * Streams the keys of every chunk in the given world which has chunk data or blocks stored.
+     */
+    private Set<String> collectChunkKeys(World world) {
+        var chunkKeys = new HashSet<String>();
+        for (var scope : List.of(DataScope.CHUNK_DATA, DataScope.BLOCK_RECORD)) {
+            var key = new RecordKey(scope);
+            key.addField(FieldKey.CHUNK);
+            key.addCondition(FieldKey.WORLD, world.getName());
+            forEachData(key, true, data -> chunkKeys.add(data.get(FieldKey.CHUNK)));
+        }
+        return chunkKeys;
+    }
+
+    private void loadChunksInBulk(List<SlimefunChunkData> chunks) {
+        if (chunks.isEmpty()) {
             return;
         }
-        var key = new RecordKey(DataScope.CHUNK_DATA);
-        key.addField(FieldKey.DATA_KEY);
-        key.addField(FieldKey.DATA_VALUE);
-        key.addCondition(FieldKey.CHUNK, chunkData.getKey());
 
-        lock.lock(key);
-        try {
-            if (chunkData.isDataLoaded()) {
-                return;
-            }
-            getData(key)
-                    .forEach(data -> chunkData.setCacheInternal(
-                            data.get(FieldKey.DATA_KEY),
-                            DataUtils.blockDataDebase64(data.get(FieldKey.DATA_VALUE)),
-                            false));
-            chunkData.setIsDataLoaded(true);
-        } finally {
-            lock.unlock(key);
+        for (var chunkData : loadChunkRecords(chunks, true)) {
+            Bukkit.getPluginManager().callEvent(new SlimefunChunkDataLoadEvent(chunkData));
         }
     }
 
@@ -430,10 +1196,7 @@ public class BlockDataController extends ADataController {
         if (blockData.isDataLoaded()) {
             return;
         }
-        var key = new RecordKey(DataScope.BLOCK_DATA);
-        key.addCondition(FieldKey.LOCATION, blockData.getKey());
-        key.addField(FieldKey.DATA_KEY);
-        key.addField(FieldKey.DATA_VALUE);
+        var key = getBlockDataKey(blockData);
 
         lock.lock(key);
         try {
@@ -441,41 +1204,62 @@ public class BlockDataController extends ADataController {
                 return;
             }
 
-            getData(key)
-                    .forEach(recordSet -> blockData.setCacheInternal(
-                            recordSet.get(FieldKey.DATA_KEY),
-                            DataUtils.blockDataDebase64(recordSet.get(FieldKey.DATA_VALUE)),
-                            false));
-            blockData.setIsDataLoaded(true);
-
-            var menuPreset = BlockMenuPreset.getPreset(blockData.getSfId());
-            if (menuPreset != null) {
+            List<RecordSet> invRecords = List.of();
+            if (BlockMenuPreset.getPreset(blockData.getSfId()) != null) {
                 var menuKey = new RecordKey(DataScope.BLOCK_INVENTORY);
                 menuKey.addCondition(FieldKey.LOCATION, blockData.getKey());
                 menuKey.addField(FieldKey.INVENTORY_SLOT);
                 menuKey.addField(FieldKey.INVENTORY_ITEM);
-
-                var inv = new ItemStack[54];
-                getData(menuKey)
-                        .forEach(record -> inv[record.getInt(FieldKey.INVENTORY_SLOT)] =
-                                record.getItemStack(FieldKey.INVENTORY_ITEM));
-                blockData.setBlockMenu(new BlockMenu(menuPreset, blockData.getLocation(), inv));
-
-                var content = blockData.getMenuContents();
-                if (content != null) {
-                    invSnapshots.put(blockData.getKey(), InvStorageUtils.getInvSnapshot(content));
-                }
+                invRecords = getData(menuKey);
             }
 
-            var sfItem = SlimefunItem.getById(blockData.getSfId());
-            if (sfItem != null && sfItem.isTicking()) {
-                Slimefun.getTickerTask().enableTicker(blockData.getLocation());
-            }
+            hydrateBlockData(blockData, getData(key), invRecords, true);
         } finally {
             lock.unlock(key);
         }
     }
 
+    private static RecordKey getBlockDataKey(SlimefunBlockData blockData) {
+        var key = new RecordKey(DataScope.BLOCK_DATA);
+        key.addCondition(FieldKey.LOCATION, blockData.getKey());
+        key.addField(FieldKey.DATA_KEY);
+        key.addField(FieldKey.DATA_VALUE);
+        return key;
+    }
+
+    /**
+     * Fills the block data with its fetched records, the caller has to hold the lock of {@link #getBlockDataKey}.
+     */
+    private void hydrateBlockData(
+            SlimefunBlockData blockData,
+            List<RecordSet> dataRecords,
+            List<RecordSet> invRecords,
+            boolean enableTicker) {
+        dataRecords.forEach(recordSet -> blockData.setCacheInternal(
+                recordSet.get(FieldKey.DATA_KEY),
+                DataUtils.blockDataDebase64(recordSet.get(FieldKey.DATA_VALUE)),
+                false));
+        blockData.setIsDataLoaded(true);
+
+        var menuPreset = BlockMenuPreset.getPreset(blockData.getSfId());
+        if (menuPreset != null) {
+            var inv = new ItemStack[54];
+            invRecords.forEach(record ->
+                    inv[record.getInt(FieldKey.INVENTORY_SLOT)] = record.getItemStack(FieldKey.INVENTORY_ITEM));
+            blockData.setBlockMenu(new BlockMenu(menuPreset, blockData.getLocation(), inv));
+
+            var content = blockData.getMenuContents();
+            if (content != null) {
+                invSnapshots.put(blockData.getKey(), InvStorageUtils.getInvSnapshot(content));
+            }
+        }
+
+        var sfItem = SlimefunItem.getById(blockData.getSfId());
+        if (enableTicker && sfItem != null && sfItem.isTicking()) {
+            Slimefun.getTickerTask().enableTicker(blockData.getLocation());
+        }
+    }
+
     public void loadBlockDataAsync(SlimefunBlockData blockData, IAsyncReadCallback<SlimefunBlockData> callback) {
         scheduleReadTask(() -> {
             loadBlockData(blockData);
@@ -545,6 +1329,9 @@ public class BlockDataController extends ADataController {
     public void removeAllDataInChunk(Chunk chunk) {
         var cKey = LocationUtils.getChunkKey(chunk);
         var cache = loadedChunk.remove(cKey);
+        if (cache != null) {
+            removeChunkIndex(cache);
+        }
 
         if (cache != null && cache.isDataLoaded()) {
             cache.getAllBlockData().forEach(this::clearBlockCacheAndTasks);
@@ -572,10 +1359,11 @@ public class BlockDataController extends ADataController {
 
         // 3. remove from database
         var prefix = world.getName() + ";";
-        deleteChunkAndBlockDataDirectly(prefix + "%");
+        deleteWorldDataDirectly(world.getName());
 
         // 4. remove chunk cache
         loadedChunk.entrySet().removeIf(entry -> entry.getKey().startsWith(prefix));
+        chunkIndex.remove(world.getName());
     }
 
     public void removeAllDataInWorldAsync(World world, Runnable onFinishedCallback) {
@@ -598,7 +1386,7 @@ public class BlockDataController extends ADataController {
 
     public void removeFromAllChunkInWorld(World world, String key) {
         var req = new RecordKey(DataScope.CHUNK_DATA);
-        req.addCondition(FieldKey.CHUNK, world.getName() + ";%");
+        req.addCondition(FieldKey.WORLD, world.getName());
         req.addCondition(FieldKey.DATA_KEY, key);
         deleteData(req);
         getAllLoadedChunkData(world).forEach(data -> data.removeData(key));
@@ -619,10 +1407,18 @@ public class BlockDataController extends ADataController {
         reqKey.addField(FieldKey.INVENTORY_ITEM);
 
         if (enableDelayedSaving) {
+            // Only a copy of the item is taken here, it is serialized once the journal segment is written
+            var inv = journal == null ? null : blockData.getMenuContents();
+            var item = inv != null && slot < inv.length && inv[slot] != null ? inv[slot].clone() : null;
             scheduleDelayedUpdateTask(
                     new LinkedKey(scopeKey, reqKey),
                     () -> scheduleBlockInvUpdate(
-                            scopeKey, reqKey, blockData.getKey(), blockData.getMenuContents(), slot));
+                            scopeKey, reqKey, blockData.getKey(), blockData.getMenuContents(), slot),
+                    () -> new DelayedWriteJournal.Entry(
+                            DelayedWriteJournal.EntryType.BLOCK_INVENTORY,
+                            blockData.getKey(),
+                            String.valueOf(slot),
+                            item == null ? null : DataUtils.itemStack2String(item)));
         } else {
             scheduleBlockInvUpdate(scopeKey, reqKey, blockData.getKey(), blockData.getMenuContents(), slot);
         }
@@ -642,14 +1438,58 @@ public class BlockDataController extends ADataController {
         }
     }
 
+    void scheduleEnergyChargeFlush(SlimefunBlockData blockData) {
+        dirtyCharges.add(blockData);
+    }
+
+    private void flushEnergyCharges(Predicate<SlimefunBlockData> filter) {
+        var it = dirtyCharges.iterator();
+        while (it.hasNext()) {
+            var blockData = it.next();
+            // Keep it for the next flush, the removal may still get cancelled
+            if (blockData.isPendingRemove() || !filter.test(blockData)) {
+                continue;
+            }
+
+            it.remove();
+            // Removed or moved blocks must not write their charge back
+            if (getBlockDataFromCache(blockData.getLocation()) == blockData) {
+                flushEnergyCharge(blockData);
+            }
+        }
+    }
+
+    private void flushEnergyCharge(SlimefunBlockData blockData) {
+        if (blockData.flushCharge()) {
+            scheduleDelayedBlockDataUpdate(blockData, SlimefunBlockData.ENERGY_CHARGE_KEY);
+        }
+    }
+
     @Override
     public void shutdown() {
+        if (unloadTask != null) {
+            unloadTask.cancel();
+        }
+        if (chargeFlushTask != null) {
+            chargeFlushTask.cancel();
+            flushEnergyCharges(data -> true);
+        }
         saveAllBlockInventories();
         if (enableDelayedSaving) {
             looperTask.cancel();
             executeAllDelayedTasks();
         }
         super.shutdown();
+
+        // Every delayed update has been committed now
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "关闭延迟写入日志失败", e);
+            }
+            journal = null;
+        }
     }
 
     void scheduleDelayedBlockDataUpdate(SlimefunBlockData blockData, String key) {
@@ -658,9 +1498,12 @@ public class BlockDataController extends ADataController {
         reqKey.addCondition(FieldKey.LOCATION, blockData.getKey());
         reqKey.addCondition(FieldKey.DATA_KEY, key);
         if (enableDelayedSaving) {
+            var value = blockData.getData(key);
             scheduleDelayedUpdateTask(
                     new LinkedKey(scopeKey, reqKey),
-                    () -> scheduleBlockDataUpdate(scopeKey, reqKey, blockData.getKey(), key, blockData.getData(key)));
+                    () -> scheduleBlockDataUpdate(scopeKey, reqKey, blockData.getKey(), key, blockData.getData(key)),
+                    () -> new DelayedWriteJournal.Entry(
+                            DelayedWriteJournal.EntryType.BLOCK_DATA, blockData.getKey(), key, value));
         } else {
             scheduleBlockDataUpdate(scopeKey, reqKey, blockData.getKey(), key, blockData.getData(key));
         }
@@ -668,6 +1511,12 @@ public class BlockDataController extends ADataController {
 
     private void removeDelayedBlockDataUpdates(ScopeKey scopeKey) {
         synchronized (delayedWriteTasks) {
+            var journal = this.journal;
+            if (journal != null && scopeKey instanceof LocationKey locationKey) {
+                journal.append(
+                        DelayedWriteJournal.Entry.removeBlock(LocationUtils.getLocKey(locationKey.getLocation())));
+            }
+
             delayedWriteTasks
                     .entrySet()
                     .removeIf(each -> scopeKey.equals(each.getKey().getParent()));
@@ -694,16 +1543,30 @@ public class BlockDataController extends ADataController {
         reqKey.addCondition(FieldKey.DATA_KEY, key);
 
         if (enableDelayedSaving) {
+            var value = chunkData.getData(key);
             scheduleDelayedUpdateTask(
                     new LinkedKey(scopeKey, reqKey),
-                    () -> scheduleChunkDataUpdate(scopeKey, reqKey, chunkData.getKey(), key, chunkData.getData(key)));
+                    () -> scheduleChunkDataUpdate(scopeKey, reqKey, chunkData.getKey(), key, chunkData.getData(key)),
+                    () -> new DelayedWriteJournal.Entry(
+                            DelayedWriteJournal.EntryType.CHUNK_DATA, chunkData.getKey(), key, value));
         } else {
             scheduleChunkDataUpdate(scopeKey, reqKey, chunkData.getKey(), key, chunkData.getData(key));
         }
     }
 
-    private void scheduleDelayedUpdateTask(LinkedKey key, Runnable run) {
+    /**
+     * @param journalEntry builds the journal record when the journal segment is written,
+     *                     it must only use values captured by the caller
+     */
+    private void scheduleDelayedUpdateTask(
+            LinkedKey key, Runnable run, Supplier<DelayedWriteJournal.Entry> journalEntry) {
         synchronized (delayedWriteTasks) {
+            // Journaled under the same lock as the journal rotation, see rotateDelayedWriteJournal
+            var journal = this.journal;
+            if (journal != null) {
+                journal.append(journalEntry);
+            }
+
             var task = delayedWriteTasks.get(key);
             if (task != null && !task.isExecuted()) {
                 task.setRunAfter(delayedSecond, TimeUnit.SECONDS);
@@ -741,11 +1604,22 @@ public class BlockDataController extends ADataController {
                     if (!initLoading && chunkDataLoadMode.readCacheOnly()) {
                         re.setIsDataLoaded(true);
                     }
+                    chunkIndex
+                            .computeIfAbsent(chunk.getWorld().getName(), w -> new LongKeyIndex<>())
+                            .put(LocationUtils.getPackedChunkKey(chunk.getX(), chunk.getZ()), re);
                     return re;
                 })
                 : loadedChunk.get(LocationUtils.getChunkKey(chunk));
     }
 
+    private void removeChunkIndex(SlimefunChunkData chunkData) {
+        var chunk = chunkData.getChunk();
+        var index = chunkIndex.get(chunk.getWorld().getName());
+        if (index != null) {
+            index.remove(LocationUtils.getPackedChunkKey(chunk.getX(), chunk.getZ()), chunkData);
+        }
+    }
+
     private void deleteChunkAndBlockDataDirectly(String cKey) {
         var req = new RecordKey(DataScope.BLOCK_RECORD);
         req.addCondition(FieldKey.CHUNK, cKey);
@@ -756,6 +1630,16 @@ public class BlockDataController extends ADataController {
         deleteData(req);
     }
 
+    private void deleteWorldDataDirectly(String worldName) {
+        var req = new RecordKey(DataScope.BLOCK_RECORD);
+        req.addCondition(FieldKey.WORLD, worldName);
+        deleteData(req);
+
+        req = new RecordKey(DataScope.CHUNK_DATA);
+        req.addCondition(FieldKey.WORLD, worldName);
+        deleteData(req);
+    }
+
     private void clearBlockCacheAndTasks(SlimefunBlockData blockData) {
         var l = blockData.getLocation();
         if (blockData.isDataLoaded() && Slimefun.getRegistry().getTickerBlocks().contains(blockData.getSfId())) {
@@ -13,6 +13,10 @@ public class ChunkKey extends ScopeKey {
         this.chunk = chunk;
     }
 
+    public Chunk getChunk() {
+        return chunk;
+    }
+
     @Override
     protected String getKeyStr() {
         return scope + "/" + LocationUtils.getChunkKey(chunk);
@@ -0,0 +1,384 @@
+package com.xzavier0722.mc.plugin.slimefun4.storage.controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An append-only write-ahead journal for the delayed block data updates.
+ * <p>
+ * Every delayed update is queued and written to a memory-mapped segment file with the next {@link #force()}
+ * or {@link #rotate()}, so pending changes survive a crash of the server. Building the record, like serializing
+ * an item, happens only then and not on the thread which made the change. The journal consists of two segments: at a checkpoint the active segment
+ * is sealed and appends continue in the other one. The sealed segment gets invalidated once every
+ * write scheduled before the checkpoint has been committed.
+ * <p>
+ * Each record is stored as {@code [length][crc32][payload]}, a zero length marks the end of a segment.
+ * A torn record at the end of a segment is detected by its checksum and ignored on replay.
+ * Segments are reused instead of truncated, since a mapped file cannot be truncated on every platform.
+ */
+final class DelayedWriteJournal {
+    static final File DEFAULT_DIR = new File("data-storage/Slimefun/journal");
+
+    private static final int MAGIC = 0x53465754;
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int INITIAL_CAPACITY = 4 * 1024 * 1024;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private final Segment[] segments = new Segment[2];
+    private int active;
+    private boolean hasSealed;
+    private boolean hasRecords;
+    private long epoch;
+    private boolean dirty;
+
+    /**
+     * The queued records, in the order they were appended. Guarded by itself rather than the journal,
+     * so appending never waits for records being built or written.
+     */
+    private final List<Supplier<Entry>> pending = new ArrayList<>();
+
+    DelayedWriteJournal(@Nonnull File dir) throws IOException {
+        Files.createDirectories(dir.toPath());
+        delete(dir);
+        segments[0] = new Segment(getSegmentFile(dir, 0));
+        segments[1] = new Segment(getSegmentFile(dir, 1));
+        segments[active].reset(++epoch);
+    }
+
+    void append(@Nonnull Entry entry) {
+        append(() -> entry);
+    }
+
+    /**
+     * Queues a record, it is built and written to the active segment by the next {@link #writePending()}.
+     *
+     * @param entry builds the record, it must only use values captured at the time of the update
+     */
+    void append(@Nonnull Supplier<Entry> entry) {
+        synchronized (pending) {
+            pending.add(entry);
+        }
+    }
+
+    /**
+     * Builds and writes every queued record to the active segment.
+     */
+    synchronized void writePending() {
+        List<Supplier<Entry>> entries;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            entries = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        for (var entry : entries) {
+            write(entry.get());
+        }
+    }
+
+    private void write(@Nonnull Entry entry) {
+        var payload = entry.encode();
+        var crc = new CRC32();
+        crc.update(payload);
+
+        try {
+            var segment = segments[active];
+            segment.ensureCapacity(Integer.BYTES * 2 + payload.length + Integer.BYTES);
+
+            var buffer = segment.buffer;
+            var start = buffer.position();
+            buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+            buffer.position(start + Integer.BYTES * 2);
+            buffer.put(payload);
+            buffer.putInt(buffer.position(), 0);
+            // The length is written last, so a reader never sees a record before it is complete
+            buffer.putInt(start, payload.length);
+            hasRecords = true;
+            dirty = true;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to append to the delayed write journal", e);
+        }
+    }
+
+    /**
+     * Seals the active segment and continues in the other one.
+     *
+     * @return false if the previously sealed segment has not been released yet, or there is nothing to seal
+     */
+    synchronized boolean rotate() {
+        if (hasSealed) {
+            return false;
+        }
+
+        writePending();
+        if (!hasRecords) {
+            return false;
+        }
+
+        segments[active].force();
+        active ^= 1;
+        segments[active].reset(++epoch);
+        hasSealed = true;
+        hasRecords = false;
+        dirty = false;
+        return true;
+    }
+
+    /**
+     * Invalidates the sealed segment, every record in it has been committed.
+     */
+    synchronized void releaseSealed() {
+        if (!hasSealed) {
+            return;
+        }
+
+        segments[active ^ 1].invalidate();
+        hasSealed = false;
+    }
+
+    synchronized void force() {
+        writePending();
+        if (dirty) {
+            segments[active].force();
+            dirty = false;
+        }
+    }
+
+    /**
+     * Closes the journal after every pending update has been committed.
+     */
+    synchronized void close() throws IOException {
+        synchronized (pending) {
+            pending.clear();
+        }
+
+        for (var segment : segments) {
+            segment.invalidate();
+            segment.close();
+        }
+    }
+
+    /**
+     * Reads the journal left in the given directory.
+     * Only the latest update of each key is kept, updates of a removed block are dropped.
+     *
+     * @return the updates to apply, in journal order
+     */
+    @Nonnull
+    static List<Entry> replay(@Nonnull File dir) throws IOException {
+        var segments = new ArrayList<Map.Entry<Long, ByteBuffer>>();
+        for (var i = 0; i < 2; i++) {
+            var file = getSegmentFile(dir, i);
+            if (!file.isFile() || file.length() < HEADER_SIZE) {
+                continue;
+            }
+
+            var buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            if (buffer.getInt() == MAGIC) {
+                segments.add(Map.entry(buffer.getLong(), buffer));
+            }
+        }
+        segments.sort(Map.Entry.comparingByKey());
+
+        var seq = 0;
+        var latest = new LinkedHashMap<String, Map.Entry<Integer, Entry>>();
+        var removedAt = new HashMap<String, Integer>();
+        for (var segment : segments) {
+            var buffer = segment.getValue();
+            Entry entry;
+            while ((entry = readEntry(buffer)) != null) {
+                seq++;
+                if (entry.type() == EntryType.REMOVE_BLOCK) {
+                    removedAt.put(entry.key(), seq);
+                } else {
+                    var id = entry.type().ordinal() + ";" + entry.key() + ";" + entry.field();
+                    latest.remove(id);
+                    latest.put(id, Map.entry(seq, entry));
+                }
+            }
+        }
+
+        var re = new ArrayList<Entry>(latest.size());
+        for (var each : latest.values()) {
+            var entry = each.getValue();
+            if (entry.type() != EntryType.CHUNK_DATA && each.getKey() < removedAt.getOrDefault(entry.key(), 0)) {
+                continue;
+            }
+            re.add(entry);
+        }
+        return re;
+    }
+
+    static void delete(@Nonnull File dir) throws IOException {
+        for (var i = 0; i < 2; i++) {
+            Files.deleteIfExists(getSegmentFile(dir, i).toPath());
+        }
+    }
+
+    @Nullable private static Entry readEntry(ByteBuffer buffer) {
+        try {
+            var length = buffer.getInt();
+            if (length <= 0 || length > MAX_RECORD_SIZE || length > buffer.remaining() - Integer.BYTES) {
+                return null;
+            }
+
+            var checksum = buffer.getInt();
+            var payload = new byte[length];
+            buffer.get(payload);
+
+            var crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                return null;
+            }
+
+            return Entry.decode(ByteBuffer.wrap(payload));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static File getSegmentFile(File dir, int index) {
+        return new File(dir, "delayed-writes-" + index + ".journal");
+    }
+
+    enum EntryType {
+        BLOCK_DATA,
+        CHUNK_DATA,
+        BLOCK_INVENTORY,
+        REMOVE_BLOCK
+    }
+
+    /**
+     * A single journaled update.
+     *
+     * @param key   the location key, or chunk key for {@link EntryType#CHUNK_DATA}
+     * @param field the data key, or the inventory slot for {@link EntryType#BLOCK_INVENTORY}
+     * @param value the new value, null if it has been removed
+     */
+    record Entry(EntryType type, String key, @Nullable String field, @Nullable String value) {
+        static Entry removeBlock(String lKey) {
+            return new Entry(EntryType.REMOVE_BLOCK, lKey, null, null);
+        }
+
+        private byte[] encode() {
+            var strings = new byte[][] {toBytes(key), toBytes(field), toBytes(value)};
+            var size = 1;
+            for (var each : strings) {
+                size += Integer.BYTES + (each == null ? 0 : each.length);
+            }
+
+            var buffer = ByteBuffer.allocate(size);
+            buffer.put((byte) type.ordinal());
+            for (var each : strings) {
+                if (each == null) {
+                    buffer.putInt(-1);
+                } else {
+                    buffer.putInt(each.length);
+                    buffer.put(each);
+                }
+            }
+            return buffer.array();
+        }
+
+        private static Entry decode(ByteBuffer buffer) {
+            var types = EntryType.values();
+            var type = buffer.get();
+            if (type < 0 || type >= types.length) {
+                throw new IllegalArgumentException("Unknown journal entry type: " + type);
+            }
+
+            var key = readString(buffer);
+            if (key == null) {
+                throw new IllegalArgumentException("Journal entry without key");
+            }
+            return new Entry(types[type], key, readString(buffer), readString(buffer));
+        }
+
+        private static byte[] toBytes(String str) {
+            return str == null ? null : str.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static String readString(ByteBuffer buffer) {
+            var length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+
+            var bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class Segment {
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+
+        private Segment(File file) throws IOException {
+            channel = FileChannel.open(
+                    file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_CAPACITY);
+        }
+
+        private void reset(long epoch) {
+            buffer.clear();
+            buffer.putInt(MAGIC);
+            buffer.putLong(epoch);
+            buffer.putInt(buffer.position(), 0);
+            buffer.force();
+        }
+
+        private void invalidate() {
+            buffer.putInt(0, 0);
+            buffer.force();
+        }
+
+        private void ensureCapacity(int size) throws IOException {
+            if (buffer.remaining() >= size) {
+                return;
+            }
+
+            var capacity = (long) buffer.capacity();
+            while (capacity - buffer.position() < size) {
+                capacity <<= 1;
+            }
+
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IOException("Delayed write journal segment is full");
+            }
+
+            var position = buffer.position();
+            buffer.force();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.position(position);
+        }
+
+        private void force() {
+            buffer.force();
+        }
+
+        private void close() throws IOException {
+            channel.close();
+        }
+    }
+}
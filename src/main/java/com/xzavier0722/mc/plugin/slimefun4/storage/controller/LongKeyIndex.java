@@ -0,0 +1,164 @@
+package com.xzavier0722.mc.plugin.slimefun4.storage.controller;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A minimal open addressing map with primitive long keys.
+ * <p>
+ * Reads are lock-free and allocation-free, writes are serialized on the index itself.
+ * A published key never moves to another slot: removed entries are kept as tombstones
+ * until the table gets rebuilt, so readers never see a half-moved entry.
+ *
+ * @param <V> the value type
+ */
+final class LongKeyIndex<V> {
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final Object TOMBSTONE = new Object();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        var t = table;
+        var i = mix(key) & t.mask;
+        while (true) {
+            var val = VALUES.getAcquire(t.values, i);
+            if (val == null) {
+                return null;
+            }
+
+            if (t.keys[i] == key) {
+                return val == TOMBSTONE ? null : (V) val;
+            }
+            i = (i + 1) & t.mask;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized V put(long key, V value) {
+        var t = table;
+        var i = mix(key) & t.mask;
+        while (true) {
+            var val = t.values[i];
+            if (val == null) {
+                break;
+            }
+
+            if (t.keys[i] == key) {
+                VALUES.setRelease(t.values, i, value);
+                if (val == TOMBSTONE) {
+                    size++;
+                    return null;
+                }
+                return (V) val;
+            }
+            i = (i + 1) & t.mask;
+        }
+
+        if ((t.used + 1) * 2 > t.keys.length) {
+            t = rebuild(size + 1);
+            i = mix(key) & t.mask;
+            while (t.values[i] != null) {
+                i = (i + 1) & t.mask;
+            }
+        }
+
+        // The key has to be visible before the value, readers treat a non-null value as an occupied slot
+        t.keys[i] = key;
+        VALUES.setRelease(t.values, i, value);
+        t.used++;
+        size++;
+        return null;
+    }
+
+    synchronized V remove(long key) {
+        return removeInternal(key, null);
+    }
+
+    /**
+     * Removes the entry only when it is still mapped to the given value.
+     */
+    synchronized boolean remove(long key, V value) {
+        return removeInternal(key, value) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V removeInternal(long key, V expected) {
+        var t = table;
+        var i = mix(key) & t.mask;
+        while (true) {
+            var val = t.values[i];
+            if (val == null) {
+                return null;
+            }
+
+            if (t.keys[i] == key) {
+                if (val == TOMBSTONE || (expected != null && val != expected)) {
+                    return null;
+                }
+
+                VALUES.setRelease(t.values, i, TOMBSTONE);
+                size--;
+                if (t.keys.length > INITIAL_CAPACITY && size * 8 < t.keys.length) {
+                    rebuild(size);
+                }
+                return (V) val;
+            }
+            i = (i + 1) & t.mask;
+        }
+    }
+
+    synchronized void clear() {
+        table = new Table(INITIAL_CAPACITY);
+        size = 0;
+    }
+
+    private Table rebuild(int expectedSize) {
+        var capacity = INITIAL_CAPACITY;
+        while (capacity < expectedSize * 4) {
+            capacity <<= 1;
+        }
+
+        var old = table;
+        var t = new Table(capacity);
+        for (var i = 0; i < old.keys.length; i++) {
+            var val = old.values[i];
+            if (val == null || val == TOMBSTONE) {
+                continue;
+            }
+
+            var j = mix(old.keys[i]) & t.mask;
+            while (t.values[j] != null) {
+                j = (j + 1) & t.mask;
+            }
+            t.keys[j] = old.keys[i];
+            t.values[j] = val;
+            t.used++;
+        }
+
+        // Publishing through the volatile field makes the plain writes above visible
+        table = t;
+        return t;
+    }
+
+    private static int mix(long key) {
+        var h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class Table {
+        private final long[] keys;
+        private final Object[] values;
+        private final int mask;
+        private int used;
+
+        private Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.xzavier0722.mc.plugin.slimefun4.storage.controller;
 
 import com.xzavier0722.mc.plugin.slimefun4.storage.util.LocationUtils;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -11,11 +13,21 @@ import org.bukkit.Location;
 import org.bukkit.inventory.ItemStack;
 
 public class SlimefunBlockData extends ASlimefunDataContainer {
+    public static final String ENERGY_CHARGE_KEY = "energy-charge";
+    private static final int CHARGE_UNRESOLVED = -1;
+
     private final Location location;
     private final String sfId;
     private volatile BlockMenu menu;
     private volatile boolean pendingRemove = false;
 
+    /**
+     * Typed copy of the {@link #ENERGY_CHARGE_KEY} data, it is the source of truth while {@link #chargeDirty} is set.
+     */
+    private volatile int charge = CHARGE_UNRESOLVED;
+
+    private volatile boolean chargeDirty = false;
+
     @ParametersAreNonnullByDefault
     SlimefunBlockData(Location location, String sfId) {
         super(LocationUtils.getLocKey(location));
@@ -25,7 +37,7 @@ public class SlimefunBlockData extends ASlimefunDataContainer {
 
     @ParametersAreNonnullByDefault
     SlimefunBlockData(Location location, SlimefunBlockData other) {
-        super(LocationUtils.getLocKey(location), other);
+        super(LocationUtils.getLocKey(location), syncCharge(other));
         this.location = location;
         this.sfId = other.sfId;
     }
@@ -43,17 +55,112 @@ public class SlimefunBlockData extends ASlimefunDataContainer {
     @ParametersAreNonnullByDefault
     public void setData(String key, String val) {
         checkData();
+        if (ENERGY_CHARGE_KEY.equals(key)) {
+            resetCharge();
+        }
         setCacheInternal(key, val, true);
         Slimefun.getDatabaseManager().getBlockDataController().scheduleDelayedBlockDataUpdate(this, key);
     }
 
     @ParametersAreNonnullByDefault
     public void removeData(String key) {
+        if (ENERGY_CHARGE_KEY.equals(key)) {
+            resetCharge();
+        }
         if (removeCacheInternal(key) != null || !isDataLoaded()) {
             Slimefun.getDatabaseManager().getBlockDataController().scheduleDelayedBlockDataUpdate(this, key);
         }
     }
 
+    @Override
+    @Nullable public String getData(String key) {
+        if (chargeDirty && ENERGY_CHARGE_KEY.equals(key)) {
+            checkData();
+            return String.valueOf(charge);
+        }
+        return super.getData(key);
+    }
+
+    @Nonnull
+    @Override
+    public Map<String, String> getAllData() {
+        syncCharge(this);
+        return super.getAllData();
+    }
+
+    @Nonnull
+    @Override
+    public Set<String> getDataKeys() {
+        syncCharge(this);
+        return super.getDataKeys();
+    }
+
+    /**
+     * This returns the stored energy charge, without parsing the {@link #ENERGY_CHARGE_KEY} data every time.
+     *
+     * @return the stored energy charge
+     */
+    public int getCharge() {
+        checkData();
+        var re = charge;
+        if (re == CHARGE_UNRESOLVED) {
+            var val = getCacheInternal(ENERGY_CHARGE_KEY);
+            re = val == null ? 0 : Integer.parseInt(val);
+            charge = re;
+        }
+        return re;
+    }
+
+    /**
+     * This sets the stored energy charge. The {@link #ENERGY_CHARGE_KEY} data is only updated
+     * when the charge gets flushed by the {@link BlockDataController}.
+     *
+     * @param charge the new energy charge
+     */
+    public void setCharge(int charge) {
+        checkData();
+        var controller = Slimefun.getDatabaseManager().getBlockDataController();
+        if (!controller.isEnergyChargeFlushEnabled()) {
+            setData(ENERGY_CHARGE_KEY, String.valueOf(charge));
+            this.charge = charge;
+            return;
+        }
+
+        this.charge = charge;
+        if (!chargeDirty) {
+            chargeDirty = true;
+            controller.scheduleEnergyChargeFlush(this);
+        }
+    }
+
+    /**
+     * Writes the pending energy charge back to the {@link #ENERGY_CHARGE_KEY} data.
+     *
+     * @return whether there was a pending energy charge
+     */
+    boolean flushCharge() {
+        if (!chargeDirty) {
+            return false;
+        }
+
+        // Clear the flag before reading, a concurrent update will be flushed next time
+        chargeDirty = false;
+        setCacheInternal(ENERGY_CHARGE_KEY, String.valueOf(charge), true);
+        return true;
+    }
+
+    private void resetCharge() {
+        chargeDirty = false;
+        charge = CHARGE_UNRESOLVED;
+    }
+
+    private static SlimefunBlockData syncCharge(SlimefunBlockData data) {
+        if (data.chargeDirty) {
+            data.setCacheInternal(ENERGY_CHARGE_KEY, String.valueOf(data.charge), true);
+        }
+        return data;
+    }
+
     @ParametersAreNullableByDefault
     void setBlockMenu(BlockMenu blockMenu) {
         menu = blockMenu;
@@ -5,7 +5,9 @@ import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -21,12 +23,15 @@ public class SlimefunChunkData extends ASlimefunDataContainer {
             "INVALID_BLOCK_DATA_SF_KEY");
     private final Chunk chunk;
     private final Map<String, SlimefunBlockData> sfBlocks;
+    private final LongKeyIndex<SlimefunBlockData> blockIndex;
+    private final AtomicReference<CompletableFuture<Void>> loading = new AtomicReference<>();
 
     @ParametersAreNonnullByDefault
     SlimefunChunkData(Chunk chunk) {
         super(LocationUtils.getChunkKey(chunk));
         this.chunk = chunk;
         sfBlocks = new ConcurrentHashMap<>();
+        blockIndex = new LongKeyIndex<>();
     }
 
     @Nonnull
@@ -34,6 +39,39 @@ public class SlimefunChunkData extends ASlimefunDataContainer {
         return chunk;
     }
 
+    /**
+     * Whether the data of this chunk is being loaded in the background right now.
+     * Until it has been loaded, {@link #isDataLoaded()} returns false and the chunk data cannot be accessed.
+     *
+     * @return whether the data is being loaded
+     */
+    public boolean isLoading() {
+        return loading.get() != null;
+    }
+
+    boolean startLoading() {
+        return !isDataLoaded() && loading.compareAndSet(null, new CompletableFuture<>());
+    }
+
+    void finishLoading() {
+        var future = loading.getAndSet(null);
+        if (future != null) {
+            future.complete(null);
+        }
+    }
+
+    /**
+     * The returned future completes once the background load of this chunk has finished.
+     * It is already completed if the chunk is not being loaded.
+     *
+     * @return the {@link CompletableFuture} of the current load
+     */
+    @Nonnull
+    CompletableFuture<Void> whenLoaded() {
+        var future = loading.get();
+        return future == null ? CompletableFuture.completedFuture(null) : future;
+    }
+
     @Nonnull
     @ParametersAreNonnullByDefault
     public SlimefunBlockData createBlockData(Location l, String sfId) {
@@ -43,7 +81,7 @@ public class SlimefunChunkData extends ASlimefunDataContainer {
         }
         var re = new SlimefunBlockData(l, sfId);
         re.setIsDataLoaded(true);
-        sfBlocks.put(lKey, re);
+        putBlockCacheInternal(lKey, re);
 
         var preset = BlockMenuPreset.getPreset(sfId);
         if (preset != null) {
@@ -69,7 +107,7 @@ public class SlimefunChunkData extends ASlimefunDataContainer {
             if (isDataLoaded()) {
                 return null;
             }
-            sfBlocks.put(lKey, INVALID_BLOCK_DATA);
+            putBlockCacheInternal(lKey, INVALID_BLOCK_DATA);
         }
         Slimefun.getDatabaseManager().getBlockDataController().removeBlockDirectly(l);
         return re;
@@ -77,25 +115,57 @@ public class SlimefunChunkData extends ASlimefunDataContainer {
 
     void addBlockCacheInternal(SlimefunBlockData data, boolean override) {
         if (override) {
-            sfBlocks.put(data.getKey(), data);
-        } else {
-            sfBlocks.putIfAbsent(data.getKey(), data);
+            putBlockCacheInternal(data.getKey(), data);
+            return;
+        }
+
+        synchronized (blockIndex) {
+            if (sfBlocks.putIfAbsent(data.getKey(), data) == null) {
+                blockIndex.put(getPackedBlockKey(data), data);
+            }
         }
     }
 
+    private void putBlockCacheInternal(String lKey, SlimefunBlockData data) {
+        synchronized (blockIndex) {
+            var old = sfBlocks.put(lKey, data);
+            if (data != INVALID_BLOCK_DATA) {
+                blockIndex.put(getPackedBlockKey(data), data);
+            } else if (old != null && old != INVALID_BLOCK_DATA) {
+                blockIndex.remove(getPackedBlockKey(old));
+            }
+        }
+    }
+
+    private static long getPackedBlockKey(SlimefunBlockData data) {
+        var l = data.getLocation();
+        return LocationUtils.getPackedBlockKey(l.getBlockX(), l.getBlockY(), l.getBlockZ());
+    }
+
     SlimefunBlockData getBlockCacheInternal(String lKey) {
         var re = sfBlocks.get(lKey);
         return re == INVALID_BLOCK_DATA ? null : re;
     }
 
+    SlimefunBlockData getBlockCacheInternal(int x, int y, int z) {
+        return blockIndex.get(LocationUtils.getPackedBlockKey(x, y, z));
+    }
+
     Set<SlimefunBlockData> getAllCacheInternal() {
         var re = new HashSet<>(sfBlocks.values());
         re.removeIf(v -> v == INVALID_BLOCK_DATA);
         return re;
     }
 
+    int getBlockCacheSize() {
+        return sfBlocks.size();
+    }
+
     void removeAllCacheInternal() {
-        sfBlocks.clear();
+        synchronized (blockIndex) {
+            sfBlocks.clear();
+            blockIndex.clear();
+        }
     }
 
     boolean hasBlockCache(String lKey) {
@@ -103,8 +173,15 @@ public class SlimefunChunkData extends ASlimefunDataContainer {
     }
 
     SlimefunBlockData removeBlockDataCacheInternal(String lKey) {
-        var re = isDataLoaded() ? sfBlocks.remove(lKey) : sfBlocks.put(lKey, INVALID_BLOCK_DATA);
-        return re == INVALID_BLOCK_DATA ? null : re;
+        synchronized (blockIndex) {
+            var re = isDataLoaded() ? sfBlocks.remove(lKey) : sfBlocks.put(lKey, INVALID_BLOCK_DATA);
+            if (re == null || re == INVALID_BLOCK_DATA) {
+                return null;
+            }
+
+            blockIndex.remove(getPackedBlockKey(re));
+            return re;
+        }
     }
 
     @ParametersAreNonnullByDefault
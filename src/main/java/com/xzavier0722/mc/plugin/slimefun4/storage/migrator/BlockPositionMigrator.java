@@ -0,0 +1,97 @@
+package com.xzavier0722.mc.plugin.slimefun4.storage.migrator;
+
+import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlCommonAdapter;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.DataScope;
+import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Fills the numeric position columns of block storage schema v2 for rows written before the upgrade.
+ * <p>
+ * The rows are converted in small batches while the server is running, each batch is committed on its own.
+ * A row is done once its world id is set, so an interrupted migration simply continues on the next start.
+ */
+public class BlockPositionMigrator implements IMigrator {
+    private static final int BATCH_SIZE = 500;
+    private static final long PROGRESS_PERIOD_MILLIS = 5000;
+
+    private final SqlCommonAdapter<?> adapter;
+    private volatile boolean migrating = false;
+    private volatile boolean stopped = false;
+
+    public BlockPositionMigrator(SqlCommonAdapter<?> adapter) {
+        this.adapter = adapter;
+    }
+
+    @Override
+    public String getName() {
+        return "BlockPosition";
+    }
+
+    @Override
+    public boolean hasOldData() {
+        return adapter.hasUnmigratedPositions();
+    }
+
+    @Override
+    public MigrateStatus migrateData() {
+        if (migrating) {
+            return MigrateStatus.MIGRATING;
+        }
+
+        migrating = true;
+        try {
+            Slimefun.logger().log(Level.INFO, "正在后台升级方块数据表结构 (v2)...");
+            for (var scope : List.of(DataScope.BLOCK_RECORD, DataScope.CHUNK_DATA)) {
+                if (!migrateScope(scope)) {
+                    Slimefun.logger().log(Level.INFO, "方块数据表结构升级已中断, 将在下次启动时继续");
+                    return MigrateStatus.FAILED;
+                }
+            }
+
+            if (!adapter.completePositionMigration()) {
+                Slimefun.logger().log(Level.WARNING, "仍有方块数据未能升级, 将在下次启动时重试");
+                return MigrateStatus.FAILED;
+            }
+
+            Slimefun.logger().log(Level.INFO, "方块数据表结构升级完成");
+            return MigrateStatus.SUCCESS;
+        } catch (Exception e) {
+            Slimefun.logger().log(Level.SEVERE, "升级方块数据表结构时发生错误, 将在下次启动时继续", e);
+            return MigrateStatus.FAILED;
+        } finally {
+            migrating = false;
+        }
+    }
+
+    private boolean migrateScope(DataScope scope) {
+        var cursor = "";
+        var count = 0;
+        var lastReport = System.currentTimeMillis();
+        while (!stopped) {
+            var keys = adapter.migratePositions(scope, cursor, BATCH_SIZE);
+            if (keys.isEmpty()) {
+                Slimefun.logger().log(Level.INFO, "已升级 " + count + " 条 " + scope + " 数据");
+                return true;
+            }
+
+            count += keys.size();
+            cursor = keys.get(keys.size() - 1);
+
+            var now = System.currentTimeMillis();
+            if (now - lastReport >= PROGRESS_PERIOD_MILLIS) {
+                Slimefun.logger().log(Level.INFO, "正在升级 " + scope + " 数据: 已完成 " + count + " 条");
+                lastReport = now;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops the migration after the current batch, the remaining rows are migrated on the next start.
+     */
+    public void stop() {
+        stopped = true;
+    }
+}
@@ -0,0 +1,163 @@
+package com.xzavier0722.mc.plugin.slimefun4.storage.task;
+
+import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.IDataSourceAdapter;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.WriteOperation;
+import io.github.bakedlibs.dough.collections.Pair;
+import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Drains {@link QueuedWriteTask}s into batches, so the adapter can commit many writes at once.
+ * <p>
+ * Each round takes the next write of every queued task. Writes of the same task therefore keep
+ * their order, while writes of different tasks within a round are grouped by table.
+ */
+public class BatchedWriteLooper implements Runnable {
+    private static final Comparator<Pair<QueuedWriteTask, RecordWriteTask>> ROUND_ORDER = Comparator.comparing(
+                    (Pair<QueuedWriteTask, RecordWriteTask> each) ->
+                            each.getSecondValue().getOperation().key().getScope())
+            .thenComparing(each -> each.getSecondValue().getOperation().isDelete());
+
+    private final IDataSourceAdapter<?> adapter;
+    private final int maxBatchSize;
+    private final long maxLingerMillis;
+    private final Deque<QueuedWriteTask> pending = new ArrayDeque<>();
+    private volatile boolean running = true;
+
+    /**
+     * @param maxBatchSize:    max writes committed in one batch
+     * @param maxLingerMillis: max time in millisecond a write waits for the batch to fill up
+     */
+    public BatchedWriteLooper(IDataSourceAdapter<?> adapter, int maxBatchSize, long maxLingerMillis) {
+        this.adapter = adapter;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerMillis = maxLingerMillis;
+    }
+
+    public synchronized void submit(QueuedWriteTask task) {
+        pending.add(task);
+        if (pending.size() == 1 || pending.size() >= maxBatchSize) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Stops the looper once every submitted task has been written.
+     */
+    public synchronized void stop() {
+        running = false;
+        notifyAll();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            List<QueuedWriteTask> active;
+            synchronized (this) {
+                try {
+                    while (running && pending.isEmpty()) {
+                        wait();
+                    }
+
+                    var lingerUntil = System.currentTimeMillis() + maxLingerMillis;
+                    var remaining = maxLingerMillis;
+                    while (running && pending.size() < maxBatchSize && remaining > 0) {
+                        wait(remaining);
+                        remaining = lingerUntil - System.currentTimeMillis();
+                    }
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+
+                if (pending.isEmpty()) {
+                    return;
+                }
+
+                active = new LinkedList<>(pending);
+                pending.clear();
+            }
+
+            drain(active);
+        }
+    }
+
+    private void drain(List<QueuedWriteTask> active) {
+        var batch = new ArrayList<Pair<QueuedWriteTask, RecordWriteTask>>();
+        var finished = new ArrayList<QueuedWriteTask>();
+
+        while (!active.isEmpty()) {
+            var round = new ArrayList<Pair<QueuedWriteTask, RecordWriteTask>>();
+            var others = new ArrayList<Pair<QueuedWriteTask, Runnable>>();
+
+            var it = active.iterator();
+            while (it.hasNext()) {
+                var task = it.next();
+                var next = task.next();
+                if (next == null) {
+                    it.remove();
+                    finished.add(task);
+                } else if (next instanceof RecordWriteTask writeTask) {
+                    round.add(new Pair<>(task, writeTask));
+                } else {
+                    others.add(new Pair<>(task, next));
+                }
+            }
+
+            round.sort(ROUND_ORDER);
+            batch.addAll(round);
+
+            if (!others.isEmpty()) {
+                flush(batch, finished);
+                others.forEach(each -> {
+                    runSafely(each.getFirstValue(), each.getSecondValue());
+                    each.getFirstValue().written();
+                });
+            }
+
+            if (batch.size() >= maxBatchSize) {
+                flush(batch, finished);
+            }
+        }
+
+        flush(batch, finished);
+    }
+
+    private void flush(List<Pair<QueuedWriteTask, RecordWriteTask>> batch, List<QueuedWriteTask> finished) {
+        if (!batch.isEmpty()) {
+            var operations = new ArrayList<WriteOperation>(batch.size());
+            batch.forEach(each -> operations.add(each.getSecondValue().getOperation()));
+
+            try {
+                adapter.executeBatch(operations);
+            } catch (Throwable e) {
+                // Retry one by one, so a single broken write does not drop the whole batch
+                batch.forEach(each -> runSafely(each.getFirstValue(), each.getSecondValue()));
+            }
+            batch.forEach(each -> each.getFirstValue().written());
+            batch.clear();
+        }
+
+        for (var task : finished) {
+            try {
+                task.onSuccess();
+            } catch (Throwable e) {
+                Slimefun.logger().log(Level.WARNING, "执行写入任务回调时发生错误", e);
+            }
+        }
+        finished.clear();
+    }
+
+    private void runSafely(QueuedWriteTask task, Runnable run) {
+        try {
+            run.run();
+        } catch (Throwable e) {
+            task.onError(e);
+        }
+    }
+}
@@ -9,33 +9,54 @@ public class DelayedSavingLooperTask implements Runnable {
     private final int forceSavePeriod;
     private final Supplier<Map<ScopeKey, DelayedTask>> taskGetter;
     private final Consumer<ScopeKey> executeCallback;
-    private long lastForceSave;
+    private final Runnable beforeForceSave;
+    private long lastForceSave = System.currentTimeMillis();
 
     /**
      * @param forceSavePeriod: force save period in second
      */
     public DelayedSavingLooperTask(
             int forceSavePeriod, Supplier<Map<ScopeKey, DelayedTask>> taskGetter, Consumer<ScopeKey> executeCallback) {
+        this(forceSavePeriod, taskGetter, executeCallback, null);
+    }
+
+    /**
+     * @param forceSavePeriod: force save period in second
+     * @param beforeForceSave: called before the tasks of a force save are collected
+     */
+    public DelayedSavingLooperTask(
+            int forceSavePeriod,
+            Supplier<Map<ScopeKey, DelayedTask>> taskGetter,
+            Consumer<ScopeKey> executeCallback,
+            Runnable beforeForceSave) {
         this.forceSavePeriod = forceSavePeriod;
         this.executeCallback = executeCallback;
         this.taskGetter = taskGetter;
+        this.beforeForceSave = beforeForceSave;
     }
 
     @Override
     public void run() {
+        var forceSave = lastForceSave + (forceSavePeriod * 1000L) < System.currentTimeMillis();
+        if (forceSave) {
+            lastForceSave = System.currentTimeMillis();
+            if (beforeForceSave != null) {
+                beforeForceSave.run();
+            }
+        }
+
         var tasks = taskGetter.get();
         if (tasks == null || tasks.isEmpty()) {
             return;
         }
 
-        if (lastForceSave + (forceSavePeriod * 1000L) < System.currentTimeMillis()) {
+        if (!forceSave) {
             tasks.forEach((key, task) -> {
                 if (task.tryRun()) {
                     executeCallback.accept(key);
                 }
             });
         } else {
-            lastForceSave = System.currentTimeMillis();
             tasks.forEach((key, task) -> {
                 task.runUnsafely();
                 executeCallback.accept(key);
@@ -11,6 +11,8 @@ public class QueuedWriteTask implements Runnable {
     private final Map<RecordKey, Runnable> tasks = new HashMap<>();
     private volatile boolean done = false;
     private volatile boolean aborted = false;
+    private long queuedCount = 0;
+    private volatile long writtenCount = 0;
 
     @Override
     public final void run() {
@@ -25,6 +27,7 @@ public class QueuedWriteTask implements Runnable {
             } catch (Throwable e) {
                 onError(e);
             }
+            written();
             task = next();
         }
 
@@ -45,6 +48,7 @@ public class QueuedWriteTask implements Runnable {
         }
 
         if (tasks.put(key, next) == null) {
+            queuedCount++;
             return queue.offer(key);
         }
         return true;
@@ -54,8 +58,29 @@ public class QueuedWriteTask implements Runnable {
         aborted = true;
     }
 
-    private synchronized Runnable next() {
-        var key = queue.poll();
+    /**
+     * @return the amount of writes queued so far, a write replacing a pending one of the same key is not counted
+     */
+    public synchronized long getQueuedCount() {
+        return queuedCount;
+    }
+
+    /**
+     * @return whether the first given amount of queued writes has been executed, or the task has been aborted
+     */
+    public boolean hasWritten(long count) {
+        return aborted || writtenCount >= count;
+    }
+
+    /**
+     * Marks the next queued write as executed, only called by the thread running this task.
+     */
+    void written() {
+        writtenCount++;
+    }
+
+    synchronized Runnable next() {
+        var key = aborted ? null : queue.poll();
         if (key == null) {
             done = true;
             return null;
@@ -0,0 +1,27 @@
+package com.xzavier0722.mc.plugin.slimefun4.storage.task;
+
+import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.IDataSourceAdapter;
+import com.xzavier0722.mc.plugin.slimefun4.storage.common.WriteOperation;
+
+public class RecordWriteTask implements Runnable {
+    private final IDataSourceAdapter<?> adapter;
+    private final WriteOperation operation;
+
+    public RecordWriteTask(IDataSourceAdapter<?> adapter, WriteOperation operation) {
+        this.adapter = adapter;
+        this.operation = operation;
+    }
+
+    @Override
+    public void run() {
+        if (operation.isDelete()) {
+            adapter.deleteData(operation.key());
+        } else {
+            adapter.setData(operation.key(), operation.data());
+        }
+    }
+
+    public WriteOperation getOperation() {
+        return operation;
+    }
+}
@@ -1,55 +1,97 @@
 package com.xzavier0722.mc.plugin.slimefun4.storage.util;
 
+import com.xzavier0722.mc.plugin.slimefun4.storage.codec.BukkitItemStackCodec;
+import com.xzavier0722.mc.plugin.slimefun4.storage.codec.ItemStackCodec;
+import com.xzavier0722.mc.plugin.slimefun4.storage.codec.NativeItemStackCodec;
 import io.github.thebusybiscuit.slimefun4.core.debug.Debug;
 import io.github.thebusybiscuit.slimefun4.core.debug.TestCase;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Level;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.util.io.BukkitObjectInputStream;
-import org.bukkit.util.io.BukkitObjectOutputStream;
-import org.yaml.snakeyaml.external.biz.base64Coder.Base64Coder;
 
 public class DataUtils {
+    /**
+     * The maximum amount of distinct stacks kept by the interning tables.
+     */
+    private static final int MAX_INTERNED_ITEMS = 1024;
+
+    private static volatile ItemStackCodec itemStackCodec = BukkitItemStackCodec.INSTANCE;
+
+    /**
+     * Identical stacks, like stacks of the same Slimefun item, are only encoded and decoded once.
+     * The tables hold their own copies, every caller gets a clone.
+     */
+    private static final Map<ItemStack, String> encodedItems = createInternTable();
+
+    private static final Map<String, ItemStack> decodedItems = createInternTable();
+
+    private static <K, V> Map<K, V> createInternTable() {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > MAX_INTERNED_ITEMS;
+            }
+        });
+    }
+
+    /**
+     * Sets the codec used to write inventory items, rows written by any other codec can still be read.
+     *
+     * @param codec the {@link ItemStackCodec} to write items with
+     */
+    public static void setItemStackCodec(ItemStackCodec codec) {
+        itemStackCodec = codec;
+        encodedItems.clear();
+    }
+
+    public static ItemStackCodec getItemStackCodec() {
+        return itemStackCodec;
+    }
+
     public static String itemStack2String(ItemStack itemStack) {
-        Debug.log(TestCase.BACKPACK, "Serializing itemstack: " + itemStack);
-
-        var stream = new ByteArrayOutputStream();
-        try (var bs = new BukkitObjectOutputStream(stream)) {
-            bs.writeObject(itemStack);
-            return Base64Coder.encodeLines(stream.toByteArray());
-        } catch (IOException e) {
-            e.printStackTrace();
-            return "";
+        Debug.log(TestCase.BACKPACK, "Serializing itemstack: {}", itemStack);
+
+        var re = encodedItems.get(itemStack);
+        if (re == null) {
+            re = itemStackCodec.encode(itemStack);
+            encodedItems.put(itemStack.clone(), re);
         }
+        return re;
     }
 
-    public static ItemStack string2ItemStack(String base64Str) {
-        if (base64Str == null || base64Str.isEmpty() || base64Str.isBlank()) {
+    public static ItemStack string2ItemStack(String encoded) {
+        if (encoded == null || encoded.isBlank()) {
             return null;
         }
 
-        Debug.log(TestCase.BACKPACK, "Deserializing itemstack: " + base64Str);
+        Debug.log(TestCase.BACKPACK, "Deserializing itemstack: {}", encoded);
 
-        var stream = new ByteArrayInputStream(Base64Coder.decodeLines(base64Str));
-        try (var bs = new BukkitObjectInputStream(stream)) {
-            var result = (ItemStack) bs.readObject();
-
-            Debug.log(TestCase.BACKPACK, "Deserialized itemstack: " + result);
+        var result = decodedItems.get(encoded);
+        if (result == null) {
+            var codec = NativeItemStackCodec.INSTANCE.canDecode(encoded)
+                    ? NativeItemStackCodec.INSTANCE
+                    : BukkitItemStackCodec.INSTANCE;
+            result = codec.decode(encoded);
+            if (result == null) {
+                return null;
+            }
 
             if (result.getType().isAir()) {
                 Slimefun.logger().log(Level.WARNING, "反序列化数据库中的物品失败! 对应物品无法显示.");
             }
 
-            return result;
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
-            return null;
+            decodedItems.put(encoded, result.clone());
+        } else {
+            result = result.clone();
         }
+
+        Debug.log(TestCase.BACKPACK, "Deserialized itemstack: {}", result);
+        return result;
     }
 
     public static String blockDataBase64(String text) {
@@ -15,6 +15,20 @@ public class LocationUtils {
         return chunk.getWorld().getName() + ";" + chunk.getX() + ":" + chunk.getZ();
     }
 
+    /**
+     * Packs the chunk coordinates into a single long, used as a primitive chunk key within a world.
+     */
+    public static long getPackedChunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Packs the block coordinates into a single long, used as a primitive block key within a chunk.
+     */
+    public static long getPackedBlockKey(int x, int y, int z) {
+        return ((long) y << 8) | ((x & 15) << 4) | (z & 15);
+    }
+
     public static Location toLocation(String lKey) {
         var strArr = lKey.split(";");
         var loc = strArr[1].split(":");
@@ -40,13 +54,21 @@ public class LocationUtils {
 
     public static Chunk toChunk(World w, String cKey) {
         var loc = cKey.split(";")[1].split(":");
-        if (SlimefunExtended.getMinecraftVersion().isAtLeast(1, 19, 4)) {
+        if (isToChunkAsyncSafe()) {
             return w.getChunkAt(Integer.parseInt(loc[0]), Integer.parseInt(loc[1]), false);
         } else {
             return w.getChunkAt(Integer.parseInt(loc[0]), Integer.parseInt(loc[1]));
         }
     }
 
+    /**
+     * Whether {@link #toChunk(World, String)} only creates a handle of the chunk and may be called off the main thread.
+     * On older versions the chunk gets loaded.
+     */
+    public static boolean isToChunkAsyncSafe() {
+        return SlimefunExtended.getMinecraftVersion().isAtLeast(1, 19, 4);
+    }
+
     public static boolean isSameWorld(World w1, World w2) {
         return w1.getName().equals(w2.getName());
     }
@@ -31,6 +31,16 @@ public class StorageCacheUtils {
         return Slimefun.getDatabaseManager().getBlockDataController().getBlockDataFromCache(l);
     }
 
+    /**
+     * Whether the chunk of the location is still loading its data, see
+     * {@link com.xzavier0722.mc.plugin.slimefun4.storage.controller.SlimefunChunkData#isLoading()}.
+     * Lookups in such a chunk return null until the load has finished, so event handlers should rather cancel the event.
+     */
+    @ParametersAreNonnullByDefault
+    public static boolean isLoading(Location l) {
+        return Slimefun.getDatabaseManager().getBlockDataController().isChunkLoading(l);
+    }
+
     @ParametersAreNonnullByDefault
     public static boolean isBlock(Location l, String id) {
         var blockData = getBlock(l);
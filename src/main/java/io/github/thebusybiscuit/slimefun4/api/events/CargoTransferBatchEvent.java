@@ -0,0 +1,84 @@
+package io.github.thebusybiscuit.slimefun4.api.events;
+
+import io.github.thebusybiscuit.slimefun4.core.networks.cargo.CargoNet;
+import javax.annotation.Nonnull;
+import org.apache.commons.lang.Validate;
+import org.bukkit.Location;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * The {@link CargoTransferBatchEvent} is called once per cycle of a {@link CargoNet},
+ * after every transfer of that cycle has been done.
+ * It summarizes the whole cycle, so it can be used to monitor the throughput of a {@link CargoNet}.
+ *
+ * @see CargoNet
+ *
+ */
+public class CargoTransferBatchEvent extends Event {
+
+    private static final HandlerList handlers = new HandlerList();
+
+    private final Location regulator;
+    private final boolean bulkTransfer;
+    private final int stacksMoved;
+    private final int itemsMoved;
+
+    public CargoTransferBatchEvent(@Nonnull Location regulator, boolean bulkTransfer, int stacksMoved, int itemsMoved) {
+        Validate.notNull(regulator, "The regulator cannot be null");
+
+        this.regulator = regulator;
+        this.bulkTransfer = bulkTransfer;
+        this.stacksMoved = stacksMoved;
+        this.itemsMoved = itemsMoved;
+    }
+
+    /**
+     * This returns the {@link Location} of the Cargo Manager of this {@link CargoNet}.
+     *
+     * @return The {@link Location} of the regulator
+     */
+    @Nonnull
+    public Location getRegulator() {
+        return regulator;
+    }
+
+    /**
+     * This returns whether this {@link CargoNet} may move more than one stack per input node and cycle.
+     *
+     * @return Whether bulk transfer is enabled
+     */
+    public boolean isBulkTransfer() {
+        return bulkTransfer;
+    }
+
+    /**
+     * This returns how many stacks have been withdrawn from an input and moved
+     * to at least one output during this cycle.
+     *
+     * @return The amount of stacks moved
+     */
+    public int getStacksMoved() {
+        return stacksMoved;
+    }
+
+    /**
+     * This returns the total amount of items which reached an output during this cycle.
+     *
+     * @return The amount of items moved
+     */
+    public int getItemsMoved() {
+        return itemsMoved;
+    }
+
+    @Nonnull
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+
+    @Nonnull
+    @Override
+    public HandlerList getHandlers() {
+        return getHandlerList();
+    }
+}
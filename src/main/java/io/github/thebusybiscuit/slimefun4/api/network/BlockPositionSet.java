@@ -0,0 +1,290 @@
+package io.github.thebusybiscuit.slimefun4.api.network;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.Nonnull;
+import org.apache.commons.lang.Validate;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+/**
+ * A {@link java.util.Set} of block positions within a single {@link World}.
+ * <p>
+ * The positions are packed into a {@code long} and stored in an open addressing hash table,
+ * so adding or looking up a position does not allocate anything.
+ * {@link Location Locations} are only created when the set is iterated.
+ * <p>
+ * The {@link Iterator} of this set does not support removal, use {@link #remove(Object)} instead.
+ *
+ * @see Network
+ *
+ */
+final class BlockPositionSet extends AbstractSet<Location> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final World world;
+
+    /**
+     * The hash table, a zero marks an empty slot.
+     * The position zero itself is tracked by {@link #containsZero}.
+     */
+    private long[] keys = new long[MIN_CAPACITY];
+
+    private boolean containsZero;
+    private int size;
+
+    BlockPositionSet(@Nonnull World world) {
+        Validate.notNull(world, "The world cannot be null");
+        this.world = world;
+    }
+
+    /**
+     * This packs the given block coordinates into a single {@code long}.
+     * The x and z coordinates take 26 bits each, the y coordinate takes 12 bits.
+     *
+     * @return The packed position
+     */
+    static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    static long pack(@Nonnull Location l) {
+        return pack(l.getBlockX(), l.getBlockY(), l.getBlockZ());
+    }
+
+    static int getX(long position) {
+        return (int) (position >> 38);
+    }
+
+    static int getY(long position) {
+        return (int) (position << 52 >> 52);
+    }
+
+    static int getZ(long position) {
+        return (int) (position << 26 >> 38);
+    }
+
+    /**
+     * This creates a new {@link Location} for the given position in the {@link World} of this set.
+     *
+     * @param position
+     *            The packed position
+     *
+     * @return A new {@link Location}
+     */
+    @Nonnull
+    Location toLocation(long position) {
+        return new Location(world, getX(position), getY(position), getZ(position));
+    }
+
+    boolean addPosition(long position) {
+        if (position == 0) {
+            if (containsZero) {
+                return false;
+            }
+
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int mask = keys.length - 1;
+        int i = hash(position) & mask;
+        long current;
+
+        while ((current = keys[i]) != 0) {
+            if (current == position) {
+                return false;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = position;
+
+        // Keep the load factor of the table at 0.5 at most
+        if (++size >= keys.length / 2) {
+            rehash(keys.length * 2);
+        }
+
+        return true;
+    }
+
+    boolean containsPosition(long position) {
+        if (position == 0) {
+            return containsZero;
+        }
+
+        int mask = keys.length - 1;
+        int i = hash(position) & mask;
+        long current;
+
+        while ((current = keys[i]) != 0) {
+            if (current == position) {
+                return true;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        return false;
+    }
+
+    boolean removePosition(long position) {
+        if (position == 0) {
+            if (!containsZero) {
+                return false;
+            }
+
+            containsZero = false;
+            size--;
+            return true;
+        }
+
+        int mask = keys.length - 1;
+        int i = hash(position) & mask;
+        long current;
+
+        while ((current = keys[i]) != 0) {
+            if (current == position) {
+                size--;
+                shiftKeys(i);
+                return true;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        return false;
+    }
+
+    /**
+     * This closes the gap left by a removed key, so every remaining key can still be found by linear probing.
+     */
+    private void shiftKeys(int pos) {
+        int mask = keys.length - 1;
+
+        while (true) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            long current;
+
+            while (true) {
+                if ((current = keys[pos]) == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+
+                int slot = hash(current) & mask;
+
+                // Move the key only if its home slot does not lie cyclically between the gap and its slot
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+
+                pos = (pos + 1) & mask;
+            }
+
+            keys[last] = current;
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] previous = keys;
+        long[] table = new long[capacity];
+        int mask = capacity - 1;
+
+        for (long key : previous) {
+            if (key != 0) {
+                int i = hash(key) & mask;
+
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+
+                table[i] = key;
+            }
+        }
+
+        keys = table;
+    }
+
+    private static int hash(long position) {
+        long h = position * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public boolean add(@Nonnull Location l) {
+        Validate.isTrue(world.equals(l.getWorld()), "The Location must be in the world of this set");
+        return addPosition(pack(l));
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Location l && world.equals(l.getWorld()) && containsPosition(pack(l));
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Location l && world.equals(l.getWorld()) && removePosition(pack(l));
+    }
+
+    @Override
+    public void clear() {
+        keys = new long[MIN_CAPACITY];
+        containsZero = false;
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<Location> iterator() {
+        // The table is captured once, a concurrent rehash does not affect a running iteration
+        long[] table = keys;
+        boolean zero = containsZero;
+
+        return new Iterator<>() {
+            private boolean zeroReturned = !zero;
+            private int index = nextIndex(0);
+
+            private int nextIndex(int from) {
+                for (int i = from; i < table.length; i++) {
+                    if (table[i] != 0) {
+                        return i;
+                    }
+                }
+
+                return table.length;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !zeroReturned || index < table.length;
+            }
+
+            @Override
+            public Location next() {
+                if (!zeroReturned) {
+                    zeroReturned = true;
+                    return toLocation(0);
+                }
+
+                if (index >= table.length) {
+                    throw new NoSuchElementException();
+                }
+
+                Location l = toLocation(table[index]);
+                index = nextIndex(index + 1);
+                return l;
+            }
+        };
+    }
+}
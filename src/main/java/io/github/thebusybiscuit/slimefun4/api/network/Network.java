@@ -1,13 +1,13 @@
 package io.github.thebusybiscuit.slimefun4.api.network;
 
+import com.xzavier0722.mc.plugin.slimefun4.storage.controller.SlimefunBlockData;
 import com.xzavier0722.mc.plugin.slimefun4.storage.util.LocationUtils;
+import com.xzavier0722.mc.plugin.slimefun4.storage.util.StorageCacheUtils;
 import io.github.thebusybiscuit.slimefun4.core.debug.Debug;
 import io.github.thebusybiscuit.slimefun4.core.debug.TestCase;
 import io.github.thebusybiscuit.slimefun4.core.networks.NetworkManager;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
 import io.github.thebusybiscuit.slimefun4.implementation.listeners.NetworkListener;
-import java.util.ArrayDeque;
-import java.util.HashSet;
 import java.util.Queue;
 import java.util.Set;
 import javax.annotation.Nonnull;
@@ -38,11 +38,38 @@ public abstract class Network {
      */
     protected Location regulator;
 
-    private final Queue<Location> nodeQueue = new ArrayDeque<>();
-    protected final Set<Location> connectedLocations = new HashSet<>();
-    protected final Set<Location> regulatorNodes = new HashSet<>();
-    protected final Set<Location> connectorNodes = new HashSet<>();
-    protected final Set<Location> terminusNodes = new HashSet<>();
+    /**
+     * The packed positions which still have to be classified, see {@link BlockPositionSet#pack(int, int, int)}.
+     */
+    private final PositionQueue nodeQueue = new PositionQueue();
+
+    private final BlockPositionSet connected;
+    private final BlockPositionSet regulators;
+    private final BlockPositionSet connectors;
+    private final BlockPositionSet terminals;
+
+    /*
+     * These are views of the packed sets above, any Location is only created when they are iterated.
+     */
+    protected final Set<Location> connectedLocations;
+    protected final Set<Location> regulatorNodes;
+    protected final Set<Location> connectorNodes;
+    protected final Set<Location> terminusNodes;
+
+    /**
+     * Whether the persisted {@link NetworkTopology} has been looked at already.
+     */
+    private boolean topologyLoaded;
+
+    /**
+     * Whether any node changed its classification since the topology has been saved.
+     */
+    private boolean topologyChanged;
+
+    /**
+     * Whether this {@link Network} has been unregistered and is about to be replaced.
+     */
+    private boolean discarded;
 
     /**
      * This constructs a new {@link Network} at the given {@link Location}.
@@ -59,8 +86,19 @@ public abstract class Network {
         this.manager = manager;
         this.regulator = regulator;
 
-        connectedLocations.add(regulator);
-        nodeQueue.add(regulator.clone());
+        connected = new BlockPositionSet(regulator.getWorld());
+        regulators = new BlockPositionSet(regulator.getWorld());
+        connectors = new BlockPositionSet(regulator.getWorld());
+        terminals = new BlockPositionSet(regulator.getWorld());
+
+        connectedLocations = connected;
+        regulatorNodes = regulators;
+        connectorNodes = connectors;
+        terminusNodes = terminals;
+
+        long position = BlockPositionSet.pack(regulator);
+        connected.addPosition(position);
+        nodeQueue.add(position);
     }
 
     /**
@@ -115,7 +153,8 @@ public abstract class Network {
      *            The {@link Location} to add
      */
     protected void addLocationToNetwork(@Nonnull Location l) {
-        if (connectedLocations.add(l.clone())) {
+        if (connected.add(l)) {
+            manager.addNetworkLocation(this, l);
             markDirty(l);
         }
     }
@@ -131,9 +170,10 @@ public abstract class Network {
         Debug.log(TestCase.ENERGYNET, "Mark location " + LocationUtils.locationToString(l) + " as dirty block");
 
         if (regulator.equals(l)) {
+            discarded = true;
             manager.unregisterNetwork(this);
         } else {
-            nodeQueue.add(l.clone());
+            nodeQueue.add(BlockPositionSet.pack(l));
         }
     }
 
@@ -149,16 +189,16 @@ public abstract class Network {
         if (regulator.equals(l)) {
             return true;
         } else {
-            return connectedLocations.contains(l);
+            return connected.contains(l);
         }
     }
 
-    @Nullable private NetworkComponent getCurrentClassification(@Nonnull Location l) {
-        if (regulatorNodes.contains(l)) {
+    @Nullable private NetworkComponent getCurrentClassification(long position) {
+        if (regulators.containsPosition(position)) {
             return NetworkComponent.REGULATOR;
-        } else if (connectorNodes.contains(l)) {
+        } else if (connectors.containsPosition(position)) {
             return NetworkComponent.CONNECTOR;
-        } else if (terminusNodes.contains(l)) {
+        } else if (terminals.containsPosition(position)) {
             return NetworkComponent.TERMINUS;
         }
 
@@ -169,32 +209,35 @@ public abstract class Network {
         int maxSteps = manager.getMaxSize();
         int steps = 0;
 
-        while (nodeQueue.peek() != null) {
-            Location l = nodeQueue.poll();
-            NetworkComponent currentAssignment = getCurrentClassification(l);
+        while (!nodeQueue.isEmpty()) {
+            long position = nodeQueue.poll();
+            Location l = connected.toLocation(position);
+            NetworkComponent currentAssignment = getCurrentClassification(position);
             NetworkComponent classification = classifyLocation(l);
 
             if (classification != currentAssignment) {
                 if (currentAssignment == NetworkComponent.REGULATOR
                         || currentAssignment == NetworkComponent.CONNECTOR) {
                     // Requires a complete rebuild of the network, so we just throw the current one away.
+                    discarded = true;
                     manager.unregisterNetwork(this);
                     return;
                 } else if (currentAssignment == NetworkComponent.TERMINUS) {
-                    terminusNodes.remove(l);
+                    terminals.removePosition(position);
                 }
 
                 if (classification == NetworkComponent.REGULATOR) {
-                    regulatorNodes.add(l);
-                    discoverNeighbors(l);
+                    regulators.addPosition(position);
+                    discoverNeighbors(position, true);
                 } else if (classification == NetworkComponent.CONNECTOR) {
-                    connectorNodes.add(l);
-                    discoverNeighbors(l);
+                    connectors.addPosition(position);
+                    discoverNeighbors(position, true);
                 } else if (classification == NetworkComponent.TERMINUS) {
-                    terminusNodes.add(l);
+                    terminals.addPosition(position);
                 }
 
                 onClassificationChange(l, currentAssignment, classification);
+                topologyChanged = true;
             }
 
             steps += 1;
@@ -205,20 +248,114 @@ public abstract class Network {
         }
     }
 
-    private void discoverNeighbors(@Nonnull Location l, double xDiff, double yDiff, double zDiff) {
+    private void discoverNeighbors(int x, int y, int z, int xDiff, int yDiff, int zDiff, boolean classify) {
         for (int i = getRange() + 1; i > 0; i--) {
-            Location newLocation = l.clone().add(i * xDiff, i * yDiff, i * zDiff);
-            addLocationToNetwork(newLocation);
+            long position = BlockPositionSet.pack(x + i * xDiff, y + i * yDiff, z + i * zDiff);
+
+            // Positions which are already part of this network are skipped without creating a Location
+            if (connected.addPosition(position)) {
+                Location newLocation = connected.toLocation(position);
+                manager.addNetworkLocation(this, newLocation);
+
+                if (classify) {
+                    markDirty(newLocation);
+                }
+            }
+        }
+    }
+
+    private void discoverNeighbors(long position, boolean classify) {
+        int x = BlockPositionSet.getX(position);
+        int y = BlockPositionSet.getY(position);
+        int z = BlockPositionSet.getZ(position);
+
+        discoverNeighbors(x, y, z, 1, 0, 0, classify);
+        discoverNeighbors(x, y, z, -1, 0, 0, classify);
+        discoverNeighbors(x, y, z, 0, 1, 0, classify);
+        discoverNeighbors(x, y, z, 0, -1, 0, classify);
+        discoverNeighbors(x, y, z, 0, 0, 1, classify);
+        discoverNeighbors(x, y, z, 0, 0, -1, classify);
+    }
+
+    /**
+     * This seeds the nodes of this {@link Network} from the {@link NetworkTopology} persisted by
+     * its regulator. Nothing happens if there is no snapshot or if any node is classified differently now,
+     * the {@link Network} is discovered step by step in that case.
+     * <p>
+     * Neighbors which are not part of the snapshot are still marked dirty, a node may have been
+     * placed while this {@link Network} was not loaded, like by WorldEdit or a regenerated chunk.
+     */
+    private void loadTopology() {
+        SlimefunBlockData data = StorageCacheUtils.getBlock(regulator);
+
+        if (data == null || !data.isDataLoaded()) {
+            return;
+        }
+
+        String snapshot = data.getData(NetworkTopology.DATA_KEY);
+        NetworkTopology topology = snapshot == null ? null : NetworkTopology.decode(regulator, snapshot);
+
+        if (topology == null) {
+            return;
+        }
+
+        long[] positions = topology.getPositions();
+        Location[] locations = new Location[positions.length];
+        NetworkComponent[] classifications = new NetworkComponent[positions.length];
+
+        for (int i = 0; i < positions.length; i++) {
+            locations[i] = connected.toLocation(positions[i]);
+            classifications[i] = classifyLocation(locations[i]);
+
+            if (classifications[i] == null) {
+                break;
+            }
+        }
+
+        if (!topology.matches(classifications)) {
+            Debug.log(
+                    TestCase.ENERGYNET,
+                    "Discarding the outdated topology of network @ " + LocationUtils.locationToString(regulator));
+            return;
+        }
+
+        for (int i = 0; i < positions.length; i++) {
+            long position = positions[i];
+            NetworkComponent classification = classifications[i];
+
+            if (connected.addPosition(position)) {
+                manager.addNetworkLocation(this, locations[i]);
+            }
+
+            switch (classification) {
+                case REGULATOR -> regulators.addPosition(position);
+                case CONNECTOR -> connectors.addPosition(position);
+                case TERMINUS -> terminals.addPosition(position);
+            }
+
+            onClassificationChange(locations[i], null, classification);
+        }
+
+        // Only once every seeded node is connected, so exactly the positions missing from the snapshot get classified
+        for (int i = 0; i < positions.length; i++) {
+            if (classifications[i] != NetworkComponent.TERMINUS) {
+                discoverNeighbors(positions[i], true);
+            }
         }
     }
 
-    private void discoverNeighbors(@Nonnull Location l) {
-        discoverNeighbors(l, 1.0, 0.0, 0.0);
-        discoverNeighbors(l, -1.0, 0.0, 0.0);
-        discoverNeighbors(l, 0.0, 1.0, 0.0);
-        discoverNeighbors(l, 0.0, -1.0, 0.0);
-        discoverNeighbors(l, 0.0, 0.0, 1.0);
-        discoverNeighbors(l, 0.0, 0.0, -1.0);
+    private void saveTopology() {
+        SlimefunBlockData data = StorageCacheUtils.getBlock(regulator);
+
+        if (data == null || !data.isDataLoaded() || data.isPendingRemove()) {
+            return;
+        }
+
+        String snapshot = NetworkTopology.encode(regulator, regulators, connectors, terminals);
+
+        if (!snapshot.equals(data.getData(NetworkTopology.DATA_KEY))) {
+            data.setData(NetworkTopology.DATA_KEY, snapshot);
+        }
     }
 
     /**
@@ -244,8 +381,56 @@ public abstract class Network {
     /**
      * This method updates this {@link Network} and serves as the starting point
      * for any running operations.
+     * <p>
+     * On the first tick, the nodes are seeded from the persisted {@link NetworkTopology} if it is still valid.
+     * Once every queued node has been classified, the topology is persisted again if it changed.
      */
     public void tick() {
+        if (!topologyLoaded) {
+            topologyLoaded = true;
+            loadTopology();
+        }
+
         discoverStep();
+
+        if (topologyChanged && !discarded && nodeQueue.isEmpty()) {
+            topologyChanged = false;
+            saveTopology();
+        }
+    }
+
+    /**
+     * A first-in-first-out queue of packed positions, backed by a growing ring buffer.
+     */
+    private static final class PositionQueue {
+
+        private long[] elements = new long[16];
+        private int head;
+        private int size;
+
+        void add(long position) {
+            if (size == elements.length) {
+                long[] grown = new long[elements.length * 2];
+                int firstPart = elements.length - head;
+                System.arraycopy(elements, head, grown, 0, firstPart);
+                System.arraycopy(elements, 0, grown, firstPart, head);
+                elements = grown;
+                head = 0;
+            }
+
+            elements[(head + size) & (elements.length - 1)] = position;
+            size++;
+        }
+
+        long poll() {
+            long position = elements[head];
+            head = (head + 1) & (elements.length - 1);
+            size--;
+            return position;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
     }
 }
@@ -0,0 +1,146 @@
+package io.github.thebusybiscuit.slimefun4.api.network;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.bukkit.Location;
+
+/**
+ * A persisted snapshot of the nodes a {@link Network} has discovered.
+ * <p>
+ * The snapshot is stored in the block data of the regulator as
+ * {@code version;hash;x,y,z;x,y,z;...}, where every position is relative to the regulator.
+ * The hash covers every position together with its {@link NetworkComponent}, so a snapshot is only
+ * used when every node is still classified the same way.
+ *
+ * @see Network
+ *
+ */
+final class NetworkTopology {
+
+    /**
+     * The key of the snapshot in the block data of the regulator.
+     */
+    static final String DATA_KEY = "network-topology";
+
+    private static final String VERSION = "1";
+
+    private final long hash;
+    private final long[] positions;
+
+    private NetworkTopology(long hash, @Nonnull long[] positions) {
+        this.hash = hash;
+        this.positions = positions;
+    }
+
+    /**
+     * This returns the stored nodes as packed absolute positions.
+     *
+     * @return The positions of every node
+     */
+    @Nonnull
+    long[] getPositions() {
+        return positions;
+    }
+
+    /**
+     * This checks whether the given classifications match the ones this snapshot was taken with.
+     *
+     * @param classifications
+     *            The current classification of each position, in the order of {@link #getPositions()}
+     *
+     * @return Whether this snapshot is still valid
+     */
+    boolean matches(@Nonnull NetworkComponent[] classifications) {
+        long current = 1;
+
+        for (int i = 0; i < positions.length; i++) {
+            if (classifications[i] == null) {
+                return false;
+            }
+
+            current = hash(current, positions[i], classifications[i]);
+        }
+
+        return current == hash;
+    }
+
+    @Nonnull
+    static String encode(
+            @Nonnull Location regulator,
+            @Nonnull BlockPositionSet regulators,
+            @Nonnull BlockPositionSet connectors,
+            @Nonnull BlockPositionSet terminals) {
+        StringBuilder builder = new StringBuilder();
+        long hash = 1;
+
+        hash = append(builder, hash, regulator, regulators, NetworkComponent.REGULATOR);
+        hash = append(builder, hash, regulator, connectors, NetworkComponent.CONNECTOR);
+        hash = append(builder, hash, regulator, terminals, NetworkComponent.TERMINUS);
+
+        return VERSION + ';' + Long.toHexString(hash) + builder;
+    }
+
+    private static long append(
+            @Nonnull StringBuilder builder,
+            long hash,
+            @Nonnull Location regulator,
+            @Nonnull BlockPositionSet nodes,
+            @Nonnull NetworkComponent component) {
+        for (Location l : nodes) {
+            builder.append(';')
+                    .append(l.getBlockX() - regulator.getBlockX())
+                    .append(',')
+                    .append(l.getBlockY() - regulator.getBlockY())
+                    .append(',')
+                    .append(l.getBlockZ() - regulator.getBlockZ());
+
+            hash = hash(hash, BlockPositionSet.pack(l), component);
+        }
+
+        return hash;
+    }
+
+    /**
+     * This parses a snapshot, it returns null if the snapshot is malformed or of another version.
+     *
+     * @param regulator
+     *            The {@link Location} of the regulator
+     * @param snapshot
+     *            The stored snapshot
+     *
+     * @return The parsed {@link NetworkTopology} or null
+     */
+    @Nullable static NetworkTopology decode(@Nonnull Location regulator, @Nonnull String snapshot) {
+        String[] parts = snapshot.split(";");
+
+        if (parts.length < 2 || !VERSION.equals(parts[0])) {
+            return null;
+        }
+
+        try {
+            long hash = Long.parseUnsignedLong(parts[1], 16);
+            long[] positions = new long[parts.length - 2];
+
+            for (int i = 2; i < parts.length; i++) {
+                String[] coordinates = parts[i].split(",");
+
+                if (coordinates.length != 3) {
+                    return null;
+                }
+
+                positions[i - 2] = BlockPositionSet.pack(
+                        regulator.getBlockX() + Integer.parseInt(coordinates[0]),
+                        regulator.getBlockY() + Integer.parseInt(coordinates[1]),
+                        regulator.getBlockZ() + Integer.parseInt(coordinates[2]));
+            }
+
+            return new NetworkTopology(hash, positions);
+        } catch (NumberFormatException x) {
+            return null;
+        }
+    }
+
+    private static long hash(long hash, long position, @Nonnull NetworkComponent component) {
+        return (hash * 31 + position) * 31 + component.ordinal();
+    }
+}
@@ -12,6 +12,7 @@ import io.github.thebusybiscuit.slimefun4.utils.NumberUtils;
 import io.github.thebusybiscuit.slimefun4.utils.SlimefunUtils;
 import java.util.logging.Level;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import me.mrCookieSlime.CSCoreLibPlugin.Configuration.Config;
 import org.apache.commons.lang.Validate;
 import org.bukkit.Location;
@@ -130,13 +131,7 @@ public interface EnergyNetComponent extends ItemAttribute {
             return 0;
         }
 
-        String charge = data.getData("energy-charge");
-
-        if (charge != null) {
-            return Integer.parseInt(charge);
-        } else {
-            return 0;
-        }
+        return data.getCharge();
     }
 
     /**
@@ -160,8 +155,10 @@ public interface EnergyNetComponent extends ItemAttribute {
             if (capacity > 0) {
                 charge = NumberUtils.clamp(0, charge, capacity);
 
+                int previousCharge = getCharge(l);
+
                 // Do we even need to update the value?
-                if (charge != getCharge(l)) {
+                if (charge != previousCharge) {
                     var blockData = StorageCacheUtils.getBlock(l);
 
                     if (blockData == null || blockData.isPendingRemove()) {
@@ -173,11 +170,11 @@ public interface EnergyNetComponent extends ItemAttribute {
                         return;
                     }
 
-                    blockData.setData("energy-charge", String.valueOf(charge));
+                    blockData.setCharge(charge);
 
                     // Update the capacitor texture
                     if (getEnergyComponentType() == EnergyNetComponentType.CAPACITOR) {
-                        SlimefunUtils.updateCapacitorTexture(l, charge, capacity);
+                        SlimefunUtils.updateCapacitorTexture(l, previousCharge, charge, capacity);
                     }
                 }
             }
@@ -202,16 +199,21 @@ public interface EnergyNetComponent extends ItemAttribute {
 
             // This method only makes sense if we can actually store energy
             if (capacity > 0) {
-                int currentCharge = getCharge(l);
+                var blockData = getLoadedBlockData(l);
+                if (blockData == null) {
+                    return;
+                }
+
+                int currentCharge = blockData.getCharge();
 
                 // Check if there is even space for new energy
                 if (currentCharge < capacity) {
                     int newCharge = Math.min(capacity, currentCharge + charge);
-                    StorageCacheUtils.setData(l, "energy-charge", String.valueOf(newCharge));
+                    blockData.setCharge(newCharge);
 
                     // Update the capacitor texture
                     if (getEnergyComponentType() == EnergyNetComponentType.CAPACITOR) {
-                        SlimefunUtils.updateCapacitorTexture(l, charge, capacity);
+                        SlimefunUtils.updateCapacitorTexture(l, currentCharge, newCharge, capacity);
                     }
                 }
             }
@@ -236,16 +238,21 @@ public interface EnergyNetComponent extends ItemAttribute {
 
             // This method only makes sense if we can actually store energy
             if (capacity > 0) {
-                int currentCharge = getCharge(l);
+                var blockData = getLoadedBlockData(l);
+                if (blockData == null) {
+                    return;
+                }
+
+                int currentCharge = blockData.getCharge();
 
                 // Check if there is even energy stored
                 if (currentCharge > 0) {
                     int newCharge = Math.max(0, currentCharge - charge);
-                    StorageCacheUtils.setData(l, "energy-charge", String.valueOf(newCharge));
+                    blockData.setCharge(newCharge);
 
                     // Update the capacitor texture
                     if (getEnergyComponentType() == EnergyNetComponentType.CAPACITOR) {
-                        SlimefunUtils.updateCapacitorTexture(l, charge, capacity);
+                        SlimefunUtils.updateCapacitorTexture(l, currentCharge, newCharge, capacity);
                     }
                 }
             }
@@ -260,4 +267,18 @@ public interface EnergyNetComponent extends ItemAttribute {
                                     + new BlockPosition(l));
         }
     }
+
+    @Nullable private static SlimefunBlockData getLoadedBlockData(@Nonnull Location l) {
+        var blockData = StorageCacheUtils.getBlock(l);
+        if (blockData == null || blockData.isPendingRemove()) {
+            return null;
+        }
+
+        if (!blockData.isDataLoaded()) {
+            StorageCacheUtils.requestLoad(blockData);
+            return null;
+        }
+
+        return blockData;
+    }
 }
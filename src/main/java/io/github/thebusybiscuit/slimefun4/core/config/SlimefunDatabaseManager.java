@@ -5,14 +5,18 @@ import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.mysql.MysqlAdapter;
 import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.mysql.MysqlConfig;
 import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.postgresql.PostgreSqlAdapter;
 import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.postgresql.PostgreSqlConfig;
+import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlcommon.SqlCommonAdapter;
 import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlite.SqliteAdapter;
 import com.xzavier0722.mc.plugin.slimefun4.storage.adapter.sqlite.SqliteConfig;
+import com.xzavier0722.mc.plugin.slimefun4.storage.codec.NativeItemStackCodec;
 import com.xzavier0722.mc.plugin.slimefun4.storage.common.DataType;
 import com.xzavier0722.mc.plugin.slimefun4.storage.controller.BlockDataController;
 import com.xzavier0722.mc.plugin.slimefun4.storage.controller.ChunkDataLoadMode;
 import com.xzavier0722.mc.plugin.slimefun4.storage.controller.ControllerHolder;
 import com.xzavier0722.mc.plugin.slimefun4.storage.controller.ProfileDataController;
 import com.xzavier0722.mc.plugin.slimefun4.storage.controller.StorageType;
+import com.xzavier0722.mc.plugin.slimefun4.storage.migrator.BlockPositionMigrator;
+import com.xzavier0722.mc.plugin.slimefun4.storage.util.DataUtils;
 import io.github.bakedlibs.dough.config.Config;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
 import java.io.File;
@@ -30,6 +34,7 @@ public class SlimefunDatabaseManager {
     private StorageType blockDataStorageType;
     private IDataSourceAdapter<?> profileAdapter;
     private IDataSourceAdapter<?> blockStorageAdapter;
+    private BlockPositionMigrator blockPositionMigrator;
 
     public SlimefunDatabaseManager(Slimefun plugin) {
         this.plugin = plugin;
@@ -52,6 +57,8 @@ public class SlimefunDatabaseManager {
         // Minimise hikari log
         System.setProperty("org.slf4j.simpleLogger.log.com.zaxxer.hikari", "error");
 
+        initItemStackCodec();
+
         try {
             blockDataStorageType = StorageType.valueOf(blockStorageConfig.getString("storageType"));
             var readExecutorThread = blockStorageConfig.getInt("readExecutorThread");
@@ -69,6 +76,34 @@ public class SlimefunDatabaseManager {
                         plugin,
                         blockStorageConfig.getInt("delayedWriting.delayedSecond"),
                         blockStorageConfig.getInt("delayedWriting.forceSavePeriod"));
+
+                if (blockStorageConfig.getBoolean("delayedWriting.journal")) {
+                    plugin.getLogger().log(Level.INFO, "已启用延迟写入日志");
+                    blockDataController.initDelayedWriteJournal();
+                }
+            }
+
+            if (blockStorageConfig.getBoolean("chunkDataUnload.enable")) {
+                plugin.getLogger().log(Level.INFO, "已启用区块数据卸载功能");
+                blockDataController.initChunkDataUnload(
+                        plugin, blockStorageConfig.getInt("chunkDataUnload.gracePeriodSecond"));
+            }
+
+            if (blockStorageConfig.getBoolean("energyChargeFlush.enable")) {
+                plugin.getLogger().log(Level.INFO, "已启用电量批量保存功能");
+                blockDataController.initEnergyChargeFlush(
+                        plugin, blockStorageConfig.getInt("energyChargeFlush.flushPeriodSecond"));
+            }
+
+            if (blockStorageConfig.getBoolean("batchWriting.enable")) {
+                plugin.getLogger().log(Level.INFO, "已启用批量写入功能");
+                blockDataController.initBatchedWriting(
+                        blockStorageConfig.getInt("batchWriting.maxBatchSize"),
+                        blockStorageConfig.getInt("batchWriting.maxLingerMillis"));
+            }
+
+            if (blockStorageAdapter instanceof SqlCommonAdapter<?> sqlAdapter) {
+                startBlockPositionMigration(sqlAdapter);
             }
         } catch (IOException e) {
             plugin.getLogger().log(Level.SEVERE, "加载 Slimefun 方块存储适配器失败", e);
@@ -89,6 +124,34 @@ public class SlimefunDatabaseManager {
         }
     }
 
+    private void initItemStackCodec() {
+        if (!"NATIVE".equalsIgnoreCase(blockStorageConfig.getString("itemStackCodec"))) {
+            return;
+        }
+
+        if (NativeItemStackCodec.isSupported()) {
+            plugin.getLogger().log(Level.INFO, "已启用原生物品序列化格式");
+            DataUtils.setItemStackCodec(NativeItemStackCodec.INSTANCE);
+        } else {
+            plugin.getLogger().log(Level.WARNING, "当前服务端不支持原生物品序列化格式, 将继续使用 Bukkit 序列化格式");
+        }
+    }
+
+    /**
+     * Converts the rows written before block storage schema v2 in the background.
+     */
+    private void startBlockPositionMigration(SqlCommonAdapter<?> adapter) {
+        var migrator = new BlockPositionMigrator(adapter);
+        if (!migrator.hasOldData()) {
+            return;
+        }
+
+        blockPositionMigrator = migrator;
+        var thread = new Thread(migrator::migrateData, "Slimefun Block Storage Migrator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     private void initAdapter(StorageType storageType, DataType dataType, Config databaseConfig) throws IOException {
         switch (storageType) {
             case MYSQL -> {
@@ -157,6 +220,10 @@ public class SlimefunDatabaseManager {
     }
 
     public void shutdown() {
+        if (blockPositionMigrator != null) {
+            blockPositionMigrator.stop();
+        }
+
         if (getProfileDataController() != null) {
             getProfileDataController().shutdown();
         }
@@ -195,6 +262,15 @@ public class SlimefunDatabaseManager {
         profileConfig.save();
         blockStorageConfig.setDefaultValue("sqlite.maxConnection", 5);
         blockStorageConfig.setDefaultValue("dataLoadMode", "LOAD_WITH_CHUNK");
+        blockStorageConfig.setDefaultValue("delayedWriting.journal", false);
+        blockStorageConfig.setDefaultValue("chunkDataUnload.enable", false);
+        blockStorageConfig.setDefaultValue("chunkDataUnload.gracePeriodSecond", 60);
+        blockStorageConfig.setDefaultValue("energyChargeFlush.enable", false);
+        blockStorageConfig.setDefaultValue("energyChargeFlush.flushPeriodSecond", 5);
+        blockStorageConfig.setDefaultValue("batchWriting.enable", false);
+        blockStorageConfig.setDefaultValue("batchWriting.maxBatchSize", 500);
+        blockStorageConfig.setDefaultValue("batchWriting.maxLingerMillis", 50);
+        blockStorageConfig.setDefaultValue("itemStackCodec", "BUKKIT");
         blockStorageConfig.save();
     }
 }
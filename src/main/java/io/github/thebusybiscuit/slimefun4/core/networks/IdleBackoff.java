@@ -0,0 +1,76 @@
+package io.github.thebusybiscuit.slimefun4.core.networks;
+
+import io.github.thebusybiscuit.slimefun4.api.network.Network;
+
+/**
+ * The {@link IdleBackoff} keeps track of a {@link Network} node which did not have anything to do.
+ * Every consecutive idle visit doubles the amount of cycles the node is skipped for, up to a cap.
+ * <p>
+ * A node is woken up as soon as its signal changes. The signal is any value which changes whenever
+ * the node may have work again, like a modification counter of its inventory.
+ * A negative signal means that no reliable signal is available right now, so the node will not be skipped.
+ * <p>
+ * An {@link IdleBackoff} is not thread-safe, it must only be used by the thread ticking its node.
+ *
+ * @see NetworkManager#getIdleBackoffCap()
+ *
+ */
+public final class IdleBackoff {
+
+    private int idleVisits;
+    private int remainingCycles;
+    private long signal;
+
+    /**
+     * This returns whether the node should be skipped in the current cycle.
+     *
+     * @param signal
+     *            The current signal of the node
+     *
+     * @return Whether to skip this node
+     */
+    public boolean skip(long signal) {
+        if (signal < 0 || signal != this.signal) {
+            wake();
+            return false;
+        }
+
+        if (remainingCycles > 0) {
+            remainingCycles--;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * This marks the node as idle, it will be skipped for the next cycles
+     * unless its signal changes.
+     *
+     * @param signal
+     *            The signal of the node, taken before it was checked for any work
+     * @param cap
+     *            The maximum amount of cycles to skip
+     */
+    public void idle(long signal, int cap) {
+        if (signal < 0 || cap <= 0) {
+            return;
+        }
+
+        this.signal = signal;
+
+        if (idleVisits < Integer.SIZE - 2) {
+            idleVisits++;
+        }
+
+        remainingCycles = Math.min(1 << (idleVisits - 1), cap);
+    }
+
+    /**
+     * This wakes the node up, it will be visited in the next cycle again.
+     */
+    public void wake() {
+        idleVisits = 0;
+        remainingCycles = 0;
+    }
+}
@@ -10,9 +10,13 @@ import io.github.thebusybiscuit.slimefun4.core.networks.cargo.CargoNet;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
 import io.github.thebusybiscuit.slimefun4.implementation.listeners.NetworkListener;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import javax.annotation.Nonnull;
@@ -37,6 +41,8 @@ public class NetworkManager {
     private final int maxNodes;
     private final boolean enableVisualizer;
     private final boolean deleteExcessItems;
+    private final boolean asyncCargoPlanning;
+    private final int idleBackoffCap;
 
     /**
      * Fixes #3041
@@ -48,6 +54,24 @@ public class NetworkManager {
      */
     private final List<Network> networks = new CopyOnWriteArrayList<>();
 
+    /**
+     * This {@link Map} indexes every {@link Location} connected to a registered {@link Network}.
+     * The arrays are replaced on every change, so lookups do not need to lock.
+     */
+    private final Map<Location, Network[]> networksByLocation = new ConcurrentHashMap<>();
+
+    /**
+     * The indexed {@link Location Locations} of every registered {@link Network}.
+     * Changes to the index are guarded by this {@link Map}.
+     */
+    private final Map<Network, List<Location>> indexedLocations = new HashMap<>();
+
+    /**
+     * A {@link Network} which overrides {@link Network#connectsTo(Location)} cannot be indexed,
+     * those are still checked one by one.
+     */
+    private final List<Network> unindexedNetworks = new CopyOnWriteArrayList<>();
+
     /**
      * This creates a new {@link NetworkManager} with the given capacity.
      *
@@ -57,15 +81,57 @@ public class NetworkManager {
      *            Whether the {@link Network} visualizer is enabled
      * @param deleteExcessItems
      *            Whether excess items from a {@link CargoNet} should be voided
+     * @param asyncCargoPlanning
+     *            Whether the routes of a {@link CargoNet} should be planned off the main thread
+     * @param idleBackoffCap
+     *            The maximum amount of cycles an idle node is skipped for, zero disables the backoff
      */
-    public NetworkManager(int maxStepSize, boolean enableVisualizer, boolean deleteExcessItems) {
+    public NetworkManager(
+            int maxStepSize,
+            boolean enableVisualizer,
+            boolean deleteExcessItems,
+            boolean asyncCargoPlanning,
+            int idleBackoffCap) {
         Validate.isTrue(maxStepSize > 0, "The maximal Network size must be above zero!");
 
         this.enableVisualizer = enableVisualizer;
         this.deleteExcessItems = deleteExcessItems;
+        this.asyncCargoPlanning = asyncCargoPlanning;
+        this.idleBackoffCap = Math.max(0, idleBackoffCap);
         maxNodes = maxStepSize;
     }
 
+    /**
+     * This creates a new {@link NetworkManager} with the given capacity.
+     *
+     * @param maxStepSize
+     *            The maximum amount of nodes a {@link Network} can have
+     * @param enableVisualizer
+     *            Whether the {@link Network} visualizer is enabled
+     * @param deleteExcessItems
+     *            Whether excess items from a {@link CargoNet} should be voided
+     * @param asyncCargoPlanning
+     *            Whether the routes of a {@link CargoNet} should be planned off the main thread
+     */
+    public NetworkManager(
+            int maxStepSize, boolean enableVisualizer, boolean deleteExcessItems, boolean asyncCargoPlanning) {
+        this(maxStepSize, enableVisualizer, deleteExcessItems, asyncCargoPlanning, 0);
+    }
+
+    /**
+     * This creates a new {@link NetworkManager} with the given capacity.
+     *
+     * @param maxStepSize
+     *            The maximum amount of nodes a {@link Network} can have
+     * @param enableVisualizer
+     *            Whether the {@link Network} visualizer is enabled
+     * @param deleteExcessItems
+     *            Whether excess items from a {@link CargoNet} should be voided
+     */
+    public NetworkManager(int maxStepSize, boolean enableVisualizer, boolean deleteExcessItems) {
+        this(maxStepSize, enableVisualizer, deleteExcessItems, false);
+    }
+
     /**
      * This creates a new {@link NetworkManager} with the given capacity.
      *
@@ -105,6 +171,28 @@ public class NetworkManager {
         return deleteExcessItems;
     }
 
+    /**
+     * This returns whether a {@link CargoNet} plans its routes off the main thread
+     * and only applies the resulting transfers on the main thread.
+     *
+     * @return Whether asynchronous cargo planning is enabled
+     */
+    public boolean isAsyncCargoPlanningEnabled() {
+        return asyncCargoPlanning;
+    }
+
+    /**
+     * This returns the maximum amount of cycles a node without any work is skipped for.
+     * Cargo input nodes and fully charged energy consumers back off exponentially up to this cap.
+     *
+     * @return The idle backoff cap, zero if idle nodes are never skipped
+     *
+     * @see IdleBackoff
+     */
+    public int getIdleBackoffCap() {
+        return idleBackoffCap;
+    }
+
     /**
      * This returns a {@link List} of every {@link Network} on the {@link Server}.
      * The returned {@link List} is not modifiable.
@@ -124,7 +212,17 @@ public class NetworkManager {
 
         Validate.notNull(type, "Type must not be null");
 
-        for (Network network : networks) {
+        Network[] indexed = networksByLocation.get(l);
+
+        if (indexed != null) {
+            for (Network network : indexed) {
+                if (type.isInstance(network)) {
+                    return Optional.of(type.cast(network));
+                }
+            }
+        }
+
+        for (Network network : unindexedNetworks) {
             if (type.isInstance(network) && network.connectsTo(l)) {
                 return Optional.of(type.cast(network));
             }
@@ -142,8 +240,17 @@ public class NetworkManager {
 
         Validate.notNull(type, "Type must not be null");
         List<T> list = new ArrayList<>();
+        Network[] indexed = networksByLocation.get(l);
 
-        for (Network network : networks) {
+        if (indexed != null) {
+            for (Network network : indexed) {
+                if (type.isInstance(network)) {
+                    list.add(type.cast(network));
+                }
+            }
+        }
+
+        for (Network network : unindexedNetworks) {
             if (type.isInstance(network) && network.connectsTo(l)) {
                 list.add(type.cast(network));
             }
@@ -165,6 +272,90 @@ public class NetworkManager {
                 TestCase.ENERGYNET, "Registering network @ " + LocationUtils.locationToString(network.getRegulator()));
 
         networks.add(network);
+
+        if (isIndexable(network)) {
+            synchronized (indexedLocations) {
+                if (indexedLocations.putIfAbsent(network, new ArrayList<>()) == null) {
+                    indexLocation(network, network.getRegulator());
+                }
+            }
+        } else {
+            unindexedNetworks.add(network);
+        }
+    }
+
+    /**
+     * This adds a newly connected {@link Location} of a {@link Network} to the lookup index.
+     * It is called by the {@link Network} itself whenever a {@link Location} gets connected.
+     *
+     * @param network
+     *            The {@link Network} the {@link Location} has been connected to
+     * @param l
+     *            The connected {@link Location}
+     */
+    public void addNetworkLocation(@Nonnull Network network, @Nonnull Location l) {
+        synchronized (indexedLocations) {
+            // Networks which are not (or no longer) registered are not indexed
+            if (indexedLocations.containsKey(network)) {
+                indexLocation(network, l);
+            }
+        }
+    }
+
+    private void indexLocation(@Nonnull Network network, @Nonnull Location l) {
+        Location location = l.clone();
+        Network[] current = networksByLocation.get(location);
+
+        if (current == null) {
+            networksByLocation.put(location, new Network[] {network});
+        } else {
+            for (Network each : current) {
+                if (each == network) {
+                    return;
+                }
+            }
+
+            Network[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = network;
+            networksByLocation.put(location, updated);
+        }
+
+        indexedLocations.get(network).add(location);
+    }
+
+    private void removeFromIndex(@Nonnull Network network) {
+        synchronized (indexedLocations) {
+            List<Location> locations = indexedLocations.remove(network);
+
+            if (locations == null) {
+                return;
+            }
+
+            for (Location l : locations) {
+                Network[] current = networksByLocation.get(l);
+
+                if (current == null) {
+                    continue;
+                }
+
+                Network[] updated =
+                        Arrays.stream(current).filter(each -> each != network).toArray(Network[]::new);
+
+                if (updated.length == 0) {
+                    networksByLocation.remove(l);
+                } else {
+                    networksByLocation.put(l, updated);
+                }
+            }
+        }
+    }
+
+    private static boolean isIndexable(@Nonnull Network network) {
+        try {
+            return network.getClass().getMethod("connectsTo", Location.class).getDeclaringClass() == Network.class;
+        } catch (NoSuchMethodException x) {
+            return false;
+        }
     }
 
     /**
@@ -181,6 +372,8 @@ public class NetworkManager {
                 "Unregistering network @ " + LocationUtils.locationToString(network.getRegulator()));
 
         networks.remove(network);
+        unindexedNetworks.remove(network);
+        removeFromIndex(network);
     }
 
     /**
@@ -7,14 +7,19 @@ import io.github.bakedlibs.dough.common.CommonPatterns;
 import io.github.thebusybiscuit.slimefun4.api.network.Network;
 import io.github.thebusybiscuit.slimefun4.api.network.NetworkComponent;
 import io.github.thebusybiscuit.slimefun4.core.attributes.HologramOwner;
+import io.github.thebusybiscuit.slimefun4.core.networks.IdleBackoff;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -42,12 +47,41 @@ public class CargoNet extends AbstractItemNetwork implements HologramOwner {
 
     private static final int RANGE = 5;
 
+    /**
+     * The frequency of a node whose data has not been loaded yet.
+     */
+    private static final int UNRESOLVED_FREQUENCY = -2;
+
     private final Set<Location> inputNodes = new HashSet<>();
     private final Set<Location> outputNodes = new HashSet<>();
 
     protected final Map<Location, Integer> roundRobin = new HashMap<>();
     private int tickDelayThreshold = 0;
 
+    /**
+     * Whether a cargo cycle is still being planned or applied asynchronously.
+     * No new cycle is started until the previous one has been finished.
+     */
+    private volatile boolean routing = false;
+
+    /**
+     * The parsed frequency of every node, -1 if it is invalid.
+     * This is only accessed by the ticking thread, changes from other threads are queued in {@link #changedNodes}.
+     */
+    private final Map<Location, Integer> frequencies = new HashMap<>();
+
+    private final Queue<Location> changedNodes = new ConcurrentLinkedQueue<>();
+    private boolean channelsChanged = true;
+
+    /**
+     * The {@link IdleBackoff} of every input node which had nothing to withdraw.
+     * They are only used on the main thread, but dropped from any thread once a node or the network changes.
+     */
+    private final Map<Location, IdleBackoff> idleInputs = new ConcurrentHashMap<>();
+
+    private Map<Location, Integer> inputChannels = Collections.emptyMap();
+    private Map<Integer, List<Location>> outputChannels = Collections.emptyMap();
+
     public static @Nullable CargoNet getNetworkFromLocation(@Nonnull Location l) {
         return Slimefun.getNetworkManager()
                 .getNetworkFromLocation(l, CargoNet.class)
@@ -105,6 +139,8 @@ public class CargoNet extends AbstractItemNetwork implements HologramOwner {
     @Override
     public void onClassificationChange(Location l, NetworkComponent from, NetworkComponent to) {
         connectorCache.remove(l);
+        frequencies.remove(l);
+        channelsChanged = true;
 
         if (from == NetworkComponent.TERMINUS) {
             inputNodes.remove(l);
@@ -144,77 +180,196 @@ public class CargoNet extends AbstractItemNetwork implements HologramOwner {
             // Reset the internal threshold, so we can start skipping again
             tickDelayThreshold = 0;
 
-            Map<Location, Integer> inputs = mapInputNodes();
-            Map<Integer, List<Location>> outputs = mapOutputNodes();
+            boolean asyncPlanning = Slimefun.getNetworkManager().isAsyncCargoPlanningEnabled();
+
+            if (asyncPlanning) {
+                if (routing) {
+                    return;
+                }
+
+                routing = true;
+            }
+
+            updateChannels();
+            Map<Location, Integer> inputs = inputChannels;
+            Map<Integer, List<Location>> outputs = outputChannels;
+
+            if (CargoTickEvent.getHandlerList().getRegisteredListeners().length > 0) {
+                // Listeners may modify the maps, so they only ever see a copy of the cached channels
+                inputs = new HashMap<>(inputs);
+                outputs = copyChannels(outputs);
+            }
 
             if (StorageCacheUtils.getData(b.getLocation(), "visualizer") == null) {
                 display();
             }
 
+            int maxStacks = getMaxStacksPerNode(blockData);
+            Map<Location, Integer> cycleInputs = inputs;
+            Map<Integer, List<Location>> cycleOutputs = outputs;
             Slimefun.runSync(() -> {
                 if (blockData.isPendingRemove()) {
+                    routing = false;
                     return;
                 }
-                var event = new CargoTickEvent(inputs, outputs);
+                var event = new CargoTickEvent(cycleInputs, cycleOutputs);
                 Bukkit.getPluginManager().callEvent(event);
                 event.getHologramMsg().ifPresent(msg -> updateHologram(b, msg));
                 if (event.isCancelled()) {
+                    routing = false;
                     return;
                 }
 
-                Slimefun.getProfiler().scheduleEntries(inputs.size() + 1);
-                new CargoNetworkTask(this, inputs, outputs).run();
+                if (asyncPlanning) {
+                    new CargoRoutePlanner(this, blockData, cycleInputs, cycleOutputs, maxStacks).start();
+                } else {
+                    Slimefun.getProfiler().scheduleEntries(cycleInputs.size() + 1);
+                    new CargoNetworkTask(this, cycleInputs, cycleOutputs, maxStacks).run();
+                }
             });
         }
     }
 
-    private @Nonnull Map<Location, Integer> mapInputNodes() {
+    /**
+     * This returns how many stacks each input node may move per cycle.
+     * Unless bulk transfer has been enabled on the Cargo Manager, this is always one.
+     *
+     * @param blockData
+     *            The {@link SlimefunBlockData} of the Cargo Manager
+     *
+     * @return The maximum amount of stacks per input node and cycle
+     */
+    private static int getMaxStacksPerNode(@Nonnull SlimefunBlockData blockData) {
+        if (!"true".equals(blockData.getData("bulk-transfer"))) {
+            return 1;
+        }
+
+        return Math.max(1, Slimefun.getCfg().getInt("networks.cargo-bulk-transfer-stacks"));
+    }
+
+    /**
+     * This marks the current asynchronous cargo cycle as finished.
+     */
+    void finishRouting() {
+        routing = false;
+    }
+
+    @Override
+    public void markCargoNodeConfigurationDirty(@Nonnull Location node) {
+        super.markCargoNodeConfigurationDirty(node);
+        changedNodes.add(node);
+        idleInputs.remove(node);
+    }
+
+    /**
+     * This returns whether the given input node is backing off and should be skipped in this cycle.
+     *
+     * @param node
+     *            The {@link Location} of the input node
+     * @param signal
+     *            The current signal of its target, see {@link CargoUtils#getInventorySignal(Block)}
+     *
+     * @return Whether to skip this input node
+     */
+    boolean isInputIdle(@Nonnull Location node, long signal) {
+        IdleBackoff backoff = idleInputs.get(node);
+        return backoff != null && backoff.skip(signal);
+    }
+
+    /**
+     * This updates the {@link IdleBackoff} of an input node after it has been visited.
+     *
+     * @param node
+     *            The {@link Location} of the input node
+     * @param signal
+     *            The signal of its target, taken before anything was withdrawn
+     * @param idle
+     *            Whether nothing could be withdrawn
+     */
+    void updateInputBackoff(@Nonnull Location node, long signal, boolean idle) {
+        int cap = Slimefun.getNetworkManager().getIdleBackoffCap();
+
+        if (!idle || cap <= 0 || signal < 0) {
+            idleInputs.remove(node);
+        } else {
+            idleInputs.computeIfAbsent(node, key -> new IdleBackoff()).idle(signal, cap);
+        }
+    }
+
+    /**
+     * This rebuilds the cached input and output channels if any node has changed since the last cycle.
+     * Each output channel is an array-backed {@link List}, in the order of {@link #outputNodes}.
+     */
+    private void updateChannels() {
+        Location changed;
+        while ((changed = changedNodes.poll()) != null) {
+            frequencies.remove(changed);
+            channelsChanged = true;
+        }
+
+        if (!channelsChanged) {
+            return;
+        }
+
+        channelsChanged = false;
+        // Any change to the nodes wakes up every idle input node
+        idleInputs.clear();
+
         Map<Location, Integer> inputs = new HashMap<>();
+        Map<Integer, List<Location>> outputs = new HashMap<>();
 
         for (Location node : inputNodes) {
-            int frequency = getFrequency(node);
+            int frequency = getCachedFrequency(node);
 
             if (frequency >= 0 && frequency < 16) {
                 inputs.put(node, frequency);
             }
         }
 
-        return inputs;
-    }
+        for (Location node : outputNodes) {
+            int frequency = getCachedFrequency(node);
 
-    private @Nonnull Map<Integer, List<Location>> mapOutputNodes() {
-        Map<Integer, List<Location>> output = new HashMap<>();
+            if (frequency >= 0) {
+                outputs.computeIfAbsent(frequency, key -> new ArrayList<>()).add(node);
+            }
+        }
 
-        List<Location> list = new LinkedList<>();
-        int lastFrequency = -1;
+        Map<Integer, List<Location>> channels = new HashMap<>();
+        for (Map.Entry<Integer, List<Location>> entry : outputs.entrySet()) {
+            channels.put(entry.getKey(), List.of(entry.getValue().toArray(new Location[0])));
+        }
 
-        for (Location node : outputNodes) {
-            int frequency = getFrequency(node);
-            if (frequency == -1) {
-                continue;
-            }
+        inputChannels = Collections.unmodifiableMap(inputs);
+        outputChannels = Collections.unmodifiableMap(channels);
+    }
 
-            if (frequency != lastFrequency && lastFrequency != -1) {
-                output.merge(lastFrequency, list, (prev, next) -> {
-                    prev.addAll(next);
-                    return prev;
-                });
+    private int getCachedFrequency(@Nonnull Location node) {
+        Integer cached = frequencies.get(node);
 
-                list = new LinkedList<>();
-            }
+        if (cached != null) {
+            return cached;
+        }
+
+        int frequency = getFrequency(node);
 
-            list.add(node);
-            lastFrequency = frequency;
+        if (frequency == UNRESOLVED_FREQUENCY) {
+            // Try again next cycle, the data of this node is still being loaded
+            channelsChanged = true;
+        } else {
+            frequencies.put(node, frequency);
         }
 
-        if (!list.isEmpty()) {
-            output.merge(lastFrequency, list, (prev, next) -> {
-                prev.addAll(next);
-                return prev;
-            });
+        return frequency;
+    }
+
+    private static @Nonnull Map<Integer, List<Location>> copyChannels(@Nonnull Map<Integer, List<Location>> channels) {
+        Map<Integer, List<Location>> copy = new HashMap<>();
+
+        for (Map.Entry<Integer, List<Location>> entry : channels.entrySet()) {
+            copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
         }
 
-        return output;
+        return copy;
     }
 
     /**
@@ -225,7 +380,7 @@ public class CargoNet extends AbstractItemNetwork implements HologramOwner {
      * @param node
      *            The {@link Location} of our cargo node
      *
-     * @return The frequency of the given node
+     * @return The frequency of the given node, or {@link #UNRESOLVED_FREQUENCY} if its data is not loaded yet
      */
     private static int getFrequency(@Nonnull Location node) {
         var data = StorageCacheUtils.getBlock(node);
@@ -235,7 +390,7 @@ public class CargoNet extends AbstractItemNetwork implements HologramOwner {
 
         if (!data.isDataLoaded()) {
             StorageCacheUtils.requestLoad(data);
-            return -1;
+            return UNRESOLVED_FREQUENCY;
         }
 
         String frequency = data.getData("frequency");
@@ -2,6 +2,7 @@ package io.github.thebusybiscuit.slimefun4.core.networks.cargo;
 
 import com.xzavier0722.mc.plugin.slimefun4.storage.util.StorageCacheUtils;
 import io.github.bakedlibs.dough.blocks.BlockPosition;
+import io.github.thebusybiscuit.slimefun4.api.events.CargoTransferBatchEvent;
 import io.github.thebusybiscuit.slimefun4.api.items.ItemSpawnReason;
 import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItem;
 import io.github.thebusybiscuit.slimefun4.core.networks.NetworkManager;
@@ -9,10 +10,6 @@ import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
 import io.github.thebusybiscuit.slimefun4.implementation.SlimefunItems;
 import io.github.thebusybiscuit.slimefun4.utils.SlimefunUtils;
 import io.github.thebusybiscuit.slimefun4.utils.itemstack.ItemStackWrapper;
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,6 +19,7 @@ import java.util.logging.Level;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import me.mrCookieSlime.Slimefun.api.inventory.DirtyChestMenu;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.block.Block;
 import org.bukkit.inventory.Inventory;
@@ -49,13 +47,24 @@ class CargoNetworkTask implements Runnable {
     private final Map<Location, Integer> inputs;
     private final Map<Integer, List<Location>> outputs;
 
+    /**
+     * The maximum amount of stacks each input node may move in this cycle.
+     */
+    private final int maxStacks;
+
+    private int withdrawals;
+    private int stacksMoved;
+    private int itemsMoved;
+
     @ParametersAreNonnullByDefault
-    CargoNetworkTask(CargoNet network, Map<Location, Integer> inputs, Map<Integer, List<Location>> outputs) {
+    CargoNetworkTask(
+            CargoNet network, Map<Location, Integer> inputs, Map<Integer, List<Location>> outputs, int maxStacks) {
         this.network = network;
         this.manager = Slimefun.getNetworkManager();
 
         this.inputs = inputs;
         this.outputs = outputs;
+        this.maxStacks = maxStacks;
     }
 
     @Override
@@ -73,7 +82,23 @@ class CargoNetworkTask implements Runnable {
                 Location input = entry.getKey();
                 Optional<Block> attachedBlock = network.getAttachedBlock(input);
 
-                attachedBlock.ifPresent(block -> routeItems(input, block, entry.getValue(), outputs));
+                if (attachedBlock.isPresent()) {
+                    Block target = attachedBlock.get();
+                    long signal = CargoUtils.getInventorySignal(target);
+
+                    if (!network.isInputIdle(input, signal)) {
+                        int previousWithdrawals = withdrawals;
+
+                        // Keep going as long as every withdrawn stack could be moved entirely
+                        for (int i = 0; i < maxStacks; i++) {
+                            if (!routeItems(input, target, entry.getValue(), outputs, i == 0)) {
+                                break;
+                            }
+                        }
+
+                        network.updateInputBackoff(input, signal, withdrawals == previousWithdrawals);
+                    }
+                }
 
                 // This will prevent this timings from showing up for the Cargo Manager
                 timestamp += Slimefun.getProfiler().closeEntry(entry.getKey(), inputNode, nodeTimestamp);
@@ -89,18 +114,33 @@ class CargoNetworkTask implements Runnable {
 
         // Submit a timings report
         Slimefun.getProfiler().closeEntry(network.getRegulator(), SlimefunItems.CARGO_MANAGER.getItem(), timestamp);
+
+        Bukkit.getPluginManager()
+                .callEvent(new CargoTransferBatchEvent(network.getRegulator(), maxStacks > 1, stacksMoved, itemsMoved));
     }
 
+    /**
+     * This moves a single stack from the given input node.
+     *
+     * @return Whether a stack was withdrawn and moved entirely
+     */
     @ParametersAreNonnullByDefault
-    private void routeItems(
-            Location inputNode, Block inputTarget, int frequency, Map<Integer, List<Location>> outputNodes) {
-        ItemStackAndInteger slot = CargoUtils.withdraw(network, inventories, inputNode.getBlock(), inputTarget);
+    private boolean routeItems(
+            Location inputNode,
+            Block inputTarget,
+            int frequency,
+            Map<Integer, List<Location>> outputNodes,
+            boolean callEvent) {
+        ItemStackAndInteger slot =
+                CargoUtils.withdraw(network, inventories, inputNode.getBlock(), inputTarget, callEvent);
 
         if (slot == null) {
-            return;
+            return false;
         }
 
+        withdrawals++;
         ItemStack stack = slot.getItem();
+        int amount = stack.getAmount();
         int previousSlot = slot.getInt();
         List<Location> destinations = outputNodes.get(frequency);
 
@@ -108,9 +148,18 @@ class CargoNetworkTask implements Runnable {
             stack = distributeItem(stack, inputNode, destinations);
         }
 
+        int moved = stack == null ? amount : amount - stack.getAmount();
+        if (moved > 0) {
+            stacksMoved++;
+            itemsMoved += moved;
+        }
+
         if (stack != null) {
             insertItem(inputTarget, previousSlot, stack);
+            return false;
         }
+
+        return true;
     }
 
     @ParametersAreNonnullByDefault
@@ -154,26 +203,21 @@ class CargoNetworkTask implements Runnable {
         boolean smartFill = Objects.equals(blockData.getData("smart-fill"), "true");
 
         int index = 0;
-        Collection<Location> destinations;
+        int size = outputNodes.size();
+        int offset = 0;
         if (roundrobin) {
             // The current round-robin index of the (unsorted) outputNodes list,
             // or the index at which to start searching for valid output nodes
             index = network.roundRobin.getOrDefault(inputNode, 0);
-            // Use an ArrayDeque to perform round-robin sorting
-            // Since the impl for roundRobinSort just does Deque.addLast(Deque#removeFirst)
-            // An ArrayDequeue is preferable as opposed to a LinkedList:
-            // - The number of elements does not change.
-            // - ArrayDequeue has better iterative performance
-            Deque<Location> tempDestinations = new ArrayDeque<>(outputNodes);
-            roundRobinSort(index, tempDestinations);
-            destinations = tempDestinations;
-        } else {
-            // Using an ArrayList here since we won't need to sort the destinations
-            // The ArrayList has the best performance for iteration bar a primitive array
-            destinations = new ArrayList<>(outputNodes);
+
+            // The channel is array-backed, so we simply start iterating at the round-robin index
+            if (index < size) {
+                offset = index;
+            }
         }
 
-        for (Location output : destinations) {
+        for (int i = 0; i < size; i++) {
+            Location output = outputNodes.get((offset + i) % size);
             Optional<Block> target = network.getAttachedBlock(output);
 
             if (target.isPresent()) {
@@ -184,7 +228,7 @@ class CargoNetworkTask implements Runnable {
                 if (item == null) {
                     if (roundrobin) {
                         // The output was valid, set the round robin index to the node after this one
-                        network.roundRobin.put(inputNode, (index + 1) % outputNodes.size());
+                        network.roundRobin.put(inputNode, (index + 1) % size);
                     }
                     break;
                 }
@@ -194,23 +238,4 @@ class CargoNetworkTask implements Runnable {
 
         return item;
     }
-
-    /**
-     * This method sorts a given {@link Deque} of output node locations using a semi-accurate
-     * round-robin method.
-     *
-     * @param index
-     *            The round-robin index of the input node
-     * @param outputNodes
-     *            A {@link Deque} of {@link Location Locations} of the output nodes
-     */
-    private void roundRobinSort(int index, Deque<Location> outputNodes) {
-        if (index < outputNodes.size()) {
-            // Not ideal but actually not bad performance-wise over more elegant alternatives
-            for (int i = 0; i < index; i++) {
-                Location temp = outputNodes.removeFirst();
-                outputNodes.add(temp);
-            }
-        }
-    }
 }
@@ -0,0 +1,746 @@
+package io.github.thebusybiscuit.slimefun4.core.networks.cargo;
+
+import com.xzavier0722.mc.plugin.slimefun4.storage.controller.SlimefunBlockData;
+import com.xzavier0722.mc.plugin.slimefun4.storage.util.StorageCacheUtils;
+import com.xzavier0722.mc.plugin.slimefuncomplib.event.cargo.CargoInsertEvent;
+import com.xzavier0722.mc.plugin.slimefuncomplib.event.cargo.CargoWithdrawEvent;
+import io.github.bakedlibs.dough.blocks.BlockPosition;
+import io.github.bakedlibs.dough.inventory.InvUtils;
+import io.github.thebusybiscuit.slimefun4.api.events.CargoTransferBatchEvent;
+import io.github.thebusybiscuit.slimefun4.api.items.ItemSpawnReason;
+import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItem;
+import io.github.thebusybiscuit.slimefun4.core.debug.Debug;
+import io.github.thebusybiscuit.slimefun4.core.debug.TestCase;
+import io.github.thebusybiscuit.slimefun4.core.networks.NetworkManager;
+import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import io.github.thebusybiscuit.slimefun4.implementation.SlimefunItems;
+import io.github.thebusybiscuit.slimefun4.utils.SlimefunUtils;
+import io.github.thebusybiscuit.slimefun4.utils.itemstack.ItemStackWrapper;
+import io.papermc.lib.PaperLib;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import me.mrCookieSlime.Slimefun.api.inventory.DirtyChestMenu;
+import me.mrCookieSlime.Slimefun.api.item_transport.ItemTransportFlow;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * The {@link CargoRoutePlanner} is the asynchronous counterpart of the {@link CargoNetworkTask}.
+ * A cargo cycle is split into three phases:
+ * <ol>
+ * <li>On the main thread, every attached inventory is copied into a snapshot.</li>
+ * <li>Off the main thread, each input node plans its transfer against these snapshots.
+ * This is where the filters are tested and all the items are compared.</li>
+ * <li>Back on the main thread, every planned route is validated against the live inventories and applied.</li>
+ * </ol>
+ * A route is dropped if any slot it touches changed in the meantime or if a {@link CargoInsertEvent} of it
+ * gets cancelled, the items simply stay where they are until the next cycle.
+ * <p>
+ * Routes are planned one after another on the same snapshots, so a route may build upon the routes before it.
+ * Should one of those be dropped, the later routes will fail their validation as well.
+ *
+ * @see CargoNetworkTask
+ * @see CargoNet
+ *
+ */
+final class CargoRoutePlanner {
+
+    private final NetworkManager manager;
+    private final CargoNet network;
+    private final SlimefunBlockData regulatorData;
+
+    private final Map<Location, Integer> inputs;
+    private final Map<Integer, List<Location>> outputs;
+
+    /**
+     * The maximum amount of stacks each input node may move in this cycle.
+     */
+    private final int maxStacks;
+
+    private final Map<Location, InventorySnapshot> snapshots = new HashMap<>();
+    private final List<InputNode> inputNodes = new ArrayList<>();
+    private final Map<Location, Node> outputNodes = new HashMap<>();
+    private final List<Route> routes = new ArrayList<>();
+    private final Map<Location, Boolean> insertEvents = new HashMap<>();
+
+    private long captureTime;
+
+    @ParametersAreNonnullByDefault
+    CargoRoutePlanner(
+            CargoNet network,
+            SlimefunBlockData regulatorData,
+            Map<Location, Integer> inputs,
+            Map<Integer, List<Location>> outputs,
+            int maxStacks) {
+        this.network = network;
+        this.manager = Slimefun.getNetworkManager();
+        this.regulatorData = regulatorData;
+
+        this.inputs = inputs;
+        this.outputs = outputs;
+        this.maxStacks = maxStacks;
+    }
+
+    /**
+     * This captures the snapshots and hands the planning over to another thread.
+     * It has to be called on the main thread.
+     */
+    void start() {
+        long timestamp = System.nanoTime();
+
+        try {
+            capture();
+        } catch (Exception | LinkageError x) {
+            logError(x);
+            network.finishRouting();
+            return;
+        }
+
+        captureTime = System.nanoTime() - timestamp;
+        Slimefun.getThreadService().newThread(Slimefun.instance(), "Cargo Route Planner", this::plan);
+    }
+
+    private void capture() {
+        for (Map.Entry<Location, Integer> entry : inputs.entrySet()) {
+            Location location = entry.getKey();
+            Optional<Block> attachedBlock = network.getAttachedBlock(location);
+
+            if (attachedBlock.isEmpty()) {
+                continue;
+            }
+
+            // Idle input nodes are skipped before their inventory is even copied
+            long signal = CargoUtils.getInventorySignal(attachedBlock.get());
+            if (network.isInputIdle(location, signal)) {
+                continue;
+            }
+
+            Node node = captureNode(location, attachedBlock.get());
+            var blockData = StorageCacheUtils.getBlock(location);
+
+            if (node == null || blockData == null) {
+                continue;
+            }
+
+            var event = new CargoWithdrawEvent(node.block, node.target.block, node.target.getInventory());
+            Bukkit.getPluginManager().callEvent(event);
+            if (event.isCancelled()) {
+                continue;
+            }
+
+            List<Location> destinations = outputs.get(entry.getValue());
+            if (destinations != null) {
+                for (Location output : destinations) {
+                    if (!outputNodes.containsKey(output)) {
+                        outputNodes.put(output, captureNode(output));
+                    }
+                }
+            }
+
+            inputNodes.add(new InputNode(
+                    node,
+                    entry.getValue(),
+                    Objects.equals(blockData.getData("round-robin"), "true"),
+                    Objects.equals(blockData.getData("smart-fill"), "true"),
+                    network.roundRobin.getOrDefault(location, 0),
+                    signal));
+        }
+    }
+
+    @Nullable private Node captureNode(@Nonnull Location location) {
+        Optional<Block> attachedBlock = network.getAttachedBlock(location);
+        return attachedBlock.isPresent() ? captureNode(location, attachedBlock.get()) : null;
+    }
+
+    @Nullable private Node captureNode(@Nonnull Location location, @Nonnull Block target) {
+        Location targetLocation = target.getLocation();
+        InventorySnapshot snapshot;
+
+        if (snapshots.containsKey(targetLocation)) {
+            snapshot = snapshots.get(targetLocation);
+        } else {
+            snapshot = InventorySnapshot.capture(target);
+            snapshots.put(targetLocation, snapshot);
+        }
+
+        if (snapshot == null) {
+            return null;
+        }
+
+        Block block = location.getBlock();
+        return new Node(location, block, snapshot, network.getItemFilter(block));
+    }
+
+    private void plan() {
+        try {
+            for (InputNode input : inputNodes) {
+                // Keep going as long as every withdrawn stack could be moved entirely
+                for (int i = 0; i < maxStacks; i++) {
+                    Route route = planRoute(input);
+
+                    if (route == null) {
+                        input.idle = i == 0;
+                        break;
+                    }
+
+                    routes.add(route);
+
+                    if (!route.complete) {
+                        break;
+                    }
+                }
+            }
+        } catch (Exception | LinkageError x) {
+            logError(x);
+            network.finishRouting();
+            return;
+        }
+
+        if (Slimefun.runSync(this::apply) == null) {
+            network.finishRouting();
+        }
+    }
+
+    @Nullable private Route planRoute(@Nonnull InputNode input) {
+        InventorySnapshot source = input.node.target;
+        Route route = new Route(input.node);
+        ItemStack stack = null;
+        int previousSlot = -1;
+
+        for (int slot : source.withdrawSlots) {
+            ItemStack item = source.contents[slot];
+
+            if (item != null && input.node.filter.test(item)) {
+                stack = item.clone();
+                previousSlot = slot;
+                route.set(source, slot, null);
+                break;
+            }
+        }
+
+        if (stack == null) {
+            return null;
+        }
+
+        int amount = stack.getAmount();
+        List<Location> destinations = outputs.get(input.frequency);
+
+        if (destinations != null) {
+            stack = distributeItem(route, input, stack, destinations);
+        }
+
+        if (stack != null) {
+            route.itemsMoved = amount - stack.getAmount();
+            returnItem(route, source, previousSlot, stack);
+        } else {
+            route.itemsMoved = amount;
+            route.complete = true;
+        }
+
+        return route;
+    }
+
+    /**
+     * This mirrors {@link CargoNetworkTask}, but plans the insertions on the snapshots.
+     */
+    @Nullable @ParametersAreNonnullByDefault
+    private ItemStack distributeItem(Route route, InputNode input, ItemStack stack, List<Location> outputNodes) {
+        ItemStack item = stack;
+
+        int index = 0;
+        int size = outputNodes.size();
+        int offset = 0;
+        if (input.roundRobin) {
+            index = input.roundRobinIndex;
+
+            if (index < size) {
+                offset = index;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            Node node = this.outputNodes.get(outputNodes.get((offset + i) % size));
+
+            if (node != null) {
+                item = insert(route, node, input.smartFill, item);
+
+                if (item == null) {
+                    if (input.roundRobin) {
+                        input.roundRobinIndex = (index + 1) % size;
+                        route.roundRobinIndex = input.roundRobinIndex;
+                    }
+                    break;
+                }
+            }
+            index++;
+        }
+
+        return item;
+    }
+
+    /**
+     * This mirrors {@link CargoUtils#insert}.
+     */
+    @Nullable @ParametersAreNonnullByDefault
+    private ItemStack insert(Route route, Node node, boolean smartFill, ItemStack stack) {
+        if (!node.filter.test(stack)) {
+            return stack;
+        }
+
+        InventorySnapshot target = node.target;
+        ItemStackWrapper wrapper = ItemStackWrapper.wrap(stack);
+        route.insertions.add(node);
+
+        int[] slots;
+        if (target.menu != null) {
+            slots = target.menu
+                    .getPreset()
+                    .getSlotsAccessedByItemTransport(target.menu, ItemTransportFlow.INSERT, wrapper);
+        } else if (InvUtils.isItemAllowed(stack.getType(), target.inventory.getType())) {
+            slots = toSlots(CargoUtils.getInputSlotRange(target.inventory, stack));
+        } else {
+            return stack;
+        }
+
+        for (int slot : slots) {
+            ItemStack itemInSlot = target.contents[slot];
+
+            if (itemInSlot == null) {
+                route.set(target, slot, stack);
+                return null;
+            }
+
+            int maxStackSize = itemInSlot.getType().getMaxStackSize();
+            int currentAmount = itemInSlot.getAmount();
+
+            if (!smartFill && currentAmount == maxStackSize) {
+                continue;
+            }
+
+            if (SlimefunUtils.isItemSimilar(itemInSlot, wrapper, true, false)) {
+                if (currentAmount < maxStackSize) {
+                    int amount = currentAmount + stack.getAmount();
+                    ItemStack merged = itemInSlot.clone();
+                    merged.setAmount(Math.min(amount, maxStackSize));
+                    route.set(target, slot, merged);
+
+                    if (amount > maxStackSize) {
+                        stack.setAmount(amount - maxStackSize);
+                        return stack;
+                    } else {
+                        return null;
+                    }
+                } else if (smartFill) {
+                    return stack;
+                }
+            }
+        }
+
+        return stack;
+    }
+
+    /**
+     * This puts the remaining items back into the input inventory, like {@link CargoNetworkTask} does.
+     */
+    @ParametersAreNonnullByDefault
+    private void returnItem(Route route, InventorySnapshot source, int previousSlot, ItemStack stack) {
+        if (source.contents[previousSlot] == null) {
+            route.set(source, previousSlot, stack);
+            return;
+        }
+
+        ItemStack rest = source.inventory != null ? addItem(route, source, stack) : stack;
+
+        if (rest != null && !manager.isItemDeletionEnabled()) {
+            route.drops.add(rest);
+        }
+    }
+
+    /**
+     * This mirrors {@link Inventory#addItem(ItemStack...)}: similar stacks are filled up first,
+     * then the first empty slots are used.
+     */
+    @Nullable @ParametersAreNonnullByDefault
+    private static ItemStack addItem(Route route, InventorySnapshot target, ItemStack stack) {
+        int maxStackSize = stack.getMaxStackSize();
+        int amount = stack.getAmount();
+
+        for (int slot = 0; slot < target.contents.length && amount > 0; slot++) {
+            ItemStack itemInSlot = target.contents[slot];
+
+            if (itemInSlot != null && itemInSlot.getAmount() < maxStackSize && itemInSlot.isSimilar(stack)) {
+                int added = Math.min(amount, maxStackSize - itemInSlot.getAmount());
+                ItemStack merged = itemInSlot.clone();
+                merged.setAmount(itemInSlot.getAmount() + added);
+                route.set(target, slot, merged);
+                amount -= added;
+            }
+        }
+
+        for (int slot = 0; slot < target.contents.length && amount > 0; slot++) {
+            if (target.contents[slot] == null) {
+                int added = Math.min(amount, maxStackSize);
+                ItemStack item = stack.clone();
+                item.setAmount(added);
+                route.set(target, slot, item);
+                amount -= added;
+            }
+        }
+
+        if (amount <= 0) {
+            return null;
+        }
+
+        stack.setAmount(amount);
+        return stack;
+    }
+
+    private void apply() {
+        long timestamp = System.nanoTime() - captureTime;
+
+        try {
+            if (regulatorData.isPendingRemove()) {
+                return;
+            }
+
+            SlimefunItem inputNode = SlimefunItems.CARGO_INPUT_NODE.getItem();
+            Slimefun.getProfiler().scheduleEntries(routes.size() + 1);
+
+            int stacksMoved = 0;
+            int itemsMoved = 0;
+
+            for (InputNode input : inputNodes) {
+                network.updateInputBackoff(input.node.location, input.signal, input.idle);
+            }
+
+            for (Route route : routes) {
+                long nodeTimestamp = System.nanoTime();
+
+                if (applyRoute(route)) {
+                    if (route.itemsMoved > 0) {
+                        stacksMoved++;
+                        itemsMoved += route.itemsMoved;
+                    }
+                } else {
+                    Debug.log(
+                            TestCase.CARGO_INPUT_TESTING,
+                            "Dropped a conflicting cargo route @ {}",
+                            new BlockPosition(route.input.location));
+                }
+
+                // This will prevent this timings from showing up for the Cargo Manager
+                timestamp += Slimefun.getProfiler().closeEntry(route.input.location, inputNode, nodeTimestamp);
+            }
+
+            // Submit a timings report
+            Slimefun.getProfiler().closeEntry(network.getRegulator(), SlimefunItems.CARGO_MANAGER.getItem(), timestamp);
+
+            Bukkit.getPluginManager()
+                    .callEvent(new CargoTransferBatchEvent(
+                            network.getRegulator(), maxStacks > 1, stacksMoved, itemsMoved));
+        } catch (Exception | LinkageError x) {
+            logError(x);
+        } finally {
+            network.finishRouting();
+        }
+    }
+
+    private boolean applyRoute(@Nonnull Route route) {
+        for (SlotChange change : route.changes.values()) {
+            if (!change.snapshot.matches(change.slot, change.before)) {
+                return false;
+            }
+        }
+
+        for (Node node : route.insertions) {
+            if (!callInsertEvent(node)) {
+                return false;
+            }
+        }
+
+        for (SlotChange change : route.changes.values()) {
+            change.snapshot.set(change.slot, change.after);
+        }
+
+        Location dropLocation = route.input.target.block.getLocation().add(0, 1, 0);
+        for (ItemStack drop : route.drops) {
+            // If the item still couldn't be inserted, simply drop it on the ground
+            SlimefunUtils.spawnItem(dropLocation, drop, ItemSpawnReason.CARGO_OVERFLOW);
+        }
+
+        if (route.roundRobinIndex >= 0) {
+            network.roundRobin.put(route.input.location, route.roundRobinIndex);
+        }
+
+        return true;
+    }
+
+    /**
+     * This calls the {@link CargoInsertEvent} for the given output node.
+     * With bulk transfer, the event is only called once per node and cycle and its result is reused.
+     *
+     * @return Whether the insertion is allowed
+     */
+    private boolean callInsertEvent(@Nonnull Node node) {
+        if (maxStacks > 1) {
+            Boolean allowed = insertEvents.get(node.location);
+
+            if (allowed != null) {
+                return allowed;
+            }
+        }
+
+        var event = new CargoInsertEvent(node.block, node.target.block, node.target.getInventory());
+        Bukkit.getPluginManager().callEvent(event);
+
+        if (maxStacks > 1) {
+            insertEvents.put(node.location, !event.isCancelled());
+        }
+
+        return !event.isCancelled();
+    }
+
+    private void logError(@Nonnull Throwable x) {
+        Slimefun.logger()
+                .log(
+                        Level.SEVERE,
+                        x,
+                        () -> "An Exception was caught while ticking a Cargo network @ "
+                                + new BlockPosition(network.getRegulator()));
+    }
+
+    @Nonnull
+    private static int[] toSlots(@Nonnull int[] range) {
+        int[] slots = new int[range[1] - range[0]];
+
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = range[0] + i;
+        }
+
+        return slots;
+    }
+
+    /**
+     * A cargo node together with the snapshot of the inventory it is attached to.
+     */
+    private static final class Node {
+        private final Location location;
+        private final Block block;
+        private final InventorySnapshot target;
+        private final ItemFilter filter;
+
+        private Node(Location location, Block block, InventorySnapshot target, ItemFilter filter) {
+            this.location = location;
+            this.block = block;
+            this.target = target;
+            this.filter = filter;
+        }
+    }
+
+    /**
+     * An input node and its configuration, the round-robin index advances with every planned route.
+     */
+    private static final class InputNode {
+        private final Node node;
+        private final int frequency;
+        private final boolean roundRobin;
+        private final boolean smartFill;
+        private final long signal;
+        private int roundRobinIndex;
+
+        /**
+         * Whether there was nothing to withdraw from this node.
+         */
+        private boolean idle;
+
+        private InputNode(
+                Node node, int frequency, boolean roundRobin, boolean smartFill, int roundRobinIndex, long signal) {
+            this.node = node;
+            this.frequency = frequency;
+            this.roundRobin = roundRobin;
+            this.smartFill = smartFill;
+            this.roundRobinIndex = roundRobinIndex;
+            this.signal = signal;
+        }
+    }
+
+    /**
+     * A copy of the contents of a {@link DirtyChestMenu} or vanilla {@link Inventory}.
+     * Empty slots are stored as null. The stacks in here are never modified, changed slots get a new copy instead.
+     */
+    private static final class InventorySnapshot {
+        private final Block block;
+        private final DirtyChestMenu menu;
+        private final Inventory inventory;
+        private final ItemStack[] contents;
+        private final int[] withdrawSlots;
+
+        /**
+         * The live {@link Inventory} of a vanilla block, it is resolved again for the apply phase.
+         */
+        private Inventory liveInventory;
+
+        private boolean validated;
+        private boolean valid;
+
+        private InventorySnapshot(
+                Block block,
+                @Nullable DirtyChestMenu menu,
+                @Nullable Inventory inventory,
+                ItemStack[] contents,
+                int[] withdrawSlots) {
+            this.block = block;
+            this.menu = menu;
+            this.inventory = inventory;
+            this.contents = contents;
+            this.withdrawSlots = withdrawSlots;
+        }
+
+        @Nullable private static InventorySnapshot capture(@Nonnull Block target) {
+            DirtyChestMenu menu = CargoUtils.getChestMenu(target);
+
+            if (menu != null) {
+                int[] withdrawSlots =
+                        menu.getPreset().getSlotsAccessedByItemTransport(menu, ItemTransportFlow.WITHDRAW, null);
+                return new InventorySnapshot(target, menu, null, copy(menu.getContents()), withdrawSlots);
+            }
+
+            Inventory inventory = getInventory(target);
+
+            if (inventory == null) {
+                return null;
+            }
+
+            int[] withdrawSlots = toSlots(CargoUtils.getOutputSlotRange(inventory));
+            return new InventorySnapshot(target, null, inventory, copy(inventory.getContents()), withdrawSlots);
+        }
+
+        @Nullable private static Inventory getInventory(@Nonnull Block block) {
+            if (!CargoUtils.hasInventory(block)) {
+                return null;
+            }
+
+            BlockState state = PaperLib.getBlockState(block, false).getState();
+            return state instanceof InventoryHolder holder ? holder.getInventory() : null;
+        }
+
+        @Nonnull
+        private static ItemStack[] copy(@Nonnull ItemStack[] items) {
+            ItemStack[] copy = new ItemStack[items.length];
+
+            for (int i = 0; i < items.length; i++) {
+                ItemStack item = items[i];
+
+                if (item != null && !item.getType().isAir()) {
+                    copy[i] = item.clone();
+                }
+            }
+
+            return copy;
+        }
+
+        @Nonnull
+        private Inventory getInventory() {
+            return menu != null ? menu.toInventory() : inventory;
+        }
+
+        /**
+         * This checks whether the inventory still exists, only the first call within the apply phase
+         * actually looks it up.
+         */
+        private boolean isValid() {
+            if (!validated) {
+                validated = true;
+
+                if (menu != null) {
+                    valid = CargoUtils.getChestMenu(block) == menu;
+                } else {
+                    liveInventory = getInventory(block);
+                    valid = liveInventory != null && liveInventory.getSize() == contents.length;
+                }
+            }
+
+            return valid;
+        }
+
+        private boolean matches(int slot, @Nullable ItemStack expected) {
+            if (!isValid()) {
+                return false;
+            }
+
+            ItemStack current = menu != null ? menu.getItemInSlot(slot) : liveInventory.getItem(slot);
+
+            if (current == null || current.getType().isAir()) {
+                return expected == null;
+            }
+
+            return expected != null && current.getAmount() == expected.getAmount() && current.isSimilar(expected);
+        }
+
+        private void set(int slot, @Nullable ItemStack item) {
+            if (menu != null) {
+                menu.replaceExistingItem(slot, item);
+            } else {
+                liveInventory.setItem(slot, item);
+            }
+        }
+    }
+
+    private record SlotKey(InventorySnapshot snapshot, int slot) {}
+
+    private static final class SlotChange {
+        private final InventorySnapshot snapshot;
+        private final int slot;
+        private final ItemStack before;
+        private ItemStack after;
+
+        private SlotChange(InventorySnapshot snapshot, int slot, @Nullable ItemStack before) {
+            this.snapshot = snapshot;
+            this.slot = slot;
+            this.before = before;
+        }
+    }
+
+    /**
+     * The planned transfer of a single input node.
+     * Only the first and the last state of every touched slot is kept.
+     */
+    private static final class Route {
+        private final Node input;
+        private final Map<SlotKey, SlotChange> changes = new LinkedHashMap<>();
+        private final List<Node> insertions = new ArrayList<>();
+        private final List<ItemStack> drops = new ArrayList<>();
+        private int roundRobinIndex = -1;
+        private int itemsMoved;
+
+        /**
+         * Whether the withdrawn stack has been moved entirely.
+         */
+        private boolean complete;
+
+        private Route(Node input) {
+            this.input = input;
+        }
+
+        private void set(InventorySnapshot snapshot, int slot, @Nullable ItemStack item) {
+            changes.computeIfAbsent(
+                            new SlotKey(snapshot, slot), key -> new SlotChange(snapshot, slot, snapshot.contents[slot]))
+                    .after = item;
+            snapshot.contents[slot] = item;
+        }
+    }
+}
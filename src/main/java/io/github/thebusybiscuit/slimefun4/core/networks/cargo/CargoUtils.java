@@ -6,6 +6,7 @@ import com.xzavier0722.mc.plugin.slimefuncomplib.event.cargo.CargoWithdrawEvent;
 import io.github.bakedlibs.dough.inventory.InvUtils;
 import io.github.thebusybiscuit.slimefun4.core.debug.Debug;
 import io.github.thebusybiscuit.slimefun4.core.debug.TestCase;
+import io.github.thebusybiscuit.slimefun4.core.networks.IdleBackoff;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
 import io.github.thebusybiscuit.slimefun4.utils.SlimefunUtils;
 import io.github.thebusybiscuit.slimefun4.utils.itemstack.ItemStackWrapper;
@@ -204,13 +205,33 @@ final class CargoUtils {
 
     @Nullable static ItemStackAndInteger withdraw(
             AbstractItemNetwork network, Map<Location, Inventory> inventories, Block node, Block target) {
+        return withdraw(network, inventories, node, target, true);
+    }
+
+    /**
+     * This withdraws the first matching stack from the target of an input node.
+     *
+     * @param callEvent
+     *            Whether to call a {@link CargoWithdrawEvent}, it may be skipped if it has
+     *            already been called for this node during the current cycle
+     *
+     * @return The withdrawn stack and its previous slot, null if nothing was withdrawn
+     */
+    @Nullable static ItemStackAndInteger withdraw(
+            AbstractItemNetwork network,
+            Map<Location, Inventory> inventories,
+            Block node,
+            Block target,
+            boolean callEvent) {
         DirtyChestMenu menu = getChestMenu(target);
 
         if (menu != null) {
-            var event = new CargoWithdrawEvent(node, target, menu.toInventory());
-            Bukkit.getPluginManager().callEvent(event);
-            if (event.isCancelled()) {
-                return null;
+            if (callEvent) {
+                var event = new CargoWithdrawEvent(node, target, menu.toInventory());
+                Bukkit.getPluginManager().callEvent(event);
+                if (event.isCancelled()) {
+                    return null;
+                }
             }
 
             for (int slot : menu.getPreset().getSlotsAccessedByItemTransport(menu, ItemTransportFlow.WITHDRAW, null)) {
@@ -234,11 +255,15 @@ final class CargoUtils {
                 inventories.put(target.getLocation(), inventory);
             }
 
-            var event = new CargoWithdrawEvent(node, target, inventory);
-            Bukkit.getPluginManager().callEvent(event);
-            if (!event.isCancelled()) {
-                return withdrawFromVanillaInventory(network, node, inventory);
+            if (callEvent) {
+                var event = new CargoWithdrawEvent(node, target, inventory);
+                Bukkit.getPluginManager().callEvent(event);
+                if (event.isCancelled()) {
+                    return null;
+                }
             }
+
+            return withdrawFromVanillaInventory(network, node, inventory);
         }
 
         return null;
@@ -401,6 +426,28 @@ final class CargoUtils {
         return StorageCacheUtils.getMenu(block.getLocation());
     }
 
+    /**
+     * This returns the signal of an input node's target for its {@link IdleBackoff}.
+     * It changes whenever the {@link DirtyChestMenu} of the target is marked dirty.
+     * Vanilla inventories do not provide such a signal, so input nodes attached to them never back off.
+     *
+     * @param target
+     *            The {@link Block} an input node is attached to
+     *
+     * @return The current signal, negative if the target may change without a signal
+     */
+    static long getInventorySignal(@Nonnull Block target) {
+        DirtyChestMenu menu = getChestMenu(target);
+
+        // Vanilla inventories can be filled by hoppers or players without any notification
+        if (menu == null) {
+            return -1;
+        }
+
+        // Players can move items in a menu without marking it dirty
+        return menu.hasViewer() ? -1 : Integer.toUnsignedLong(menu.getModificationCount());
+    }
+
     static boolean matchesFilter(@Nonnull AbstractItemNetwork network, @Nonnull Block node, @Nullable ItemStack item) {
         if (item == null || item.getType() == Material.AIR) {
             return false;
@@ -8,8 +8,6 @@ import io.github.thebusybiscuit.slimefun4.core.debug.Debug;
 import io.github.thebusybiscuit.slimefun4.core.debug.TestCase;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
 import io.github.thebusybiscuit.slimefun4.implementation.items.cargo.CargoNode;
-import io.github.thebusybiscuit.slimefun4.utils.SlimefunUtils;
-import io.github.thebusybiscuit.slimefun4.utils.itemstack.ItemStackWrapper;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -33,24 +31,16 @@ import org.bukkit.inventory.ItemStack;
 class ItemFilter implements Predicate<ItemStack> {
 
     /**
-     * Our {@link List} of items to check against, might be empty.
-     * This has a maximum capacity of 9.
-     */
-    private final List<ItemStackWrapper> items = new ArrayList<>(9);
-
-    /**
-     * Our default value for this {@link ItemFilter}.
+     * The compiled items of this {@link ItemFilter}.
+     * It is replaced as a whole on every update, so it can be tested from any thread.
+     * <p>
+     * Its default value decides what happens to items without a match.
      * A default value of {@literal true} will mean that it returns true if no
      * match was found. It will deny any items that match.
      * A default value of {@literal false} means that it will return false if no
      * match was found. Only items that match will make it past this {@link ItemFilter}.
      */
-    private boolean rejectOnMatch;
-
-    /**
-     * Whether we should also compare the lore.
-     */
-    private boolean checkLore;
+    private volatile ItemFilterMatcher matcher = ItemFilterMatcher.empty(false);
 
     /**
      * If an {@link ItemFilter} is marked as dirty / outdated, then it will be updated
@@ -136,17 +126,20 @@ class ItemFilter implements Predicate<ItemStack> {
                         return;
                     }
 
-                    this.items.clear();
-                    this.checkLore = Objects.equals(blockData.getData("filter-lore"), "true");
-                    this.rejectOnMatch = !Objects.equals(blockData.getData("filter-type"), "whitelist");
+                    List<ItemStack> items = new ArrayList<>(slots.length);
 
                     for (int slot : slots) {
                         ItemStack stack = menu.getItemInSlot(slot);
 
                         if (stack != null && stack.getType() != Material.AIR) {
-                            this.items.add(ItemStackWrapper.wrap(stack));
+                            items.add(stack);
                         }
                     }
+
+                    this.matcher = ItemFilterMatcher.compile(
+                            items,
+                            Objects.equals(blockData.getData("filter-lore"), "true"),
+                            !Objects.equals(blockData.getData("filter-type"), "whitelist"));
                 }
             } catch (Exception | LinkageError x) {
                 item.error("Something went wrong while updating the ItemFilter for this cargo node.", x);
@@ -164,9 +157,7 @@ class ItemFilter implements Predicate<ItemStack> {
      *            Whether the item should be rejected on matches
      */
     private void clear(boolean rejectOnMatch) {
-        this.items.clear();
-        this.checkLore = false;
-        this.rejectOnMatch = rejectOnMatch;
+        this.matcher = ItemFilterMatcher.empty(rejectOnMatch);
     }
 
     /**
@@ -192,56 +183,6 @@ class ItemFilter implements Predicate<ItemStack> {
         }
 
         Debug.log(TestCase.CARGO_INPUT_TESTING, "ItemFilter#test({})", item);
-        /*
-         * An empty Filter does not need to be iterated over.
-         * We can just return our default value in this scenario.
-         */
-        if (items.isEmpty()) {
-            return rejectOnMatch;
-        }
-
-        // The amount of potential matches with that item.
-        int potentialMatches = 0;
-
-        /*
-         * This is a first check for materials to see if we might even have any match.
-         * If there is no potential match then we won't need to perform the quite
-         * intense operation .getItemMeta()
-         */
-        for (ItemStackWrapper stack : items) {
-            if (stack.getType() == item.getType()) {
-                // We found a potential match based on the Material
-                potentialMatches++;
-            }
-        }
-
-        if (potentialMatches == 0) {
-            // If there is no match, we can safely assume the default value
-            return rejectOnMatch;
-        } else {
-            /*
-             * If there is more than one potential match, create a wrapper to save
-             * performance on the ItemMeta otherwise just use the item directly.
-             */
-            ItemStack subject = potentialMatches == 1 ? item : ItemStackWrapper.wrap(item);
-
-            /*
-             * If there is only one match, we won't need to create a Wrapper
-             * and thus only perform .getItemMeta() once
-             */
-            for (ItemStackWrapper stack : items) {
-                if (SlimefunUtils.isItemSimilar(subject, stack, checkLore, false)) {
-                    /*
-                     * The filter has found a match, we can return the opposite
-                     * of our default value. If we exclude items, this is where we
-                     * would return false. Otherwise, we return true.
-                     */
-                    return !rejectOnMatch;
-                }
-            }
-
-            // If no particular item was matched, we fallback to our default value.
-            return rejectOnMatch;
-        }
+        return matcher.test(item);
     }
 }
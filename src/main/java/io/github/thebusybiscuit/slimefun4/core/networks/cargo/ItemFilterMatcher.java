@@ -0,0 +1,181 @@
+package io.github.thebusybiscuit.slimefun4.core.networks.cargo;
+
+import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItem;
+import io.github.thebusybiscuit.slimefun4.core.attributes.DistinctiveItem;
+import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import io.github.thebusybiscuit.slimefun4.utils.SlimefunUtils;
+import io.github.thebusybiscuit.slimefun4.utils.itemstack.ItemStackWrapper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+/**
+ * The compiled form of an {@link ItemFilter}.
+ * <p>
+ * The filter items are indexed by their {@link Material} first. Within a {@link Material}, Slimefun items
+ * are looked up by their id and any other item by a fingerprint of the parts of its {@link ItemMeta} which
+ * have to match exactly. Only the candidates found this way are compared using
+ * {@link SlimefunUtils#isItemSimilar(ItemStack, ItemStack, boolean, boolean)}, so the result is the same
+ * as comparing the item against every filter item.
+ * <p>
+ * An {@link ItemFilterMatcher} is immutable and can be tested from any thread.
+ *
+ * @see ItemFilter
+ *
+ */
+final class ItemFilterMatcher implements Predicate<ItemStack> {
+
+    private final Map<Material, MaterialGroup> groups;
+    private final boolean checkLore;
+    private final boolean rejectOnMatch;
+
+    private ItemFilterMatcher(Map<Material, MaterialGroup> groups, boolean checkLore, boolean rejectOnMatch) {
+        this.groups = groups;
+        this.checkLore = checkLore;
+        this.rejectOnMatch = rejectOnMatch;
+    }
+
+    /**
+     * This creates a matcher without any items, it returns the given default value for any {@link ItemStack}.
+     *
+     * @param rejectOnMatch
+     *            The default value of the {@link ItemFilter}
+     *
+     * @return An empty {@link ItemFilterMatcher}
+     */
+    @Nonnull
+    static ItemFilterMatcher empty(boolean rejectOnMatch) {
+        return new ItemFilterMatcher(Collections.emptyMap(), false, rejectOnMatch);
+    }
+
+    /**
+     * This compiles the given filter items.
+     *
+     * @param items
+     *            The items of the {@link ItemFilter}
+     * @param checkLore
+     *            Whether the lore has to match as well
+     * @param rejectOnMatch
+     *            Whether matching items are rejected
+     *
+     * @return The compiled {@link ItemFilterMatcher}
+     */
+    @Nonnull
+    static ItemFilterMatcher compile(@Nonnull List<ItemStack> items, boolean checkLore, boolean rejectOnMatch) {
+        Map<Material, MaterialGroup> groups = new EnumMap<>(Material.class);
+
+        for (ItemStack item : items) {
+            ItemStackWrapper wrapper = ItemStackWrapper.wrap(item);
+            MaterialGroup group = groups.computeIfAbsent(wrapper.getType(), type -> new MaterialGroup());
+
+            if (!wrapper.hasItemMeta()) {
+                group.plain = true;
+                continue;
+            }
+
+            ItemMeta meta = wrapper.getItemMeta();
+            String id = Slimefun.getItemDataService().getItemData(meta).orElse(null);
+
+            if (id != null) {
+                group.byId.computeIfAbsent(id, key -> new ArrayList<>()).add(wrapper);
+            }
+
+            group.byFingerprint
+                    .computeIfAbsent(MetaFingerprint.of(meta), key -> new ArrayList<>())
+                    .add(new Candidate(wrapper, id));
+        }
+
+        return new ItemFilterMatcher(groups, checkLore, rejectOnMatch);
+    }
+
+    @Override
+    public boolean test(@Nonnull ItemStack item) {
+        MaterialGroup group = groups.get(item.getType());
+
+        if (group == null) {
+            // If there is no match, we can safely assume the default value
+            return rejectOnMatch;
+        }
+
+        return group.matches(item, checkLore) != rejectOnMatch;
+    }
+
+    /**
+     * The parts of an {@link ItemMeta} which have to be equal for two items without a common Slimefun id.
+     */
+    private record MetaFingerprint(@Nullable String displayName, @Nullable Integer customModelData) {
+
+        @Nonnull
+        private static MetaFingerprint of(@Nonnull ItemMeta meta) {
+            return new MetaFingerprint(
+                    meta.hasDisplayName() ? meta.getDisplayName() : null,
+                    meta.hasCustomModelData() ? meta.getCustomModelData() : null);
+        }
+    }
+
+    private record Candidate(ItemStackWrapper item, @Nullable String id) {}
+
+    private static final class MaterialGroup {
+
+        /**
+         * Whether this group contains an item without any {@link ItemMeta}.
+         */
+        private boolean plain;
+
+        private final Map<String, List<ItemStackWrapper>> byId = new HashMap<>();
+        private final Map<MetaFingerprint, List<Candidate>> byFingerprint = new HashMap<>();
+
+        private boolean matches(@Nonnull ItemStack item, boolean checkLore) {
+            if (!item.hasItemMeta()) {
+                return plain;
+            }
+
+            // The wrapper only clones the ItemMeta once for every comparison below
+            ItemStackWrapper subject = ItemStackWrapper.wrap(item);
+            ItemMeta meta = subject.getItemMeta();
+            String id = Slimefun.getItemDataService().getItemData(meta).orElse(null);
+
+            if (id != null) {
+                List<ItemStackWrapper> sameId = byId.get(id);
+
+                if (sameId != null) {
+                    if (!(SlimefunItem.getById(id) instanceof DistinctiveItem)) {
+                        return true;
+                    }
+
+                    for (ItemStackWrapper candidate : sameId) {
+                        if (SlimefunUtils.isItemSimilar(subject, candidate, checkLore, false)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+
+            List<Candidate> candidates = byFingerprint.get(MetaFingerprint.of(meta));
+
+            if (candidates != null) {
+                for (Candidate candidate : candidates) {
+                    // Two Slimefun items are only ever compared by their ids
+                    if (id != null && candidate.id() != null) {
+                        continue;
+                    }
+
+                    if (SlimefunUtils.isItemSimilar(subject, candidate.item(), checkLore, false)) {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -10,10 +10,13 @@ import io.github.thebusybiscuit.slimefun4.api.network.NetworkComponent;
 import io.github.thebusybiscuit.slimefun4.core.attributes.EnergyNetComponent;
 import io.github.thebusybiscuit.slimefun4.core.attributes.EnergyNetProvider;
 import io.github.thebusybiscuit.slimefun4.core.attributes.HologramOwner;
+import io.github.thebusybiscuit.slimefun4.core.networks.IdleBackoff;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
 import io.github.thebusybiscuit.slimefun4.implementation.SlimefunItems;
 import io.github.thebusybiscuit.slimefun4.utils.NumberUtils;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -44,10 +47,46 @@ public class EnergyNet extends Network implements HologramOwner {
 
     private static final int RANGE = 6;
 
+    /**
+     * The charge of an {@link EnergyNode} which has not been read, it is always written to.
+     */
+    private static final int UNKNOWN_CHARGE = -1;
+
+    /**
+     * Whether an {@link EnergyNetComponent} class reads its charge from {@link SlimefunBlockData#getCharge()}.
+     * Only then the stored charge is a reliable signal to wake up a fully charged consumer.
+     */
+    private static final ClassValue<Boolean> TYPED_CHARGE = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("getCharge", Location.class, SlimefunBlockData.class)
+                                .getDeclaringClass()
+                        == EnergyNetComponent.class;
+            } catch (NoSuchMethodException x) {
+                return false;
+            }
+        }
+    };
+
+    private static final Comparator<EnergyNode> NODE_ORDER = Comparator.<EnergyNode>comparingInt(node -> node.y)
+            .thenComparingInt(node -> node.x)
+            .thenComparingInt(node -> node.z);
+
     private final Map<Location, EnergyNetProvider> generators = new HashMap<>();
     private final Map<Location, EnergyNetComponent> capacitors = new HashMap<>();
     private final Map<Location, EnergyNetComponent> consumers = new HashMap<>();
 
+    /**
+     * Pre-resolved copies of the component {@link Map Maps} above, which are used while ticking.
+     * They are only rebuilt when the components of this {@link EnergyNet} change.
+     */
+    private EnergyNode[] generatorNodes = new EnergyNode[0];
+
+    private EnergyNode[] capacitorNodes = new EnergyNode[0];
+    private EnergyNode[] consumerNodes = new EnergyNode[0];
+    private boolean nodesChanged = true;
+
     protected EnergyNet(@Nonnull Location l) {
         super(Slimefun.getNetworkManager(), l);
     }
@@ -110,6 +149,8 @@ public class EnergyNet extends Network implements HologramOwner {
 
     @Override
     public void onClassificationChange(Location l, NetworkComponent from, NetworkComponent to) {
+        nodesChanged = true;
+
         if (from == NetworkComponent.TERMINUS) {
             generators.remove(l);
             consumers.remove(l);
@@ -149,32 +190,66 @@ public class EnergyNet extends Network implements HologramOwner {
             return;
         }
 
+        EnergyNetScheduler scheduler = Slimefun.getTickerTask().getEnergyNetScheduler();
+
+        if (scheduler != null) {
+            // The topology is updated right away, so the scheduler knows which components this network shares.
+            // The energy is distributed by the scheduler once this cycle is done
+            super.tick();
+            scheduler.schedule(this, b, blockData);
+        } else {
+            tickNetwork(b, blockData, timestamp::getAndAdd);
+        }
+
+        // We have subtracted the timings from Generators, so they do not show up twice.
+        Slimefun.getProfiler().closeEntry(b.getLocation(), SlimefunItems.ENERGY_REGULATOR.getItem(), timestamp.get());
+    }
+
+    /**
+     * This updates the topology of this {@link EnergyNet} and distributes its energy.
+     *
+     * @param b
+     *            The regulator of this {@link EnergyNet}
+     * @param blockData
+     *            The {@link SlimefunBlockData} of the regulator
+     * @param timings
+     *            Receives the timings of every generator
+     */
+    void tickNetwork(@Nonnull Block b, @Nonnull SlimefunBlockData blockData, @Nonnull LongConsumer timings) {
         super.tick();
+        distributeEnergy(b, blockData, timings);
+    }
 
+    /**
+     * This distributes the energy of this {@link EnergyNet} without updating its topology first.
+     *
+     * @param b
+     *            The regulator of this {@link EnergyNet}
+     * @param blockData
+     *            The {@link SlimefunBlockData} of the regulator
+     * @param timings
+     *            Receives the timings of every generator
+     */
+    void distributeEnergy(@Nonnull Block b, @Nonnull SlimefunBlockData blockData, @Nonnull LongConsumer timings) {
         if (connectorNodes.isEmpty() && terminusNodes.isEmpty()) {
             updateHologram(b, "&4找不到能源网络", blockData::isPendingRemove);
         } else {
-            int supply = tickAllGenerators(timestamp::getAndAdd) + tickAllCapacitors();
+            rebuildNodes();
+
+            int supply = tickAllGenerators(timings) + tickAllCapacitors();
             int remainingEnergy = supply;
             int demand = 0;
+            int idleBackoffCap = Slimefun.getNetworkManager().getIdleBackoffCap();
 
-            for (Map.Entry<Location, EnergyNetComponent> entry : consumers.entrySet()) {
-                Location loc = entry.getKey();
-
-                var data = StorageCacheUtils.getBlock(loc);
-                if (data == null || data.isPendingRemove()) {
+            for (EnergyNode node : consumerNodes) {
+                // A fully charged consumer has no demand, it is skipped until its stored charge changes
+                if (node.backoff.skip(node.getChargeSignal())) {
                     continue;
                 }
 
-                EnergyNetComponent component = entry.getValue();
-                if (!((SlimefunItem) component).getId().equals(data.getSfId())) {
-                    var newItem = SlimefunItem.getById(data.getSfId());
-                    if (!(newItem instanceof EnergyNetComponent newComponent)
-                            || newComponent.getEnergyComponentType() != EnergyNetComponentType.CONSUMER) {
-                        continue;
-                    }
-                    consumers.put(loc, newComponent);
-                    component = newComponent;
+                SlimefunBlockData data = node.getData();
+                if (data == null) {
+                    continue;
                 }
 
                 if (!data.isDataLoaded()) {
@@ -182,10 +257,17 @@ public class EnergyNet extends Network implements HologramOwner {
                     continue;
                 }
 
-                int capacity = component.getCapacity();
-                int charge = component.getCharge(loc);
+                EnergyNetComponent component = node.component;
+                Location loc = node.location;
+                int capacity = node.capacity;
+                long signal = node.getChargeSignal();
+                int charge = component.getCharge(loc, data);
+
+                if (charge >= capacity) {
+                    node.backoff.idle(signal, idleBackoffCap);
+                } else {
+                    node.backoff.wake();
 
-                if (charge < capacity) {
                     int availableSpace = capacity - charge;
                     demand += availableSpace;
 
@@ -204,96 +286,118 @@ public class EnergyNet extends Network implements HologramOwner {
             storeRemainingEnergy(remainingEnergy);
             updateHologram(blockData, supply, demand);
         }
-
-        // We have subtracted the timings from Generators, so they do not show up twice.
-        Slimefun.getProfiler().closeEntry(b.getLocation(), SlimefunItems.ENERGY_REGULATOR.getItem(), timestamp.get());
     }
 
-    private void storeRemainingEnergy(int remainingEnergy) {
-        for (Map.Entry<Location, EnergyNetComponent> entry : capacitors.entrySet()) {
-            Location loc = entry.getKey();
-
-            var data = StorageCacheUtils.getBlock(loc);
-            if (data == null || data.isPendingRemove() || !data.isDataLoaded()) {
-                continue;
-            }
+    /**
+     * This returns the {@link Location Locations} of every generator, capacitor and consumer of this {@link EnergyNet}.
+     * A component may be adjacent to, and therefore part of, more than one {@link EnergyNet}.
+     *
+     * @return The {@link Location Locations} of all components
+     */
+    @Nonnull
+    Set<Location> getComponentLocations() {
+        Set<Location> locations = new HashSet<>(generators.keySet());
+        locations.addAll(capacitors.keySet());
+        locations.addAll(consumers.keySet());
+        return locations;
+    }
 
-            EnergyNetComponent component = entry.getValue();
+    private void rebuildNodes() {
+        if (!nodesChanged) {
+            return;
+        }
 
-            if (remainingEnergy > 0) {
-                int capacity = component.getCapacity();
+        nodesChanged = false;
+        generatorNodes = toNodes(generators, EnergyNetComponentType.GENERATOR);
+        capacitorNodes = toNodes(capacitors, EnergyNetComponentType.CAPACITOR);
+        consumerNodes = toNodes(consumers, EnergyNetComponentType.CONSUMER);
+    }
 
-                if (remainingEnergy > capacity) {
-                    component.setCharge(loc, capacity);
-                    remainingEnergy -= capacity;
-                } else {
-                    component.setCharge(loc, remainingEnergy);
-                    remainingEnergy = 0;
-                }
-            } else {
-                component.setCharge(loc, 0);
-            }
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    private static EnergyNode[] toNodes(
+            @Nonnull Map<Location, ? extends EnergyNetComponent> components, @Nonnull EnergyNetComponentType type) {
+        EnergyNode[] nodes = new EnergyNode[components.size()];
+        int i = 0;
+
+        for (Map.Entry<Location, ? extends EnergyNetComponent> entry : components.entrySet()) {
+            // A replaced component is always checked against the type of the Map first
+            nodes[i++] = new EnergyNode(
+                    entry.getKey(), entry.getValue(), type, (Map<Location, EnergyNetComponent>) components);
         }
 
-        for (Map.Entry<Location, EnergyNetProvider> entry : generators.entrySet()) {
-            Location loc = entry.getKey();
+        // Always visit the nodes in the same order, regardless of how they were discovered
+        Arrays.sort(nodes, NODE_ORDER);
+        return nodes;
+    }
+
+    /**
+     * This stores the remaining energy in the capacitors first and then in the generators.
+     * <p>
+     * Every capacitor keeps its own charge, they are just filled in a fixed order, so only the
+     * nodes around the current fill level usually change. Every node keeps the charge which has been read
+     * during this tick, only nodes whose charge actually changes are written to.
+     */
+    private void storeRemainingEnergy(int remainingEnergy) {
+        remainingEnergy = storeRemainingEnergy(capacitorNodes, remainingEnergy);
+        storeRemainingEnergy(generatorNodes, remainingEnergy);
+    }
 
-            var data = StorageCacheUtils.getBlock(loc);
-            if (data == null || data.isPendingRemove() || !data.isDataLoaded()) {
+    private int storeRemainingEnergy(@Nonnull EnergyNode[] nodes, int remainingEnergy) {
+        for (EnergyNode node : nodes) {
+            SlimefunBlockData data = node.getData();
+            if (data == null || !data.isDataLoaded()) {
                 continue;
             }
 
-            EnergyNetProvider component = entry.getValue();
-            int capacity = component.getCapacity();
+            int capacity = node.capacity;
+            int charge;
 
-            if (remainingEnergy > 0) {
-                if (remainingEnergy > capacity) {
-                    component.setCharge(loc, capacity);
-                    remainingEnergy -= capacity;
-                } else {
-                    component.setCharge(loc, remainingEnergy);
-                    remainingEnergy = 0;
-                }
+            if (remainingEnergy > capacity) {
+                charge = capacity;
+                remainingEnergy -= capacity;
             } else {
-                component.setCharge(loc, 0);
+                charge = remainingEnergy;
+                remainingEnergy = 0;
+            }
+
+            if (charge != node.charge) {
+                node.component.setCharge(node.location, charge);
+                node.charge = charge;
             }
         }
+
+        return remainingEnergy;
     }
 
     private int tickAllGenerators(@Nonnull LongConsumer timings) {
         Set<Location> explodedBlocks = new HashSet<>();
         int supply = 0;
 
-        for (Map.Entry<Location, EnergyNetProvider> entry : generators.entrySet()) {
+        for (EnergyNode node : generatorNodes) {
             long timestamp = Slimefun.getProfiler().newEntry();
-            Location loc = entry.getKey();
-            EnergyNetProvider provider = entry.getValue();
-            SlimefunItem item = (SlimefunItem) provider;
+            Location loc = node.location;
+            SlimefunItem item = (SlimefunItem) node.component;
 
             try {
-                var data = StorageCacheUtils.getBlock(loc);
-                if (data == null || data.isPendingRemove()) {
+                node.charge = UNKNOWN_CHARGE;
+                SlimefunBlockData data = node.getData();
+                if (data == null) {
                     continue;
                 }
 
-                if (!item.getId().equals(data.getSfId())) {
-                    var newItem = SlimefunItem.getById(data.getSfId());
-                    if (!(newItem instanceof EnergyNetProvider newProvider)) {
-                        continue;
-                    }
-                    generators.put(loc, newProvider);
-                    provider = newProvider;
-                }
-
                 if (!data.isDataLoaded()) {
                     StorageCacheUtils.requestLoad(data);
                     continue;
                 }
 
+                EnergyNetProvider provider = (EnergyNetProvider) node.component;
+                item = (SlimefunItem) provider;
                 int energy = provider.getGeneratedOutput(loc, data);
 
                 if (provider.isChargeable()) {
-                    energy = MathUtil.saturatedAdd(energy, provider.getCharge(loc));
+                    node.charge = provider.getCharge(loc, data);
+                    energy = MathUtil.saturatedAdd(energy, node.charge);
                 }
 
                 if (provider.willExplode(loc, data)) {
@@ -319,6 +423,7 @@ public class EnergyNet extends Network implements HologramOwner {
         // Remove all generators which have exploded
         if (!explodedBlocks.isEmpty()) {
             generators.keySet().removeAll(explodedBlocks);
+            nodesChanged = true;
         }
 
         return supply;
@@ -327,8 +432,20 @@ public class EnergyNet extends Network implements HologramOwner {
     private int tickAllCapacitors() {
         int supply = 0;
 
-        for (Map.Entry<Location, EnergyNetComponent> entry : capacitors.entrySet()) {
-            supply = MathUtil.saturatedAdd(supply, entry.getValue().getCharge(entry.getKey()));
+        for (EnergyNode node : capacitorNodes) {
+            node.charge = UNKNOWN_CHARGE;
+            SlimefunBlockData data = node.getData();
+            if (data == null) {
+                continue;
+            }
+
+            if (!data.isDataLoaded()) {
+                StorageCacheUtils.requestLoad(data);
+                continue;
+            }
+
+            node.charge = node.component.getCharge(node.location, data);
+            supply = MathUtil.saturatedAdd(supply, node.charge);
         }
 
         return supply;
@@ -346,6 +463,101 @@ public class EnergyNet extends Network implements HologramOwner {
         }
     }
 
+    /**
+     * A component of an {@link EnergyNet} together with its resolved {@link SlimefunBlockData}.
+     * The block data is looked up by its coordinates and only resolved again when the block changed.
+     */
+    private static final class EnergyNode {
+        private final Location location;
+        private final int x;
+        private final int y;
+        private final int z;
+        private final EnergyNetComponentType type;
+        private final Map<Location, EnergyNetComponent> components;
+        private final IdleBackoff backoff = new IdleBackoff();
+        private EnergyNetComponent component;
+        private int capacity;
+        private boolean typedCharge;
+
+        /**
+         * The charge read during the current tick, {@link #UNKNOWN_CHARGE} if it has not been read.
+         */
+        private int charge = UNKNOWN_CHARGE;
+
+        private SlimefunBlockData data;
+        private boolean valid;
+
+        private EnergyNode(
+                @Nonnull Location location,
+                @Nonnull EnergyNetComponent component,
+                @Nonnull EnergyNetComponentType type,
+                @Nonnull Map<Location, EnergyNetComponent> components) {
+            this.location = location;
+            this.x = location.getBlockX();
+            this.y = location.getBlockY();
+            this.z = location.getBlockZ();
+            this.type = type;
+            this.components = components;
+            this.component = component;
+            this.capacity = component.getCapacity();
+            this.typedCharge = TYPED_CHARGE.get(component.getClass());
+        }
+
+        /**
+         * This returns the current {@link SlimefunBlockData} of this node, or null if it cannot be ticked.
+         * When a different item has been placed here, the component is swapped out in the {@link Map} of the network too.
+         */
+        @Nullable private SlimefunBlockData getData() {
+            SlimefunBlockData current = Slimefun.getDatabaseManager()
+                    .getBlockDataController()
+                    .getBlockDataFromCache(location.getWorld(), x, y, z);
+
+            if (current != data) {
+                data = current;
+                valid = current != null && resolve(current);
+            }
+
+            return valid && !current.isPendingRemove() ? current : null;
+        }
+
+        /**
+         * This returns the signal for the {@link IdleBackoff} of this node, the stored charge of its block.
+         * It is read from the last resolved {@link SlimefunBlockData} without looking the block up again,
+         * every charge update goes through that object. A removed block or a component with its own
+         * charge storage never backs off.
+         */
+        private long getChargeSignal() {
+            SlimefunBlockData current = data;
+
+            if (!valid || !typedCharge || current == null || current.isPendingRemove() || !current.isDataLoaded()) {
+                return -1;
+            }
+
+            return current.getCharge();
+        }
+
+        private boolean resolve(@Nonnull SlimefunBlockData current) {
+            if (((SlimefunItem) component).getId().equals(current.getSfId())) {
+                return true;
+            }
+
+            SlimefunItem newItem = SlimefunItem.getById(current.getSfId());
+
+            if (!(newItem instanceof EnergyNetComponent newComponent)
+                    || newComponent.getEnergyComponentType() != type
+                    || (type == EnergyNetComponentType.GENERATOR && !(newComponent instanceof EnergyNetProvider))) {
+                return false;
+            }
+
+            components.put(location, newComponent);
+            component = newComponent;
+            capacity = newComponent.getCapacity();
+            typedCharge = TYPED_CHARGE.get(newComponent.getClass());
+            backoff.wake();
+            return true;
+        }
+    }
+
     @Nullable private static EnergyNetComponent getComponent(@Nonnull Location l) {
         SlimefunItem item = StorageCacheUtils.getSfItem(l);
 
@@ -0,0 +1,178 @@
+package io.github.thebusybiscuit.slimefun4.core.networks.energy;
+
+import com.xzavier0722.mc.plugin.slimefun4.storage.controller.SlimefunBlockData;
+import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import io.github.thebusybiscuit.slimefun4.implementation.tasks.TickerTask;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.apache.commons.lang.Validate;
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+
+/**
+ * The {@link EnergyNetScheduler} ticks every {@link EnergyNet} of a {@link TickerTask} cycle in parallel.
+ * <p>
+ * The regulator of an {@link EnergyNet} only updates the topology and schedules its network while it is ticked,
+ * the energy is distributed once all blocks of that cycle have been ticked.
+ * A generator, capacitor or consumer may be adjacent to the connectors of two networks and then belongs to both.
+ * Networks sharing such a component are ticked one after another by the same worker,
+ * every other network is ticked in parallel. Nodes are still visited in a deterministic order.
+ *
+ * @see EnergyNet
+ * @see TickerTask
+ *
+ */
+public class EnergyNetScheduler {
+
+    private static final Comparator<EnergyNet> REGULATOR_ORDER = Comparator.<EnergyNet, String>comparing(
+                    network -> network.getRegulator().getWorld().getName())
+            .thenComparingInt(network -> network.getRegulator().getBlockX())
+            .thenComparingInt(network -> network.getRegulator().getBlockY())
+            .thenComparingInt(network -> network.getRegulator().getBlockZ());
+
+    private final ForkJoinPool pool;
+
+    /**
+     * The networks scheduled during the current cycle, each network is only ticked once per cycle.
+     */
+    private final Map<EnergyNet, ScheduledTick> scheduled = new ConcurrentHashMap<>();
+
+    public EnergyNetScheduler(int threads) {
+        Validate.isTrue(threads > 0, "The amount of threads must be greater than zero!");
+
+        this.pool = new ForkJoinPool(
+                threads,
+                forkJoinPool -> {
+                    var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setName("Slimefun Energy Ticker #" + thread.getPoolIndex());
+                    return thread;
+                },
+                null,
+                false);
+    }
+
+    @ParametersAreNonnullByDefault
+    void schedule(EnergyNet network, Block b, SlimefunBlockData blockData) {
+        scheduled.putIfAbsent(network, new ScheduledTick(b, blockData));
+    }
+
+    /**
+     * This ticks every {@link EnergyNet} which has been scheduled since the last call
+     * and waits until all of them are done.
+     */
+    public void tickAll() {
+        if (scheduled.isEmpty()) {
+            return;
+        }
+
+        Map<EnergyNet, ScheduledTick> ticks = new HashMap<>();
+
+        for (EnergyNet network : scheduled.keySet()) {
+            ScheduledTick tick = scheduled.remove(network);
+
+            if (tick != null) {
+                ticks.put(network, tick);
+            }
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+        for (List<EnergyNet> group : groupBySharedComponents(ticks.keySet())) {
+            tasks.add(pool.submit(() -> group.forEach(network -> tickNetwork(network, ticks.get(network)))));
+        }
+
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    /**
+     * This groups the given networks, so that any two networks sharing a component end up in the same group.
+     * Groups and the networks within them are ordered by the location of their regulator.
+     */
+    @Nonnull
+    private static List<List<EnergyNet>> groupBySharedComponents(@Nonnull Collection<EnergyNet> networks) {
+        List<EnergyNet> sorted = new ArrayList<>(networks);
+        sorted.sort(REGULATOR_ORDER);
+
+        int[] parents = new int[sorted.size()];
+        Map<Location, Integer> owners = new HashMap<>();
+
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+
+            for (Location l : sorted.get(i).getComponentLocations()) {
+                Integer owner = owners.putIfAbsent(l, i);
+
+                if (owner != null) {
+                    // Always link to the lower index, so the first network of a group is its root
+                    int a = findRoot(parents, owner);
+                    int b = findRoot(parents, i);
+                    parents[Math.max(a, b)] = Math.min(a, b);
+                }
+            }
+        }
+
+        Map<Integer, List<EnergyNet>> groups = new LinkedHashMap<>();
+
+        for (int i = 0; i < parents.length; i++) {
+            groups.computeIfAbsent(findRoot(parents, i), root -> new ArrayList<>())
+                    .add(sorted.get(i));
+        }
+
+        return new ArrayList<>(groups.values());
+    }
+
+    private static int findRoot(@Nonnull int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+
+        return i;
+    }
+
+    @ParametersAreNonnullByDefault
+    private void tickNetwork(EnergyNet network, ScheduledTick tick) {
+        long timestamp = Slimefun.getProfiler().newNetworkEntry();
+
+        try {
+            network.distributeEnergy(tick.block(), tick.data(), time -> {});
+        } catch (Exception | LinkageError x) {
+            Slimefun.logger()
+                    .log(
+                            Level.SEVERE,
+                            x,
+                            () -> "An Exception was caught while ticking the energy network at "
+                                    + tick.block().getLocation());
+        } finally {
+            if (timestamp != 0) {
+                Location l = network.getRegulator();
+                String name =
+                        l.getWorld().getName() + " (" + l.getBlockX() + ',' + l.getBlockY() + ',' + l.getBlockZ() + ')';
+                Slimefun.getProfiler().closeNetworkEntry(name, network.getSize(), timestamp);
+            }
+        }
+    }
+
+    /**
+     * This stops the worker pool, scheduled networks will no longer be ticked.
+     */
+    public void shutdown() {
+        scheduled.clear();
+        pool.shutdown();
+    }
+
+    private record ScheduledTick(Block block, SlimefunBlockData data) {}
+}
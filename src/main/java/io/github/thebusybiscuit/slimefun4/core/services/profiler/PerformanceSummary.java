@@ -2,6 +2,7 @@ package io.github.thebusybiscuit.slimefun4.core.services.profiler;
 
 import io.github.bakedlibs.dough.common.ChatColors;
 import io.github.thebusybiscuit.slimefun4.core.services.profiler.inspectors.PlayerPerformanceInspector;
+import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
 import io.github.thebusybiscuit.slimefun4.utils.ChatUtils;
 import io.github.thebusybiscuit.slimefun4.utils.NumberUtils;
 import java.util.List;
@@ -34,6 +35,8 @@ class PerformanceSummary {
     private final Map<String, Long> chunks;
     private final Map<String, Long> plugins;
     private final Map<String, Long> items;
+    private final Map<String, Long> shards;
+    private final Map<String, Long> networks;
 
     PerformanceSummary(@Nonnull SlimefunProfiler profiler, long totalElapsedTime, int totalTickedBlocks) {
         this.profiler = profiler;
@@ -46,6 +49,8 @@ class PerformanceSummary {
         chunks = profiler.getByChunk();
         plugins = profiler.getByPlugin();
         items = profiler.getByItem();
+        shards = profiler.getByShard();
+        networks = profiler.getByNetwork();
     }
 
     public void send(@Nonnull PerformanceInspector sender) {
@@ -61,6 +66,7 @@ class PerformanceSummary {
                 + tickRate
                 + " ticks)");
         sender.sendMessage(ChatColor.GOLD + "Performance: " + getPerformanceRating());
+        sender.sendMessage(ChatColor.GOLD + "Block data cache: " + ChatColor.YELLOW + getBlockDataCacheSummary());
         sender.sendMessage("");
 
         summarizeTimings(totalTickedBlocks, "block", sender, items, entry -> {
@@ -94,6 +100,24 @@ class PerformanceSummary {
 
             return entry.getKey() + " - " + count + " block" + (count != 1 ? 's' : "") + " (" + time + ")";
         });
+
+        if (!shards.isEmpty()) {
+            summarizeTimings(shards.size(), "shard", sender, shards, entry -> {
+                int count = profiler.getChunksInShard(entry.getKey());
+                String time = NumberUtils.getAsMillis(entry.getValue());
+
+                return entry.getKey() + " - " + count + " chunk" + (count != 1 ? 's' : "") + " (" + time + ")";
+            });
+        }
+
+        if (!networks.isEmpty()) {
+            summarizeTimings(networks.size(), "energy network", sender, networks, entry -> {
+                int count = profiler.getNodesInNetwork(entry.getKey());
+                String time = NumberUtils.getAsMillis(entry.getValue());
+
+                return entry.getKey() + " - " + count + " node" + (count != 1 ? 's' : "") + " (" + time + ")";
+            });
+        }
     }
 
     @ParametersAreNonnullByDefault
@@ -193,6 +217,24 @@ class PerformanceSummary {
         return builder.toString();
     }
 
+    @Nonnull
+    private String getBlockDataCacheSummary() {
+        var controller = Slimefun.getDatabaseManager().getBlockDataController();
+        var summary = controller.getLoadedChunkCount()
+                + " chunks, "
+                + controller.getLoadedBlockCount()
+                + " blocks, "
+                + controller.getInvSnapshotCount()
+                + " inventory snapshots";
+
+        if (controller.isChunkDataUnloadEnabled()) {
+            summary += " (" + controller.getPendingUnloadChunkCount() + " pending unload, "
+                    + controller.getEvictedChunkCount() + " evicted)";
+        }
+
+        return summary;
+    }
+
     @Nonnull
     private String getPerformanceRating() {
         StringBuilder builder = new StringBuilder();
@@ -3,6 +3,8 @@ package io.github.thebusybiscuit.slimefun4.core.services.profiler;
 import com.google.common.util.concurrent.AtomicDouble;
 import io.github.thebusybiscuit.slimefun4.api.SlimefunAddon;
 import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItem;
+import io.github.thebusybiscuit.slimefun4.core.networks.energy.EnergyNet;
+import io.github.thebusybiscuit.slimefun4.core.networks.energy.EnergyNetScheduler;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
 import io.github.thebusybiscuit.slimefun4.implementation.tasks.TickerTask;
 import io.github.thebusybiscuit.slimefun4.utils.NumberUtils;
@@ -82,6 +84,10 @@ public class SlimefunProfiler {
     private long totalElapsedTime;
 
     private final Map<ProfiledBlock, Long> timings = new ConcurrentHashMap<>();
+    private final Map<String, Long> shardTimings = new ConcurrentHashMap<>();
+    private final Map<String, Integer> shardChunks = new ConcurrentHashMap<>();
+    private final Map<String, Long> networkTimings = new ConcurrentHashMap<>();
+    private final Map<String, Integer> networkNodes = new ConcurrentHashMap<>();
     private final Queue<PerformanceInspector> requests = new ConcurrentLinkedQueue<>();
 
     private final AtomicLong totalMsTicked = new AtomicLong();
@@ -105,6 +111,10 @@ public class SlimefunProfiler {
         isProfiling = true;
         queued.set(0);
         timings.clear();
+        shardTimings.clear();
+        shardChunks.clear();
+        networkTimings.clear();
+        networkNodes.clear();
     }
 
     /**
@@ -171,6 +181,68 @@ public class SlimefunProfiler {
         return elapsedTime;
     }
 
+    /**
+     * This method starts a new entry for a region shard of the parallel {@link TickerTask}.
+     *
+     * @return A timestamp, best fed back into {@link #closeShardEntry(String, int, long)}
+     */
+    public long newShardEntry() {
+        return isProfiling ? System.nanoTime() : 0;
+    }
+
+    /**
+     * This method closes a previously started shard entry.
+     * Unlike block entries, shard entries have to be closed before the profiling stops.
+     *
+     * @param shard
+     *            The name of the shard
+     * @param chunks
+     *            The amount of chunks ticked in this shard
+     * @param timestamp
+     *            The timestamp marking the start of this entry, you can retrieve it using {@link #newShardEntry()}
+     */
+    public void closeShardEntry(@Nonnull String shard, int chunks, long timestamp) {
+        Validate.notNull(shard, "The shard cannot be null!");
+
+        if (timestamp == 0) {
+            return;
+        }
+
+        shardTimings.merge(shard, System.nanoTime() - timestamp, Long::sum);
+        shardChunks.merge(shard, chunks, Integer::sum);
+    }
+
+    /**
+     * This method starts a new entry for an {@link EnergyNet} ticked by the {@link EnergyNetScheduler}.
+     *
+     * @return A timestamp, best fed back into {@link #closeNetworkEntry(String, int, long)}
+     */
+    public long newNetworkEntry() {
+        return isProfiling ? System.nanoTime() : 0;
+    }
+
+    /**
+     * This method closes a previously started network entry.
+     * Like shard entries, network entries have to be closed before the profiling stops.
+     *
+     * @param network
+     *            The name of the network
+     * @param nodes
+     *            The amount of nodes in this network
+     * @param timestamp
+     *            The timestamp marking the start of this entry, you can retrieve it using {@link #newNetworkEntry()}
+     */
+    public void closeNetworkEntry(@Nonnull String network, int nodes, long timestamp) {
+        Validate.notNull(network, "The network cannot be null!");
+
+        if (timestamp == 0) {
+            return;
+        }
+
+        networkTimings.merge(network, System.nanoTime() - timestamp, Long::sum);
+        networkNodes.put(network, nodes);
+    }
+
     /**
      * This stops the profiling.
      */
@@ -298,6 +370,28 @@ public class SlimefunProfiler {
         return map;
     }
 
+    @Nonnull
+    protected Map<String, Long> getByShard() {
+        return new HashMap<>(shardTimings);
+    }
+
+    @Nonnull
+    protected Map<String, Long> getByNetwork() {
+        return new HashMap<>(networkTimings);
+    }
+
+    protected int getNodesInNetwork(@Nonnull String network) {
+        Validate.notNull(network, "The network cannot be null!");
+
+        return networkNodes.getOrDefault(network, 0);
+    }
+
+    protected int getChunksInShard(@Nonnull String shard) {
+        Validate.notNull(shard, "The shard cannot be null!");
+
+        return shardChunks.getOrDefault(shard, 0);
+    }
+
     protected int getBlocksInChunk(@Nonnull String chunk) {
         Validate.notNull(chunk, "The chunk cannot be null!");
         int blocks = 0;
@@ -350,7 +350,9 @@ public final class Slimefun extends JavaPlugin implements SlimefunAddon, ICompat
         networkManager = new NetworkManager(
                 networkSize,
                 config.getBoolean("networks.enable-visualizer"),
-                config.getBoolean("networks.delete-excess-items"));
+                config.getBoolean("networks.delete-excess-items"),
+                config.getBoolean("networks.async-cargo-planning"),
+                config.getInt("networks.idle-backoff-max-cycles"));
 
         // Setting up bStats and analytics
         new Thread(metricsService::start, "Slimefun Metrics").start();
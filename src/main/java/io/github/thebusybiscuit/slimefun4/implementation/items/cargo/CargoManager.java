@@ -68,7 +68,17 @@ public class CargoManager extends SlimefunItem implements HologramOwner, NotRota
                             Block b = block.get();
 
                             var blockData = StorageCacheUtils.getBlock(b.getLocation());
-                            if (blockData.getData("visualizer") == null) {
+                            if (p.isSneaking()) {
+                                if (blockData.getData("bulk-transfer") == null) {
+                                    blockData.setData("bulk-transfer", "true");
+                                    p.sendMessage(
+                                            ChatColor.translateAlternateColorCodes('&', "&c货运网络批量传输: " + "&2\u2714"));
+                                } else {
+                                    blockData.removeData("bulk-transfer");
+                                    p.sendMessage(
+                                            ChatColor.translateAlternateColorCodes('&', "&c货运网络批量传输: " + "&4\u2718"));
+                                }
+                            } else if (blockData.getData("visualizer") == null) {
                                 blockData.setData("visualizer", "disabled");
                                 p.sendMessage(ChatColor.translateAlternateColorCodes('&', "&c货运网络可视化: " + "&4\u2718"));
                             } else {
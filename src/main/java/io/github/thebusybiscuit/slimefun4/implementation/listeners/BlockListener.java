@@ -70,6 +70,12 @@ public class BlockListener implements Listener {
         Block block = e.getBlock();
         var loc = block.getLocation();
 
+        // The blocks of this chunk are not known yet
+        if (StorageCacheUtils.isLoading(loc)) {
+            e.setCancelled(true);
+            return;
+        }
+
         // Fixes #2636 - This will solve the "ghost blocks" issue
         if (e.getBlockReplacedState().getType().isAir()) {
             var blockData = StorageCacheUtils.getBlock(loc);
@@ -175,6 +181,13 @@ public class BlockListener implements Listener {
 
         var heldItem = e.getPlayer().getInventory().getItemInMainHand();
         var block = e.getBlock();
+
+        // The blocks of this chunk are not known yet, breaking one now could drop it as a vanilla block
+        if (StorageCacheUtils.isLoading(block.getLocation())) {
+            e.setCancelled(true);
+            return;
+        }
+
         var blockData = StorageCacheUtils.getBlock(block.getLocation());
         var sfItem = blockData == null ? null : SlimefunItem.getById(blockData.getSfId());
 
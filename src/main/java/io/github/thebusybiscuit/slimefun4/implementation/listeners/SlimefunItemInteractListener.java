@@ -54,6 +54,13 @@ public class SlimefunItemInteractListener implements Listener {
                 return;
             }
 
+            // The blocks of this chunk are not known yet, do not treat the clicked block as a vanilla one
+            if (e.getClickedBlock() != null
+                    && StorageCacheUtils.isLoading(e.getClickedBlock().getLocation())) {
+                e.setCancelled(true);
+                return;
+            }
+
             // Fixes #4087 - Prevents players from interacting with a block that is about to be deleted
             // We especially don't want to open inventories as that can cause duplication
             if (e.getClickedBlock() != null
@@ -21,6 +21,13 @@ import org.bukkit.block.Block;
  */
 public class CapacitorTextureUpdateTask implements Runnable {
 
+    /**
+     * The textures of a {@link Capacitor}, ordered by their texture level.
+     */
+    private static final HeadTexture[] TEXTURES = {
+        HeadTexture.CAPACITOR_25, HeadTexture.CAPACITOR_50, HeadTexture.CAPACITOR_75, HeadTexture.CAPACITOR_100
+    };
+
     /**
      * The {@link Location} of the {@link Capacitor}.
      */
@@ -56,19 +63,38 @@ public class CapacitorTextureUpdateTask implements Runnable {
 
         // Ensure that this Block is still a Player Head
         if (type == Material.PLAYER_HEAD || type == Material.PLAYER_WALL_HEAD) {
-            if (filledPercentage <= 0.25) {
-                // 0-25% capacity
-                setTexture(b, HeadTexture.CAPACITOR_25);
-            } else if (filledPercentage <= 0.5) {
-                // 25-50% capacity
-                setTexture(b, HeadTexture.CAPACITOR_50);
-            } else if (filledPercentage <= 0.75) {
-                // 50-75% capacity
-                setTexture(b, HeadTexture.CAPACITOR_75);
-            } else {
-                // 75-100% capacity
-                setTexture(b, HeadTexture.CAPACITOR_100);
-            }
+            setTexture(b, TEXTURES[getTextureLevel(filledPercentage)]);
+        }
+    }
+
+    /**
+     * This returns the texture level of a {@link Capacitor} with the given charge.
+     * Two charges with the same level share the same texture.
+     *
+     * @param charge
+     *            The amount of charge in this {@link Capacitor}
+     * @param capacity
+     *            The capacity of this {@link Capacitor}
+     *
+     * @return The texture level, from 0 to 3
+     */
+    public static int getTextureLevel(double charge, double capacity) {
+        return getTextureLevel(charge / capacity);
+    }
+
+    private static int getTextureLevel(double filledPercentage) {
+        if (filledPercentage <= 0.25) {
+            // 0-25% capacity
+            return 0;
+        } else if (filledPercentage <= 0.5) {
+            // 25-50% capacity
+            return 1;
+        } else if (filledPercentage <= 0.75) {
+            // 50-75% capacity
+            return 2;
+        } else {
+            // 75-100% capacity
+            return 3;
         }
     }
 
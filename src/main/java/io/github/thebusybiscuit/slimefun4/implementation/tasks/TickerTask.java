@@ -6,14 +6,27 @@ import io.github.bakedlibs.dough.blocks.BlockPosition;
 import io.github.bakedlibs.dough.blocks.ChunkPosition;
 import io.github.thebusybiscuit.slimefun4.api.ErrorReport;
 import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItem;
+import io.github.thebusybiscuit.slimefun4.core.networks.energy.EnergyNet;
+import io.github.thebusybiscuit.slimefun4.core.networks.energy.EnergyNetScheduler;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import io.github.thebusybiscuit.slimefun4.implementation.tasks.TickingLocationRegistry.TickingChunk;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import me.mrCookieSlime.Slimefun.Objects.handlers.BlockTicker;
 import org.apache.commons.lang.Validate;
@@ -34,9 +47,14 @@ import org.bukkit.scheduler.BukkitScheduler;
 public class TickerTask implements Runnable {
 
     /**
-     * This Map holds all currently actively ticking locations.
+     * In parallel mode, ticking locations are sharded by world and region (32x32 chunks).
      */
-    private final Map<ChunkPosition, Set<Location>> tickingLocations = new ConcurrentHashMap<>();
+    private static final int REGION_SHIFT = 5;
+
+    /**
+     * This registry holds all currently actively ticking locations.
+     */
+    private final TickingLocationRegistry tickingLocations = new TickingLocationRegistry();
 
     /**
      * This Map tracks how many bugs have occurred in a given Location .
@@ -50,6 +68,28 @@ public class TickerTask implements Runnable {
 
     private volatile boolean paused = false;
 
+    /**
+     * The pool ticking the region shards, only present when parallel ticking is enabled.
+     */
+    private ForkJoinPool shardPool;
+
+    /**
+     * The chunks grouped by region shard, rebuilt whenever the registry generation changes.
+     */
+    private Map<TickShard, List<TickingChunk>> shards = Collections.emptyMap();
+
+    private long shardGeneration = -1;
+
+    /**
+     * The scheduler ticking every {@link EnergyNet} in parallel, only present when it is enabled.
+     */
+    private EnergyNetScheduler energyNetScheduler;
+
+    /**
+     * Collects the synchronized {@link BlockTicker BlockTickers} to run on the main thread.
+     */
+    private final SyncTickQueue syncTickQueue = new SyncTickQueue();
+
     /**
      * This method starts the {@link TickerTask} on an asynchronous schedule.
      *
@@ -59,8 +99,40 @@ public class TickerTask implements Runnable {
     public void start(@Nonnull Slimefun plugin) {
         this.tickRate = Slimefun.getCfg().getInt("URID.custom-ticker-delay");
 
+        if (Slimefun.getCfg().getBoolean("URID.parallel-ticking")) {
+            int threads = Slimefun.getCfg().getInt("URID.parallel-ticking-threads");
+            if (threads <= 0) {
+                threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            }
+
+            shardPool = new ForkJoinPool(
+                    threads,
+                    pool -> {
+                        var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                        thread.setName("Slimefun Ticker Shard #" + thread.getPoolIndex());
+                        return thread;
+                    },
+                    null,
+                    false);
+            plugin.getLogger().log(Level.INFO, "已启用并行 Ticker, 线程数: {0}", threads);
+        }
+
+        // Energy networks sharing a component must not be ticked by two shards at once, only the scheduler groups them
+        if (shardPool != null || Slimefun.getCfg().getBoolean("networks.parallel-energy-ticking")) {
+            int threads = Slimefun.getCfg().getInt("networks.energy-ticking-threads");
+            if (threads <= 0) {
+                threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            }
+
+            energyNetScheduler = new EnergyNetScheduler(threads);
+            plugin.getLogger().log(Level.INFO, "已启用能源网络并行调度, 线程数: {0}", threads);
+        }
+
+        syncTickQueue.budget = TimeUnit.MILLISECONDS.toNanos(Slimefun.getCfg().getInt("URID.sync-ticker-budget"));
+
         BukkitScheduler scheduler = plugin.getServer().getScheduler();
         scheduler.runTaskTimerAsynchronously(plugin, this, 100L, tickRate);
+        scheduler.runTaskTimer(plugin, syncTickQueue, 100L, 1L);
     }
 
     /**
@@ -84,18 +156,20 @@ public class TickerTask implements Runnable {
 
             running = true;
             Slimefun.getProfiler().start();
-            Set<BlockTicker> tickers = new HashSet<>();
+            Set<BlockTicker> tickers = shardPool == null ? new HashSet<>() : ConcurrentHashMap.newKeySet();
 
             // Run our ticker code
             if (!halted) {
-                Set<Map.Entry<ChunkPosition, Set<Location>>> loc;
-
-                synchronized (tickingLocations) {
-                    loc = new HashSet<>(tickingLocations.entrySet());
+                if (shardPool == null) {
+                    for (TickingChunk chunk : tickingLocations.getChunks()) {
+                        tickChunk(chunk.getPosition(), tickers, chunk.getLocations());
+                    }
+                } else {
+                    tickShards(tickers);
                 }
 
-                for (Map.Entry<ChunkPosition, Set<Location>> entry : loc) {
-                    tickChunk(entry.getKey(), tickers, new HashSet<>(entry.getValue()));
+                if (energyNetScheduler != null) {
+                    energyNetScheduler.tickAll();
                 }
             }
 
@@ -117,8 +191,56 @@ public class TickerTask implements Runnable {
         }
     }
 
+    /**
+     * Ticks every region shard on the shard pool and waits for all of them,
+     * so {@link BlockTicker#startNewTick()} is still called once the whole cycle is done.
+     * Chunks of the same shard are ticked in order by a single thread.
+     * <p>
+     * Asynchronous {@link BlockTicker BlockTickers} of different shards may run at the same time,
+     * a ticker which changes blocks outside of its own chunk has to be thread-safe.
+     * {@link EnergyNet EnergyNets} are always distributed by the {@link EnergyNetScheduler} in this mode,
+     * since two of them may share a capacitor across shards. Cargo networks only move items on the main thread.
+     */
+    private void tickShards(@Nonnull Set<BlockTicker> tickers) {
+        long generation = tickingLocations.getGeneration();
+
+        if (generation != shardGeneration) {
+            Map<TickShard, List<TickingChunk>> grouped = new HashMap<>();
+
+            for (TickingChunk chunk : tickingLocations.getChunks()) {
+                ChunkPosition position = chunk.getPosition();
+                TickShard shard = new TickShard(
+                        position.getWorld().getName(),
+                        position.getX() >> REGION_SHIFT,
+                        position.getZ() >> REGION_SHIFT);
+                grouped.computeIfAbsent(shard, k -> new ArrayList<>()).add(chunk);
+            }
+
+            shards = grouped;
+            shardGeneration = generation;
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(shards.size());
+        shards.forEach((shard, chunks) -> tasks.add(shardPool.submit(() -> tickShard(shard, chunks, tickers))));
+
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
     @ParametersAreNonnullByDefault
-    private void tickChunk(ChunkPosition chunk, Set<BlockTicker> tickers, Set<Location> locations) {
+    private void tickShard(TickShard shard, List<TickingChunk> chunks, Set<BlockTicker> tickers) {
+        long timestamp = Slimefun.getProfiler().newShardEntry();
+
+        for (TickingChunk chunk : chunks) {
+            tickChunk(chunk.getPosition(), tickers, chunk.getLocations());
+        }
+
+        Slimefun.getProfiler().closeShardEntry(shard.toString(), chunks.size(), timestamp);
+    }
+
+    @ParametersAreNonnullByDefault
+    private void tickChunk(ChunkPosition chunk, Set<BlockTicker> tickers, Location[] locations) {
         try {
             // Only continue if the Chunk is actually loaded
             if (chunk.isLoaded()) {
@@ -146,23 +268,15 @@ public class TickerTask implements Runnable {
 
             try {
                 if (item.getBlockTicker().isSynchronized()) {
-                    Slimefun.getProfiler().scheduleEntries(1);
-                    item.getBlockTicker().update();
-
-                    /**
-                     * We are inserting a new timestamp because synchronized actions
-                     * are always ran with a 50ms delay (1 game tick)
-                     */
-                    Slimefun.runSync(() -> {
-                        if (blockData.isPendingRemove()) {
-                            return;
-                        }
-                        Block b = l.getBlock();
-                        tickBlock(l, b, item, blockData, System.nanoTime());
-                    });
+                    updateTicker(item.getBlockTicker());
+
+                    // Blocks still waiting from the last cycle keep their place in the queue
+                    if (syncTickQueue.add(l, item, blockData)) {
+                        Slimefun.getProfiler().scheduleEntries(1);
+                    }
                 } else {
                     long timestamp = Slimefun.getProfiler().newEntry();
-                    item.getBlockTicker().update();
+                    updateTicker(item.getBlockTicker());
                     Block b = l.getBlock();
                     tickBlock(l, b, item, blockData, timestamp);
                 }
@@ -174,6 +288,18 @@ public class TickerTask implements Runnable {
         }
     }
 
+    private void updateTicker(@Nonnull BlockTicker ticker) {
+        if (shardPool == null) {
+            ticker.update();
+            return;
+        }
+
+        // Shards share the same ticker instances, BlockTicker#uniqueTick() must still only run once per cycle
+        synchronized (ticker) {
+            ticker.update();
+        }
+    }
+
     @ParametersAreNonnullByDefault
     private void tickBlock(Location l, Block b, SlimefunItem item, SlimefunBlockData data, long timestamp) {
         try {
@@ -215,6 +341,34 @@ public class TickerTask implements Runnable {
 
     public void halt() {
         halted = true;
+        syncTickQueue.clear();
+
+        if (shardPool != null) {
+            shardPool.shutdown();
+        }
+
+        if (energyNetScheduler != null) {
+            energyNetScheduler.shutdown();
+        }
+    }
+
+    /**
+     * This returns whether block tickers are ticked in parallel region shards.
+     *
+     * @return Whether parallel ticking is enabled
+     */
+    public boolean isParallelTicking() {
+        return shardPool != null;
+    }
+
+    /**
+     * This returns the {@link EnergyNetScheduler} ticking every {@link EnergyNet},
+     * or null if energy networks are ticked by their regulator.
+     *
+     * @return The {@link EnergyNetScheduler} or null
+     */
+    @Nullable public EnergyNetScheduler getEnergyNetScheduler() {
+        return energyNetScheduler;
     }
 
     /**
@@ -237,7 +391,7 @@ public class TickerTask implements Runnable {
      */
     @Nonnull
     public Map<ChunkPosition, Set<Location>> getLocations() {
-        return Collections.unmodifiableMap(tickingLocations);
+        return tickingLocations.getView();
     }
 
     /**
@@ -255,8 +409,7 @@ public class TickerTask implements Runnable {
     public Set<Location> getLocations(@Nonnull Chunk chunk) {
         Validate.notNull(chunk, "The Chunk cannot be null!");
 
-        Set<Location> locations = tickingLocations.getOrDefault(new ChunkPosition(chunk), new HashSet<>());
-        return Collections.unmodifiableSet(locations);
+        return tickingLocations.getView(new ChunkPosition(chunk));
     }
 
     /**
@@ -268,13 +421,7 @@ public class TickerTask implements Runnable {
     public void enableTicker(@Nonnull Location l) {
         Validate.notNull(l, "Location cannot be null!");
 
-        synchronized (tickingLocations) {
-            tickingLocations
-                    .computeIfAbsent(
-                            new ChunkPosition(l.getWorld(), l.getBlockX() >> 4, l.getBlockZ() >> 4),
-                            k -> new HashSet<>())
-                    .add(l);
-        }
+        tickingLocations.add(l);
     }
 
     /**
@@ -287,21 +434,75 @@ public class TickerTask implements Runnable {
     public void disableTicker(@Nonnull Location l) {
         Validate.notNull(l, "Location cannot be null!");
 
-        synchronized (tickingLocations) {
-            ChunkPosition chunk = new ChunkPosition(l.getWorld(), l.getBlockX() >> 4, l.getBlockZ() >> 4);
-            Set<Location> locations = tickingLocations.get(chunk);
+        tickingLocations.remove(l);
+    }
 
-            if (locations != null) {
-                locations.remove(l);
+    public void setPaused(boolean isPaused) {
+        paused = isPaused;
+    }
 
-                if (locations.isEmpty()) {
-                    tickingLocations.remove(chunk);
+    private record SyncTick(Location location, SlimefunItem item, SlimefunBlockData data) {}
+
+    /**
+     * Runs the queued synchronized {@link BlockTicker BlockTickers} in a single main thread task.
+     * Each server tick only spends up to the configured time budget, blocks left over are
+     * carried over to the next server tick in the order they were queued.
+     */
+    private final class SyncTickQueue implements Runnable {
+        private final Queue<SyncTick> incoming = new ConcurrentLinkedQueue<>();
+        private final Set<Location> queued = ConcurrentHashMap.newKeySet();
+        private final ArrayDeque<SyncTick> pending = new ArrayDeque<>();
+        private long budget;
+
+        private boolean add(Location l, SlimefunItem item, SlimefunBlockData data) {
+            if (!queued.add(l)) {
+                return false;
+            }
+
+            incoming.add(new SyncTick(l, item, data));
+            return true;
+        }
+
+        private void clear() {
+            incoming.clear();
+            queued.clear();
+        }
+
+        @Override
+        public void run() {
+            SyncTick next;
+            while ((next = incoming.poll()) != null) {
+                pending.add(next);
+            }
+
+            if (halted) {
+                pending.clear();
+                return;
+            }
+
+            long deadline = budget > 0 ? System.nanoTime() + budget : Long.MAX_VALUE;
+
+            while ((next = pending.poll()) != null) {
+                queued.remove(next.location());
+
+                if (next.data().isPendingRemove()) {
+                    Slimefun.getProfiler().scheduleEntries(-1);
+                } else {
+                    Location l = next.location();
+                    tickBlock(l, l.getBlock(), next.item(), next.data(), System.nanoTime());
+                }
+
+                if (System.nanoTime() >= deadline) {
+                    break;
                 }
             }
         }
     }
 
-    public void setPaused(boolean isPaused) {
-        paused = isPaused;
+    private record TickShard(String world, int regionX, int regionZ) {
+        @Override
+        public String toString() {
+            return world + " r(" + regionX + ',' + regionZ + ')';
+        }
     }
 }
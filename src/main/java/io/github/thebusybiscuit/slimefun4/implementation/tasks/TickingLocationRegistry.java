@@ -0,0 +1,203 @@
+package io.github.thebusybiscuit.slimefun4.implementation.tasks;
+
+import io.github.bakedlibs.dough.blocks.ChunkPosition;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.bukkit.Location;
+
+/**
+ * Holds every ticking {@link Location} of the {@link TickerTask}, grouped by chunk.
+ * <p>
+ * The locations of a chunk are stored in an array that is replaced on every change,
+ * so the ticker can iterate the current array as a stable snapshot without copying it.
+ * Changes only lock the bin of their own chunk in the backing {@link ConcurrentHashMap}.
+ * <p>
+ * The generation is increased whenever a chunk is added to or removed from the registry,
+ * which allows callers to cache anything derived from the set of chunks.
+ *
+ * @see TickerTask
+ */
+final class TickingLocationRegistry {
+    private static final Location[] EMPTY = new Location[0];
+
+    private final Map<ChunkPosition, TickingChunk> chunks = new ConcurrentHashMap<>();
+    private final Map<ChunkPosition, Set<Location>> view = Collections.unmodifiableMap(new LocationView());
+    private final AtomicLong generation = new AtomicLong();
+
+    void add(@Nonnull Location l) {
+        chunks.compute(getChunkPosition(l), (position, chunk) -> {
+            if (chunk == null) {
+                chunk = new TickingChunk(position);
+                generation.incrementAndGet();
+            }
+
+            chunk.add(l);
+            return chunk;
+        });
+    }
+
+    void remove(@Nonnull Location l) {
+        chunks.computeIfPresent(getChunkPosition(l), (position, chunk) -> {
+            if (chunk.remove(l) && chunk.locations.length == 0) {
+                generation.incrementAndGet();
+                return null;
+            }
+
+            return chunk;
+        });
+    }
+
+    @Nonnull
+    Collection<TickingChunk> getChunks() {
+        return chunks.values();
+    }
+
+    long getGeneration() {
+        return generation.get();
+    }
+
+    @Nonnull
+    Map<ChunkPosition, Set<Location>> getView() {
+        return view;
+    }
+
+    @Nonnull
+    Set<Location> getView(@Nonnull ChunkPosition position) {
+        var chunk = chunks.get(position);
+        return chunk == null ? Collections.emptySet() : chunk.view;
+    }
+
+    private static ChunkPosition getChunkPosition(Location l) {
+        return new ChunkPosition(l.getWorld(), l.getBlockX() >> 4, l.getBlockZ() >> 4);
+    }
+
+    /**
+     * The ticking locations of a single chunk.
+     * The array is only ever replaced while holding the map bin of this chunk.
+     */
+    static final class TickingChunk {
+        private final ChunkPosition position;
+        private final Set<Location> view = new LocationSet();
+        private volatile Location[] locations = EMPTY;
+
+        private TickingChunk(ChunkPosition position) {
+            this.position = position;
+        }
+
+        @Nonnull
+        ChunkPosition getPosition() {
+            return position;
+        }
+
+        /**
+         * The returned array is never modified afterwards, it must not be modified by the caller either.
+         */
+        @Nonnull
+        Location[] getLocations() {
+            return locations;
+        }
+
+        private void add(Location l) {
+            var current = locations;
+            if (indexOf(current, l) != -1) {
+                return;
+            }
+
+            var updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = l;
+            locations = updated;
+        }
+
+        private boolean remove(Location l) {
+            var current = locations;
+            var index = indexOf(current, l);
+            if (index == -1) {
+                return false;
+            }
+
+            var updated = new Location[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, updated.length - index);
+            locations = updated;
+            return true;
+        }
+
+        private static int indexOf(Location[] locations, Object l) {
+            for (var i = 0; i < locations.length; i++) {
+                if (locations[i].equals(l)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private final class LocationSet extends AbstractSet<Location> {
+            @Override
+            public Iterator<Location> iterator() {
+                return Collections.unmodifiableList(Arrays.asList(locations)).iterator();
+            }
+
+            @Override
+            public int size() {
+                return locations.length;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return indexOf(locations, o) != -1;
+            }
+        }
+    }
+
+    private final class LocationView extends AbstractMap<ChunkPosition, Set<Location>> {
+        private final Set<Entry<ChunkPosition, Set<Location>>> entries = new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<ChunkPosition, Set<Location>>> iterator() {
+                var it = chunks.values().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public Entry<ChunkPosition, Set<Location>> next() {
+                        var chunk = it.next();
+                        return new SimpleImmutableEntry<>(chunk.position, chunk.view);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return chunks.size();
+            }
+        };
+
+        @Override
+        public Set<Entry<ChunkPosition, Set<Location>>> entrySet() {
+            return entries;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return chunks.containsKey(key);
+        }
+
+        @Override
+        @Nullable public Set<Location> get(Object key) {
+            var chunk = chunks.get(key);
+            return chunk == null ? null : chunk.view;
+        }
+    }
+}
@@ -580,6 +580,28 @@ public final class SlimefunUtils {
         Slimefun.runSync(new CapacitorTextureUpdateTask(l, charge, capacity));
     }
 
+    /**
+     * This updates the texture of a capacitor, but only if the new charge
+     * leads to a different texture than the previous charge.
+     *
+     * @param l
+     *            The {@link Location} of the capacitor
+     * @param previousCharge
+     *            The charge before it was changed
+     * @param charge
+     *            The new charge
+     * @param capacity
+     *            The capacity of the capacitor
+     */
+    public static void updateCapacitorTexture(@Nonnull Location l, int previousCharge, int charge, int capacity) {
+        Validate.isTrue(capacity > 0, "Capacity must be greater than zero!");
+
+        if (CapacitorTextureUpdateTask.getTextureLevel(previousCharge, capacity)
+                != CapacitorTextureUpdateTask.getTextureLevel(charge, capacity)) {
+            updateCapacitorTexture(l, charge, capacity);
+        }
+    }
+
     /**
      * This checks whether the {@link Player} is able to use the given {@link ItemStack}.
      * It will always return <code>true</code> for non-Slimefun items.
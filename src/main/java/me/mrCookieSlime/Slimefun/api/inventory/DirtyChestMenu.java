@@ -28,6 +28,11 @@ public class DirtyChestMenu extends ChestMenu {
     protected final BlockMenuPreset preset;
     protected int changes = 1;
 
+    /**
+     * Unlike {@link #changes}, this is never reset when the menu is saved.
+     */
+    private volatile int modifications;
+
     public DirtyChestMenu(@Nonnull BlockMenuPreset preset) {
         super(preset.getTitle());
 
@@ -46,6 +51,17 @@ public class DirtyChestMenu extends ChestMenu {
 
     public void markDirty() {
         changes++;
+        modifications++;
+    }
+
+    /**
+     * This returns a counter which is increased whenever this {@link DirtyChestMenu} is marked dirty.
+     * It is never reset, so it can be used to find out whether the menu changed since an earlier point.
+     *
+     * @return The modification counter of this menu
+     */
+    public int getModificationCount() {
+        return modifications;
     }
 
     public boolean isDirty() {